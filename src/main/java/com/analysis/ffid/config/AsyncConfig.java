@@ -0,0 +1,62 @@
+package com.analysis.ffid.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Bounded pool for parsing and persisting uploads, so large files no
+     * longer hold Tomcat request threads. When both the workers and the
+     * queue are busy new uploads are refused instead of piling up.
+     */
+    @Bean(name = "uploadExecutor")
+    public ThreadPoolTaskExecutor uploadExecutor(
+            @Value("${ffid.upload.workers:3}") int workers,
+            @Value("${ffid.upload.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("upload-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Single thread that samples progress for SSE subscribers. It only
+     * builds events; writing them is left to {@code progressSender}.
+     */
+    @Bean(name = "progressScheduler")
+    public ThreadPoolTaskScheduler progressScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("upload-progress-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * Small pool that writes progress events to SSE clients. Each subscriber
+     * has at most one send in flight, so a slow client ties up one thread
+     * instead of delaying every other stream. Kept apart from the upload
+     * pool so slow clients never delay ingestion.
+     */
+    @Bean(name = "progressSender")
+    public ThreadPoolTaskExecutor progressSender(
+            @Value("${ffid.upload.progress-senders:4}") int senders) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(senders);
+        executor.setMaxPoolSize(senders);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("upload-progress-send-");
+        executor.initialize();
+        return executor;
+    }
+}
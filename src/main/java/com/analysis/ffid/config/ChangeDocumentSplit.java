@@ -0,0 +1,171 @@
+package com.analysis.ffid.config;
+
+import com.analysis.ffid.model.cdhdr;
+import com.analysis.ffid.model.cdpos;
+import com.analysis.ffid.repository.TableMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Change documents used to live in one cdhdr_cdpos table with the header
+ * columns copied onto every item. On databases that still have that table,
+ * copy each analysis not yet present in cdhdr into the split tables: one
+ * cdhdr row per doc_number (the first old row) and one cdpos row per old
+ * row that carried an item. Dictionary columns are taken from the old id
+ * columns, or resolved from the old text columns if the table predates
+ * sap_dictionary. The old table is left in place so nothing is lost.
+ *
+ * Runs before EventTimeBackfill, which fills event_time for copied headers
+ * whose old table had no such column.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ChangeDocumentSplit implements ApplicationRunner {
+
+    static final String LEGACY_TABLE = "cdhdr_cdpos";
+
+    private static final List<String> HEADER_ATTRIBUTES = List.of(
+            "requestDetails", "client", "object", "objectValue", "docNumber", "username",
+            "entryDate", "entryTime", "eventTime", "tcode");
+
+    private static final List<String> ITEM_ATTRIBUTES = List.of(
+            "requestDetails", "docNumber", "tableName", "tableKey", "fieldName", "changeId", "textFlag", "unit",
+            "cuky", "newValue", "oldValue");
+
+    /** Dictionary attributes and the text column they had before sap_dictionary. */
+    private static final Map<String, String> LEGACY_TEXT_COLUMNS = Map.of(
+            "object", "object",
+            "tableName", "tableName",
+            "fieldName", "fieldName");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TableMetadata tableMetadata;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                DatabaseMetaData::getDatabaseProductName);
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            log.info("Skipping change document split on {}", product);
+            return;
+        }
+
+        List<String> legacyColumns = columnsOf(LEGACY_TABLE);
+        if (legacyColumns.isEmpty()) {
+            return;
+        }
+
+        String analysis = tableMetadata.column(cdhdr.class, "requestDetails");
+        String pending = " WHERE NOT EXISTS (SELECT 1 FROM " + tableMetadata.table(cdhdr.class) + " h" +
+                " WHERE h." + analysis + " = c." + analysis + ")";
+
+        int[] copied = transactionTemplate.execute(status -> {
+            // Items first: the header insert is what marks an analysis as done.
+            List<String> itemColumns = new ArrayList<>();
+            List<String> itemValues = new ArrayList<>();
+            resolve(cdpos.class, ITEM_ATTRIBUTES, legacyColumns, itemColumns, itemValues);
+            int tableName = itemColumns.indexOf(tableMetadata.column(cdpos.class, "tableName"));
+            int items = tableName < 0 ? 0 : jdbcTemplate.update("INSERT INTO " + tableMetadata.table(cdpos.class) +
+                    " (" + tableMetadata.idColumn(cdpos.class) + ", " + String.join(", ", itemColumns) + ")" +
+                    " SELECT nextval('cdpos_seq'), " + String.join(", ", itemValues) +
+                    " FROM " + LEGACY_TABLE + " c" + pending + " AND " + itemValues.get(tableName) + " IS NOT NULL");
+
+            List<String> headerColumns = new ArrayList<>();
+            List<String> headerValues = new ArrayList<>();
+            resolve(cdhdr.class, HEADER_ATTRIBUTES, legacyColumns, headerColumns, headerValues);
+            String docNumber = tableMetadata.column(cdhdr.class, "docNumber");
+            List<String> aliased = new ArrayList<>();
+            for (int i = 0; i < headerColumns.size(); i++) {
+                aliased.add(headerValues.get(i) + " AS " + headerColumns.get(i));
+            }
+            int headers = jdbcTemplate.update("INSERT INTO " + tableMetadata.table(cdhdr.class) +
+                    " (" + tableMetadata.idColumn(cdhdr.class) + ", " + String.join(", ", headerColumns) + ")" +
+                    " SELECT nextval('cdhdr_seq'), " + String.join(", ", headerColumns) + " FROM (" +
+                    " SELECT DISTINCT ON (c." + analysis + ", c." + docNumber + ") " + String.join(", ", aliased) +
+                    " FROM " + LEGACY_TABLE + " c" + pending +
+                    " ORDER BY c." + analysis + ", c." + docNumber + ", c." + tableMetadata.idColumn(cdhdr.class) +
+                    ") first_rows");
+            return new int[]{headers, items};
+        });
+
+        if (copied != null && copied[0] > 0) {
+            log.info("Split {} into {} cdhdr and {} cdpos rows; the old table can be dropped",
+                    LEGACY_TABLE, copied[0], copied[1]);
+        }
+    }
+
+    /**
+     * Target column and old-table value expression of every attribute the
+     * old table can supply.
+     */
+    private void resolve(Class<?> entity, List<String> attributes, List<String> legacyColumns,
+                         List<String> columns, List<String> values) {
+        for (String attribute : attributes) {
+            String column = tableMetadata.column(entity, attribute);
+            String legacy = find(legacyColumns, column);
+            if (legacy != null) {
+                columns.add(column);
+                values.add("c." + quote(legacy));
+                continue;
+            }
+            String legacyText = LEGACY_TEXT_COLUMNS.containsKey(attribute)
+                    ? find(legacyColumns, LEGACY_TEXT_COLUMNS.get(attribute))
+                    : null;
+            if (legacyText != null) {
+                jdbcTemplate.update("INSERT INTO sap_dictionary (term) SELECT DISTINCT " + quote(legacyText) +
+                        " FROM " + LEGACY_TABLE + " WHERE " + quote(legacyText) + " IS NOT NULL" +
+                        " ON CONFLICT (term) DO NOTHING");
+                columns.add(column);
+                values.add("(SELECT d.id FROM sap_dictionary d WHERE d.term = c." + quote(legacyText) + ")");
+            }
+        }
+    }
+
+    private static String find(List<String> columns, String name) {
+        return columns.stream()
+                .filter(column -> normalize(column).equals(normalize(name)))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private List<String> columnsOf(String table) throws MetaDataAccessException {
+        return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), metaData -> {
+            List<String> columns = new ArrayList<>();
+            try (ResultSet rs = metaData.getColumns(null, null, table, null)) {
+                while (rs.next()) {
+                    columns.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+            return columns;
+        });
+    }
+
+    private static String quote(String column) {
+        return "\"" + column.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * "table_name", "tableName" and "TableName" all become "tablename".
+     */
+    private static String normalize(String name) {
+        return name.replaceAll("[^A-Za-z0-9]", "").toLowerCase();
+    }
+}
@@ -0,0 +1,64 @@
+package com.analysis.ffid.config;
+
+import com.analysis.ffid.model.client_system;
+import com.analysis.ffid.model.request_details;
+import com.analysis.ffid.repository.TableMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+
+/**
+ * Concurrent request creation used to race on new (client, system) pairs
+ * and leave duplicate client_system rows, which also keeps Hibernate from
+ * adding the unique constraint the upsert relies on. On PostgreSQL, point
+ * requests at the oldest row of each pair, drop the other rows and create
+ * the unique index if it is still missing.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClientSystemDeduplication implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TableMetadata tableMetadata;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                DatabaseMetaData::getDatabaseProductName);
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            log.info("Skipping client_system deduplication on {}", product);
+            return;
+        }
+
+        String table = tableMetadata.table(client_system.class);
+        String id = tableMetadata.idColumn(client_system.class);
+        String client = tableMetadata.column(client_system.class, "client");
+        String system = tableMetadata.column(client_system.class, "system");
+        String requests = tableMetadata.table(request_details.class);
+        String requestCs = tableMetadata.column(request_details.class, "clientSystem");
+
+        String duplicates = "(SELECT " + id + " AS id, MIN(" + id + ") OVER (PARTITION BY " + client + ", " + system
+                + ") AS keep FROM " + table + ") d";
+
+        transactionTemplate.executeWithoutResult(status -> {
+            int relinked = jdbcTemplate.update("UPDATE " + requests + " r SET " + requestCs + " = d.keep FROM "
+                    + duplicates + " WHERE r." + requestCs + " = d.id AND d.id <> d.keep");
+            int removed = jdbcTemplate.update("DELETE FROM " + table + " c USING " + duplicates
+                    + " WHERE c." + id + " = d.id AND d.id <> d.keep");
+            if (removed > 0) {
+                log.info("Merged {} duplicate client_system rows ({} requests relinked)", removed, relinked);
+            }
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + client_system.PAIR_CONSTRAINT
+                    + " ON " + table + " (" + client + ", " + system + ")");
+        });
+    }
+}
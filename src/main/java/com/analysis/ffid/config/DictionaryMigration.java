@@ -0,0 +1,100 @@
+package com.analysis.ffid.config;
+
+import com.analysis.ffid.model.sm20;
+import com.analysis.ffid.repository.TableMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The repeated identifier columns of sm20 used to hold the text itself.
+ * On databases that still have those text columns, copy their values into
+ * sap_dictionary and fill the new id columns for rows that do not have one
+ * yet. Change documents are handled by ChangeDocumentSplit.
+ *
+ * The old columns are left in place so nothing is lost; drop them once the
+ * data has been checked.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DictionaryMigration implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TableMetadata tableMetadata;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                DatabaseMetaData::getDatabaseProductName);
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            log.info("Skipping sap_dictionary migration on {}", product);
+            return;
+        }
+
+        migrate(sm20.class, Map.of(
+                "sapSystem", "SAP System",
+                "asInstance", "AS Instance",
+                "username", "Username",
+                "terminal", "Terminal",
+                "sourceTA", "Source TA",
+                "program", "Program"));
+    }
+
+    private void migrate(Class<?> entity, Map<String, String> legacyNames) throws MetaDataAccessException {
+        String table = tableMetadata.table(entity);
+        List<String> existing = columnsOf(table);
+
+        legacyNames.forEach((attribute, legacyName) -> {
+            String legacy = existing.stream()
+                    .filter(column -> normalize(column).equals(normalize(legacyName)))
+                    .findFirst()
+                    .orElse(null);
+            if (legacy == null) {
+                return;
+            }
+            String quoted = "\"" + legacy.replace("\"", "\"\"") + "\"";
+            String idColumn = tableMetadata.column(entity, attribute);
+
+            jdbcTemplate.update("INSERT INTO sap_dictionary (term) SELECT DISTINCT " + quoted +
+                    " FROM " + table + " WHERE " + quoted + " IS NOT NULL AND " + idColumn + " IS NULL" +
+                    " ON CONFLICT (term) DO NOTHING");
+            int updated = jdbcTemplate.update("UPDATE " + table + " t SET " + idColumn + " = d.id" +
+                    " FROM sap_dictionary d WHERE d.term = t." + quoted + " AND t." + idColumn + " IS NULL");
+            if (updated > 0) {
+                log.info("Moved {} values of {}.{} into sap_dictionary; the old column can be dropped",
+                        updated, table, legacy);
+            }
+        });
+    }
+
+    private List<String> columnsOf(String table) throws MetaDataAccessException {
+        return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), metaData -> {
+            List<String> columns = new ArrayList<>();
+            try (ResultSet rs = metaData.getColumns(null, null, table, null)) {
+                while (rs.next()) {
+                    columns.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+            return columns;
+        });
+    }
+
+    /**
+     * "Source TA", "source_ta" and "sourceTA" all become "sourceta".
+     */
+    private static String normalize(String name) {
+        return name.replaceAll("[^A-Za-z0-9]", "").toLowerCase();
+    }
+}
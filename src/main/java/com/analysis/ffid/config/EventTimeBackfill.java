@@ -0,0 +1,61 @@
+package com.analysis.ffid.config;
+
+import com.analysis.ffid.model.cdhdr;
+import com.analysis.ffid.model.sm20;
+import com.analysis.ffid.repository.TableMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+
+/**
+ * Fills event_time for SM20 and change-document rows loaded before the
+ * column existed, from their dd.MM.yyyy / HH:mm:ss text. Rows in other
+ * layouts stay NULL; they sort last and still display their text.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ffid.ingest.backfill-event-time", havingValue = "true", matchIfMissing = true)
+public class EventTimeBackfill implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TableMetadata tableMetadata;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                DatabaseMetaData::getDatabaseProductName);
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            log.info("Skipping event_time backfill on {}", product);
+            return;
+        }
+
+        backfill(sm20.class, "entrydate", "entrytime");
+        backfill(cdhdr.class, "entryDate", "entryTime");
+    }
+
+    private void backfill(Class<?> entity, String dateAttribute, String timeAttribute) {
+        String date = tableMetadata.column(entity, dateAttribute);
+        String time = tableMetadata.column(entity, timeAttribute);
+        String eventTime = tableMetadata.column(entity, "eventTime");
+
+        int updated = jdbcTemplate.update(
+                "UPDATE " + tableMetadata.table(entity) +
+                        " SET " + eventTime + " = to_timestamp(" + date + " || ' ' || " +
+                        "COALESCE(NULLIF(" + time + ", ''), '00:00:00'), 'DD.MM.YYYY HH24:MI:SS')::timestamp" +
+                        " WHERE " + eventTime + " IS NULL" +
+                        " AND " + date + " ~ '^[0-9]{2}\\.[0-9]{2}\\.[0-9]{4}$'" +
+                        " AND (" + time + " IS NULL OR " + time + " = '' OR " +
+                        time + " ~ '^[0-9]{2}:[0-9]{2}:[0-9]{2}$')");
+        if (updated > 0) {
+            log.info("Backfilled event_time for {} {} rows", updated, tableMetadata.table(entity));
+        }
+    }
+}
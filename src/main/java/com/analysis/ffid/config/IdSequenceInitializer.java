@@ -0,0 +1,65 @@
+package com.analysis.ffid.config;
+
+import com.analysis.ffid.model.analysis_result;
+import com.analysis.ffid.model.cdhdr;
+import com.analysis.ffid.model.cdpos;
+import com.analysis.ffid.model.sm20;
+import com.analysis.ffid.model.transaction_usage;
+import com.analysis.ffid.repository.TableMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The log tables used IDENTITY keys before they moved to pooled sequences.
+ * On databases that already hold rows, push each sequence past the highest
+ * existing id so Hibernate's pooled blocks never collide with old keys.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdSequenceInitializer implements ApplicationRunner {
+
+    /** Must match the allocationSize of the entity @SequenceGenerator mappings. */
+    public static final int ALLOCATION_SIZE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TableMetadata tableMetadata;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                DatabaseMetaData::getDatabaseProductName);
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            log.info("Skipping id sequence alignment on {}", product);
+            return;
+        }
+
+        Map<Class<?>, String> sequences = new LinkedHashMap<>();
+        sequences.put(sm20.class, "sm20_seq");
+        sequences.put(transaction_usage.class, "transaction_usage_seq");
+        sequences.put(cdhdr.class, "cdhdr_seq");
+        sequences.put(cdpos.class, "cdpos_seq");
+        sequences.put(analysis_result.class, "analysis_result_seq");
+
+        sequences.forEach((entity, sequence) -> {
+            String maxId = "(SELECT COALESCE(MAX(" + tableMetadata.idColumn(entity) + "), 0) + " + ALLOCATION_SIZE +
+                    " FROM " + tableMetadata.table(entity) + ")";
+            Long aligned = jdbcTemplate.query(
+                    "SELECT setval('" + sequence + "', " + maxId + ") " +
+                            "WHERE " + maxId + " > (SELECT last_value FROM " + sequence + ")",
+                    rs -> rs.next() ? rs.getLong(1) : null);
+            if (aligned != null) {
+                log.info("Aligned {} to {}", sequence, aligned);
+            }
+        });
+    }
+}
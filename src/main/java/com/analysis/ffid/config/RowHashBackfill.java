@@ -0,0 +1,90 @@
+package com.analysis.ffid.config;
+
+import com.analysis.ffid.model.cdhdr;
+import com.analysis.ffid.model.cdpos;
+import com.analysis.ffid.model.sm20;
+import com.analysis.ffid.model.transaction_usage;
+import com.analysis.ffid.repository.TableMetadata;
+import jakarta.persistence.Convert;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Fills row_hash for log rows loaded before the column existed, computing
+ * in SQL the same hash as RowHash (dictionary columns hashed by their
+ * term). Within an analysis only the first row of each group of identical
+ * rows gets the hash; the later copies keep NULL, which the unique index
+ * allows, so nothing is deleted and re-uploads still skip those rows.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ffid.ingest.backfill-row-hash", havingValue = "true", matchIfMissing = true)
+public class RowHashBackfill implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TableMetadata tableMetadata;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                DatabaseMetaData::getDatabaseProductName);
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            log.info("Skipping row_hash backfill on {}", product);
+            return;
+        }
+
+        backfill(sm20.class, sm20.ROW_HASH_ATTRIBUTES);
+        backfill(transaction_usage.class, transaction_usage.ROW_HASH_ATTRIBUTES);
+        backfill(cdhdr.class, cdhdr.ROW_HASH_ATTRIBUTES);
+        backfill(cdpos.class, cdpos.ROW_HASH_ATTRIBUTES);
+    }
+
+    private void backfill(Class<?> entity, List<String> attributes) {
+        String table = tableMetadata.table(entity);
+        String id = tableMetadata.idColumn(entity);
+        String analysis = tableMetadata.column(entity, "requestDetails");
+        String rowHash = tableMetadata.column(entity, "rowHash");
+        String hashed = attributes.stream()
+                .map(attribute -> "COALESCE(" + value(entity, attribute) + ", '')")
+                .collect(Collectors.joining(", "));
+
+        int updated = jdbcTemplate.update(
+                "UPDATE " + table + " t SET " + rowHash + " = x.h" +
+                        " FROM (SELECT " + id + " AS id, h, row_number() OVER (PARTITION BY " + analysis +
+                        ", h ORDER BY " + id + ") AS rn" +
+                        " FROM (SELECT t." + id + ", t." + analysis + ", md5(concat_ws(chr(31), " + hashed +
+                        "))::uuid AS h FROM " + table + " t WHERE t." + rowHash + " IS NULL) y) x" +
+                        " WHERE t." + id + " = x.id AND x.rn = 1" +
+                        " AND NOT EXISTS (SELECT 1 FROM " + table + " o" +
+                        " WHERE o." + analysis + " = t." + analysis + " AND o." + rowHash + " = x.h)");
+        if (updated > 0) {
+            log.info("Backfilled row_hash for {} {} rows", updated, table);
+        }
+    }
+
+    /**
+     * SQL text of an attribute of row t, as the entity sees it.
+     */
+    private String value(Class<?> entity, String attribute) {
+        String column = "t." + tableMetadata.column(entity, attribute);
+        try {
+            if (entity.getDeclaredField(attribute).isAnnotationPresent(Convert.class)) {
+                return "(SELECT d.term FROM sap_dictionary d WHERE d.id = " + column + ")";
+            }
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("No field " + attribute + " on " + entity.getSimpleName(), e);
+        }
+        return column;
+    }
+}
@@ -2,6 +2,7 @@ package com.analysis.ffid.controller;
 
 import com.analysis.ffid.dto.AnalysisRequestDTO;
 import com.analysis.ffid.dto.AnalysisResponseDTO;
+import com.analysis.ffid.service.AnalysisBusyException;
 import com.analysis.ffid.service.OllamaAnalysisService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +48,14 @@ public class AnalysisController {
 
             return ResponseEntity.ok(response);
 
+        } catch (AnalysisBusyException e) {
+            log.warn("Analysis {} not started: {}", request.getAnalysisId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(createErrorResponse(e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(createErrorResponse("Interrupted while waiting for running uploads"));
         } catch (RuntimeException e) {
             log.error("Error during analysis", e);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -0,0 +1,30 @@
+package com.analysis.ffid.controller;
+
+import com.analysis.ffid.service.AnalysisLockService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/locks")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class AnalysisLockController {
+
+    private final AnalysisLockService lockService;
+
+    /**
+     * Wait times of the per-analysis locks, by purpose (upload, analysis)
+     * GET /api/locks/metrics
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> response = new HashMap<>(lockService.getMetrics());
+        response.put("success", true);
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,175 @@
+package com.analysis.ffid.controller;
+
+import com.analysis.ffid.dto.ChunkedUploadInitDTO;
+import com.analysis.ffid.ingest.ChunkedUpload;
+import com.analysis.ffid.ingest.IngestMode;
+import com.analysis.ffid.ingest.UploadJob;
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.service.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Chunked, resumable uploads for large SAP exports.
+ *
+ * POST   /api/uploads                      open a session
+ * PUT    /api/uploads/{id}/chunks/{index}  send one chunk (raw body)
+ * GET    /api/uploads/{id}                 received chunks / next chunk to send
+ * POST   /api/uploads/{id}/complete        verify checksum and queue the upload job
+ * DELETE /api/uploads/{id}                 abort
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/uploads")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ChunkedUploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> init(@RequestBody ChunkedUploadInitDTO request) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            ChunkedUpload upload = chunkedUploadService.init(
+                    UploadKind.from(request.getKind()),
+                    request.getAnalysisId(),
+                    request.getFileName(),
+                    request.getTotalSize(),
+                    request.getChunkSize(),
+                    request.getSha256(),
+                    IngestMode.from(request.getMode()));
+
+            response.put("success", true);
+            response.put("upload", chunkedUploadService.toDTO(upload));
+            response.put("chunkUrl", "/api/uploads/" + upload.getId() + "/chunks/{index}");
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (NoSuchElementException e) {
+            return error(response, HttpStatus.NOT_FOUND, "NOT_FOUND", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return error(response, HttpStatus.BAD_REQUEST, "VALIDATION_ERROR", e.getMessage());
+        } catch (Exception e) {
+            log.error("Error opening chunked upload", e);
+            return error(response, HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_ERROR",
+                    "Failed to open upload: " + e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}/chunks/{index}")
+    public ResponseEntity<Map<String, Object>> putChunk(
+            @PathVariable String id,
+            @PathVariable int index,
+            HttpServletRequest request) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            ChunkedUpload upload = chunkedUploadService.putChunk(id, index, request.getInputStream());
+
+            response.put("success", true);
+            response.put("uploadId", id);
+            response.put("chunk", index);
+            response.put("receivedChunks", upload.getReceivedChunks());
+            response.put("nextChunk", upload.getNextChunk());
+            response.put("complete", upload.isComplete());
+            return ResponseEntity.ok(response);
+
+        } catch (NoSuchElementException e) {
+            return error(response, HttpStatus.NOT_FOUND, "NOT_FOUND", e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(response, HttpStatus.CONFLICT, "CONFLICT", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return error(response, HttpStatus.BAD_REQUEST, "VALIDATION_ERROR", e.getMessage());
+        } catch (Exception e) {
+            log.error("Error storing chunk {} of upload {}", index, id, e);
+            return error(response, HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_ERROR",
+                    "Failed to store chunk: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> status(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+
+        return chunkedUploadService.getUpload(id)
+                .map(upload -> {
+                    response.put("success", true);
+                    response.put("upload", chunkedUploadService.toDTO(upload));
+                    return ResponseEntity.ok(response);
+                })
+                .orElseGet(() -> error(response, HttpStatus.NOT_FOUND, "NOT_FOUND",
+                        "Upload session not found: " + id));
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<Map<String, Object>> complete(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            UploadJob job = chunkedUploadService.complete(id);
+
+            response.put("success", true);
+            response.put("message", job.getKind().getLabel() + " upload accepted");
+            response.put("jobId", job.getId());
+            response.put("statusUrl", "/api/jobs/" + job.getId());
+            response.put("analysisId", job.getAnalysisId());
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+
+        } catch (TaskRejectedException e) {
+            log.warn("Upload queue full, chunked upload {} kept for retry", id);
+            return error(response, HttpStatus.SERVICE_UNAVAILABLE, "QUEUE_FULL",
+                    "Upload queue is full, please retry later");
+        } catch (NoSuchElementException e) {
+            return error(response, HttpStatus.NOT_FOUND, "NOT_FOUND", e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(response, HttpStatus.CONFLICT, "CONFLICT", e.getMessage());
+        } catch (Exception e) {
+            log.error("Error completing chunked upload {}", id, e);
+            return error(response, HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_ERROR",
+                    "Failed to complete upload: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> abort(@PathVariable String id) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            if (!chunkedUploadService.abort(id)) {
+                return error(response, HttpStatus.NOT_FOUND, "NOT_FOUND", "Upload session not found: " + id);
+            }
+            response.put("success", true);
+            response.put("uploadId", id);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            return error(response, HttpStatus.CONFLICT, "CONFLICT", e.getMessage());
+        } catch (Exception e) {
+            log.error("Error aborting chunked upload {}", id, e);
+            return error(response, HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_ERROR",
+                    "Failed to abort upload: " + e.getMessage());
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> error(Map<String, Object> response, HttpStatus status,
+                                                      String errorType, String message) {
+        response.put("success", false);
+        response.put("error", message);
+        response.put("errorType", errorType);
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(status).body(response);
+    }
+}
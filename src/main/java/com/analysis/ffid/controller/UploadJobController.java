@@ -0,0 +1,111 @@
+package com.analysis.ffid.controller;
+
+import com.analysis.ffid.dto.UploadJobDTO;
+import com.analysis.ffid.model.upload_rejection;
+import com.analysis.ffid.service.UploadEventService;
+import com.analysis.ffid.service.UploadJobService;
+import com.analysis.ffid.service.UploadRejectionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class UploadJobController {
+
+    private final UploadJobService uploadJobService;
+    private final UploadEventService uploadEventService;
+    private final UploadRejectionService uploadRejectionService;
+
+    /**
+     * Status of an upload job
+     * GET /api/jobs/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadJobDTO> getJob(@PathVariable String id) {
+        return uploadJobService.getJob(id)
+                .map(uploadJobService::toDTO)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Live progress of an upload job as Server-Sent Events
+     * GET /api/jobs/{id}/events
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(uploadEventService.subscribe(id));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Rows of an upload that were rejected, with row number and reason
+     * GET /api/jobs/{id}/rejections?limit=100
+     */
+    @GetMapping("/{id}/rejections")
+    public ResponseEntity<Map<String, Object>> getRejections(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "100") int limit) {
+        List<Map<String, Object>> rejections = uploadRejectionService.list(id, Math.max(1, Math.min(limit, 1000)))
+                .stream()
+                .map(UploadJobController::toMap)
+                .collect(Collectors.toList());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobId", id);
+        response.put("rejectedRows", uploadRejectionService.count(id));
+        response.put("rejections", rejections);
+        response.put("report", "/api/jobs/" + id + "/rejections.csv");
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * All stored rejections of an upload as a CSV download
+     * GET /api/jobs/{id}/rejections.csv
+     */
+    @GetMapping("/{id}/rejections.csv")
+    public ResponseEntity<StreamingResponseBody> downloadRejections(@PathVariable String id) {
+        StreamingResponseBody body = out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            uploadRejectionService.writeCsv(id, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rejections-" + id + ".csv\"")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    private static Map<String, Object> toMap(upload_rejection rejection) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("row", rejection.getRowNumber());
+        entry.put("kind", rejection.getKind());
+        entry.put("fileName", rejection.getFileName());
+        entry.put("reason", rejection.getReason());
+        entry.put("values", rejection.getRowValues());
+        return entry;
+    }
+}
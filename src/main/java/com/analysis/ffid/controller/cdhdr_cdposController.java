@@ -1,8 +1,13 @@
 package com.analysis.ffid.controller;
 
+import com.analysis.ffid.ingest.IngestMode;
+import com.analysis.ffid.ingest.UploadJob;
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.service.UploadJobService;
 import com.analysis.ffid.service.cdhdr_cdposService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,11 +24,13 @@ import java.util.Map;
 public class cdhdr_cdposController {
 
     private final cdhdr_cdposService cdhdrCdposService;
+    private final UploadJobService uploadJobService;
 
     @PostMapping("/upload-cdhdr")
     public ResponseEntity<Map<String, Object>> uploadCdhdr(
             @RequestParam("file") MultipartFile file,
-            @RequestParam("analysisId") String analysisId) {
+            @RequestParam("analysisId") String analysisId,
+            @RequestParam(value = "mode", required = false) String mode) {
 
         Map<String, Object> response = new HashMap<>();
 
@@ -37,19 +44,20 @@ public class cdhdr_cdposController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            int recordsUploaded = cdhdrCdposService.uploadCdhdrData(file, analysisId);
+            UploadJob job = uploadJobService.submit(UploadKind.CDHDR, analysisId, file, IngestMode.from(mode));
 
             response.put("success", true);
-            response.put("message", "CDHDR file uploaded successfully");
-            response.put("recordsUploaded", recordsUploaded);
+            response.put("message", "CDHDR file accepted for processing");
+            response.put("jobId", job.getId());
+            response.put("statusUrl", "/api/jobs/" + job.getId());
             response.put("analysisId", analysisId);
-            response.put("nextStep", "Upload CDPOS file to complete the data merge");
+            response.put("nextStep", "Upload CDPOS file once the job has SUCCEEDED to complete the data merge");
             response.put("timestamp", System.currentTimeMillis());
 
-            log.info("CDHDR upload successful for analysis ID: {}, records: {}",
-                    analysisId, recordsUploaded);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
 
-            return ResponseEntity.ok(response);
+        } catch (TaskRejectedException e) {
+            return queueFull(response, analysisId);
 
         } catch (IllegalArgumentException e) {
             log.error("Validation error during CDHDR upload: {}", e.getMessage());
@@ -77,7 +85,8 @@ public class cdhdr_cdposController {
     @PostMapping("/upload-cdpos")
     public ResponseEntity<Map<String, Object>> uploadCdpos(
             @RequestParam("file") MultipartFile file,
-            @RequestParam("analysisId") String analysisId) {
+            @RequestParam("analysisId") String analysisId,
+            @RequestParam(value = "mode", required = false) String mode) {
 
         Map<String, Object> response = new HashMap<>();
 
@@ -91,18 +100,19 @@ public class cdhdr_cdposController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            int recordsMatched = cdhdrCdposService.uploadCdposData(file, analysisId);
+            UploadJob job = uploadJobService.submit(UploadKind.CDPOS, analysisId, file, IngestMode.from(mode));
 
             response.put("success", true);
-            response.put("message", "CDPOS file uploaded and merged successfully");
-            response.put("recordsMatched", recordsMatched);
+            response.put("message", "CDPOS file accepted for processing and merge");
+            response.put("jobId", job.getId());
+            response.put("statusUrl", "/api/jobs/" + job.getId());
             response.put("analysisId", analysisId);
             response.put("timestamp", System.currentTimeMillis());
 
-            log.info("CDPOS upload successful for analysis ID: {}, matched records: {}",
-                    analysisId, recordsMatched);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
 
-            return ResponseEntity.ok(response);
+        } catch (TaskRejectedException e) {
+            return queueFull(response, analysisId);
 
         } catch (IllegalStateException e) {
             log.error("State error during CDPOS upload: {}", e.getMessage());
@@ -135,6 +145,14 @@ public class cdhdr_cdposController {
         }
     }
 
+    private ResponseEntity<Map<String, Object>> queueFull(Map<String, Object> response, String analysisId) {
+        log.warn("Upload queue full, rejecting upload for analysis ID: {}", analysisId);
+        response.put("success", false);
+        response.put("error", "Upload queue is full, please retry later");
+        response.put("errorType", "QUEUE_FULL");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getUploadStats(
             @RequestParam("analysisId") String analysisId) {
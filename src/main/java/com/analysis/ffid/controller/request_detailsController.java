@@ -1,16 +1,39 @@
 package com.analysis.ffid.controller;
 
+import com.analysis.ffid.dto.KeysetPageDTO;
 import com.analysis.ffid.dto.RequestDetailsDTO;
 import com.analysis.ffid.dto.RequestListDTO;
+import com.analysis.ffid.ingest.IngestMode;
+import com.analysis.ffid.ingest.UploadBundle;
+import com.analysis.ffid.ingest.UploadJob;
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.ingest.UploadRowReader;
+import com.analysis.ffid.ingest.UploadSource;
+import com.analysis.ffid.ingest.UploadSpool;
 import com.analysis.ffid.model.request_details;
+import com.analysis.ffid.service.SessionBundleService;
+import com.analysis.ffid.service.SessionExportService;
+import com.analysis.ffid.service.UploadJobService;
 import com.analysis.ffid.service.request_detailsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/firefighter")
@@ -19,6 +42,13 @@ import java.util.List;
 public class request_detailsController {
 
     private final request_detailsService service;
+    private final UploadJobService uploadJobService;
+    private final SessionBundleService sessionBundleService;
+    private final SessionExportService sessionExportService;
+    private final UploadSpool uploadSpool;
+
+    @Value("${ffid.upload.max-file-size:2147483648}")
+    private long maxFileSize;
 
     @PostMapping("/request")
     public ResponseEntity<request_details> createRequest(@RequestBody request_details request) {
@@ -26,6 +56,67 @@ public class request_detailsController {
         return ResponseEntity.ok(savedRequest);
     }
 
+    /**
+     * Create many requests in one call
+     * POST /api/firefighter/requests/bulk with a JSON array of requests
+     */
+    @PostMapping(value = "/requests/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> createRequests(@RequestBody List<request_details> requests) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            return bulkCreated(response, service.createRequests(requests));
+        } catch (IllegalArgumentException e) {
+            return bulkFailed(response, e, HttpStatus.BAD_REQUEST, "VALIDATION_ERROR");
+        } catch (Exception e) {
+            log.error("Error creating {} requests", requests.size(), e);
+            return bulkFailed(response, e, HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_ERROR");
+        }
+    }
+
+    /**
+     * Create one request per ticket of an ITSM export (.xlsx, .xls, .csv,
+     * .tsv, optionally compressed); columns are matched by header name
+     * POST /api/firefighter/requests/bulk with multipart "file"
+     */
+    @PostMapping(value = "/requests/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> importRequests(@RequestParam("file") MultipartFile file) {
+        Map<String, Object> response = new HashMap<>();
+        if (file.isEmpty() || !UploadRowReader.isSupported(file.getOriginalFilename())) {
+            response.put("success", false);
+            response.put("error", "A non-empty Excel or CSV ticket export is required");
+            response.put("errorType", "VALIDATION_ERROR");
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.badRequest().body(response);
+        }
+        try (UploadSource source = uploadSpool.spool(file)) {
+            List<String> analysisIds = service.importRequests(source);
+            response.put("fileName", file.getOriginalFilename());
+            return bulkCreated(response, analysisIds);
+        } catch (IllegalArgumentException e) {
+            return bulkFailed(response, e, HttpStatus.BAD_REQUEST, "VALIDATION_ERROR");
+        } catch (Exception e) {
+            log.error("Error importing tickets from {}", file.getOriginalFilename(), e);
+            return bulkFailed(response, e, HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_ERROR");
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> bulkCreated(Map<String, Object> response, List<String> analysisIds) {
+        response.put("success", true);
+        response.put("created", analysisIds.size());
+        response.put("analysisIds", analysisIds);
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> bulkFailed(Map<String, Object> response, Exception e,
+                                                           HttpStatus status, String errorType) {
+        response.put("success", false);
+        response.put("error", e.getMessage());
+        response.put("errorType", errorType);
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(status).body(response);
+    }
+
     @GetMapping("/requests")
     public ResponseEntity<List<RequestListDTO>> getAllRequests() {
         log.info("Fetching all requests");
@@ -55,51 +146,216 @@ public class request_detailsController {
         }
     }
 
+    /**
+     * SM20 audit log of a session, one page at a time, oldest first
+     * GET /api/firefighter/request/{id}/audit-logs?after={nextCursor}&limit=200
+     */
+    @GetMapping("/request/{id}/audit-logs")
+    public ResponseEntity<?> getAuditLogs(@PathVariable String id,
+                                          @RequestParam(value = "after", required = false) String after,
+                                          @RequestParam(value = "limit", required = false) Integer limit) {
+        return page(() -> service.getAuditLogPage(id, after, limit));
+    }
+
+    /**
+     * Transaction usage of a session, one page at a time, in upload order
+     * GET /api/firefighter/request/{id}/transaction-usage?after={nextCursor}&limit=200
+     */
+    @GetMapping("/request/{id}/transaction-usage")
+    public ResponseEntity<?> getTransactionUsage(@PathVariable String id,
+                                                 @RequestParam(value = "after", required = false) String after,
+                                                 @RequestParam(value = "limit", required = false) Integer limit) {
+        return page(() -> service.getTransactionUsagePage(id, after, limit));
+    }
+
+    /**
+     * Change documents of a session (one row per changed field), one page
+     * at a time, oldest first
+     * GET /api/firefighter/request/{id}/change-docs?after={nextCursor}&limit=200
+     */
+    @GetMapping("/request/{id}/change-docs")
+    public ResponseEntity<?> getChangeDocs(@PathVariable String id,
+                                           @RequestParam(value = "after", required = false) String after,
+                                           @RequestParam(value = "limit", required = false) Integer limit) {
+        return page(() -> service.getChangeDocPage(id, after, limit));
+    }
+
+    /**
+     * Whole log of a session as a download, streamed from the database
+     * GET /api/firefighter/request/{id}/export/{audit-logs|transaction-usage|change-docs}?format=ndjson|csv
+     */
+    @GetMapping("/request/{id}/export/{log}")
+    public ResponseEntity<?> exportLog(@PathVariable String id, @PathVariable String log,
+                                       @RequestParam(value = "format", required = false) String format) {
+        Map<String, Object> response = new HashMap<>();
+        SessionExportService.Export export;
+        try {
+            export = sessionExportService.prepare(id, log, format);
+        } catch (NoSuchElementException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            response.put("errorType", "NOT_FOUND");
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            response.put("errorType", "VALIDATION_ERROR");
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.badRequest().body(response);
+        }
+        return download(export);
+    }
+
+    /**
+     * Whole session (request, AI insights, SM20, transaction usage, change
+     * documents) as one Excel workbook
+     * GET /api/firefighter/request/{id}/report.xlsx
+     */
+    @GetMapping("/request/{id}/report.xlsx")
+    public ResponseEntity<?> downloadReport(@PathVariable String id) {
+        SessionExportService.Export report;
+        try {
+            report = sessionExportService.prepareReport(id);
+        } catch (NoSuchElementException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            response.put("errorType", "NOT_FOUND");
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        return download(report);
+    }
+
+    private static ResponseEntity<?> download(SessionExportService.Export export) {
+        StreamingResponseBody body = export::writeTo;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + export.getFileName() + "\"")
+                .contentType(export.getMediaType())
+                .body(body);
+    }
+
+    private ResponseEntity<?> page(Supplier<KeysetPageDTO<?>> query) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            return ResponseEntity.ok(query.get());
+        } catch (NoSuchElementException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            response.put("errorType", "NOT_FOUND");
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            response.put("errorType", "VALIDATION_ERROR");
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @PostMapping("/transaction-log/{requestId}")
-    public ResponseEntity<String> uploadTransactionLog(
+    public ResponseEntity<Map<String, Object>> uploadTransactionLog(
             @PathVariable String requestId,
-            @RequestParam("file") MultipartFile file) {
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "mode", required = false) String mode) {
+        return submitUpload(UploadKind.TRANSACTION, requestId, file, mode);
+    }
+
+    @PostMapping("/sm20-log/{requestId}")
+    public ResponseEntity<Map<String, Object>> uploadSM20Log(
+            @PathVariable String requestId,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "mode", required = false) String mode) {
+        return submitUpload(UploadKind.SM20, requestId, file, mode);
+    }
+
+    /**
+     * Queue the file for background ingestion and answer 202 with the job ID;
+     * progress is available from GET /api/jobs/{jobId}.
+     */
+    private ResponseEntity<Map<String, Object>> submitUpload(
+            UploadKind kind, String requestId, MultipartFile file, String mode) {
+
+        Map<String, Object> response = new HashMap<>();
 
         try {
-            service.getRequestById(requestId).ifPresentOrElse(
-                    request -> {
-                        try {
-                            service.uploadTransactionLog(file, request);
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                    },
-                    () -> {
-                        throw new IllegalArgumentException("Request ID not found: " + requestId);
-                    }
-            );
-            return ResponseEntity.ok("Transaction log Excel uploaded and stored successfully!");
+            UploadJob job = uploadJobService.submit(kind, requestId, file, IngestMode.from(mode));
+
+            response.put("success", true);
+            response.put("message", kind.getLabel() + " upload accepted");
+            response.put("jobId", job.getId());
+            response.put("statusUrl", "/api/jobs/" + job.getId());
+            response.put("analysisId", requestId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+
+        } catch (TaskRejectedException e) {
+            log.warn("Upload queue full, rejecting {} upload for {}", kind, requestId);
+            response.put("success", false);
+            response.put("error", "Upload queue is full, please retry later");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Error uploading transaction log: " + e.getMessage());
+            response.put("success", false);
+            response.put("error", "Error uploading " + kind.getLabel() + ": " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         }
     }
 
-    @PostMapping("/sm20-log/{requestId}")
-    public ResponseEntity<String> uploadSM20Log(
+    /**
+     * Upload all log files of a session at once, either as one ZIP
+     * ("bundle", entries named sm20*, transaction*, cdhdr*, cdpos*) or as
+     * separate parts. SM20, transaction and CDHDR run in parallel, CDPOS
+     * follows CDHDR. Answers when all files are done, with per-file results;
+     * the servlet thread is released while the files are ingested.
+     */
+    @PostMapping("/session-bundle/{requestId}")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> uploadSessionBundle(
             @PathVariable String requestId,
-            @RequestParam("file") MultipartFile file) {
+            @RequestParam(value = "bundle", required = false) MultipartFile bundleZip,
+            @RequestParam(value = "sm20", required = false) MultipartFile sm20,
+            @RequestParam(value = "transaction", required = false) MultipartFile transaction,
+            @RequestParam(value = "cdhdr", required = false) MultipartFile cdhdr,
+            @RequestParam(value = "cdpos", required = false) MultipartFile cdpos,
+            @RequestParam(value = "mode", required = false) String mode) {
+
+        Map<String, Object> response = new HashMap<>();
 
         try {
-            service.getRequestById(requestId).ifPresentOrElse(
-                    request -> {
-                        try {
-                            service.uploadSM20Log(file, request);
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                    },
-                    () -> {
-                        throw new IllegalArgumentException("Request ID not found: " + requestId);
-                    }
-            );
-            return ResponseEntity.ok("SM20 log Excel uploaded and stored successfully!");
+            IngestMode ingestMode = IngestMode.from(mode);
+            UploadBundle bundle;
+            if (bundleZip != null && !bundleZip.isEmpty()) {
+                bundle = UploadBundle.fromZip(bundleZip.getInputStream(), maxFileSize, uploadSpool);
+            } else {
+                bundle = new UploadBundle();
+                try {
+                    bundle.add(UploadKind.SM20, sm20, uploadSpool);
+                    bundle.add(UploadKind.TRANSACTION, transaction, uploadSpool);
+                    bundle.add(UploadKind.CDHDR, cdhdr, uploadSpool);
+                    bundle.add(UploadKind.CDPOS, cdpos, uploadSpool);
+                } catch (Exception e) {
+                    bundle.close();
+                    throw e;
+                }
+            }
+
+            return sessionBundleService.ingest(requestId, bundle, ingestMode).thenApply(result -> {
+                HttpStatus status = Boolean.TRUE.equals(result.get("complete")) ? HttpStatus.OK : HttpStatus.ACCEPTED;
+                return ResponseEntity.status(status).body(result);
+            });
+
+        } catch (NoSuchElementException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            response.put("errorType", "NOT_FOUND");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND).body(response));
+
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Error uploading SM20 log: " + e.getMessage());
+            log.error("Error uploading session bundle for {}", requestId, e);
+            response.put("success", false);
+            response.put("error", "Error uploading session bundle: " + e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(response));
         }
     }
 }
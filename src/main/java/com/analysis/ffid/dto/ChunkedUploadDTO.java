@@ -0,0 +1,25 @@
+package com.analysis.ffid.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkedUploadDTO {
+    private String uploadId;
+    private String kind;
+    private String analysisId;
+    private String fileName;
+    private long totalSize;
+    private int chunkSize;
+    private int totalChunks;
+    private int receivedChunks;
+    private int nextChunk;
+    private boolean complete;
+    private String createdAt;
+    private String lastActivity;
+}
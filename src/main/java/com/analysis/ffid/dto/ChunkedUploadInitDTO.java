@@ -0,0 +1,20 @@
+package com.analysis.ffid.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkedUploadInitDTO {
+    private String kind;
+    private String analysisId;
+    private String fileName;
+    private long totalSize;
+    private int chunkSize;
+    private String sha256;
+    private String mode;
+}
@@ -0,0 +1,20 @@
+package com.analysis.ffid.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPageDTO<T> {
+    private List<T> items;
+    private int limit;
+    private boolean hasMore;
+    // Pass as ?after= to get the next page; null on the last page
+    private String nextCursor;
+}
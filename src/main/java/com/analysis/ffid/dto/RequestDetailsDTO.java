@@ -25,14 +25,23 @@ public class RequestDetailsDTO {
     private String reason;
     private String activities;
 
+    // Log lists hold the first page only; the next cursor (null when there is no
+    // more) continues at /request/{id}/transaction-usage, /audit-logs or /change-docs
+
     // Transaction Usage Logs
     private List<TransactionUsageDTO> transactionUsage;
+    private long transactionUsageTotal;
+    private String transactionUsageNextCursor;
 
     // SM20 Audit Logs
     private List<SM20DTO> auditLogs;
+    private long auditLogTotal;
+    private String auditLogsNextCursor;
 
     // Change Document Logs
     private List<CdhdrCdposDTO> changeDocLogs;
+    private long changeDocTotal;
+    private String changeDocLogsNextCursor;
 
     // AI Analysis Insights
     private AnalysisInsightsDTO aiInsights;
@@ -0,0 +1,36 @@
+package com.analysis.ffid.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadJobDTO {
+    private String jobId;
+    private String kind;
+    private String analysisId;
+    private String fileName;
+    private String state;
+    private String submittedAt;
+    private String startedAt;
+    private String finishedAt;
+    private long elapsedMillis;
+    private long rowsProcessed;
+    private double rowsPerSecond;
+    private long rejectedRows;
+    private long duplicateRows;
+    /** CDPOS rows stored without a matching CDHDR header; not included in recordsSaved. */
+    private long unmatchedRows;
+    /** Download link for the rejected rows; null when none were rejected. */
+    private String rejectionReport;
+    private long batchesFlushed;
+    private long lastBatchRows;
+    private double lastBatchMillis;
+    private double avgBatchMillis;
+    private Integer recordsSaved;
+    private String error;
+}
@@ -0,0 +1,42 @@
+package com.analysis.ffid.ingest;
+
+import java.util.List;
+
+/**
+ * Columns of a CDHDR (change document header) export.
+ */
+public enum CdhdrColumn implements LogColumn {
+    CLIENT(0, false, "MANDANT", "MANDT", "Client"),
+    OBJECT(1, false, "OBJECTCLAS", "Object Class", "Change Doc. Object", "Object"),
+    OBJECT_VALUE(2, false, "OBJECTID", "Object Value", "Object ID"),
+    DOC_NUMBER(3, true, "CHANGENR", "Document Number", "Doc. Number", "Change Number"),
+    USERNAME(4, false, "USERNAME", "User", "User Name"),
+    DATE(5, false, "UDATE", "Date", "Change Date"),
+    TIME(6, false, "UTIME", "Time", "Change Time"),
+    TCODE(7, false, "TCODE", "Transaction Code", "Transaction");
+
+    private final int defaultIndex;
+    private final boolean required;
+    private final List<String> aliases;
+
+    CdhdrColumn(int defaultIndex, boolean required, String... aliases) {
+        this.defaultIndex = defaultIndex;
+        this.required = required;
+        this.aliases = List.of(aliases);
+    }
+
+    @Override
+    public int defaultIndex() {
+        return defaultIndex;
+    }
+
+    @Override
+    public List<String> aliases() {
+        return aliases;
+    }
+
+    @Override
+    public boolean required() {
+        return required;
+    }
+}
@@ -0,0 +1,46 @@
+package com.analysis.ffid.ingest;
+
+import java.util.List;
+
+/**
+ * Columns of a CDPOS (change document item) export. SAP exports carry
+ * separate old/new unit and currency columns; the first one present is
+ * used, as before.
+ */
+public enum CdposColumn implements LogColumn {
+    DOC_NUMBER(3, true, "CHANGENR", "Document Number", "Doc. Number", "Change Number"),
+    TABLE_NAME(4, false, "TABNAME", "Table Name", "Table"),
+    TABLE_KEY(5, false, "TABKEY", "Table Key"),
+    FIELD_NAME(6, false, "FNAME", "Field Name", "Field"),
+    CHANGE_ID(7, false, "CHNGIND", "Change Indicator", "Change ID"),
+    TEXT_FLAG(8, false, "TEXT_CASE", "Text Flag"),
+    UNIT(9, false, "UNIT", "UNIT_OLD", "UNIT_NEW"),
+    CUKY(10, false, "CUKY", "CUKY_OLD", "CUKY_NEW", "Currency"),
+    NEW_VALUE(11, false, "VALUE_NEW", "New Value"),
+    OLD_VALUE(12, false, "VALUE_OLD", "Old Value");
+
+    private final int defaultIndex;
+    private final boolean required;
+    private final List<String> aliases;
+
+    CdposColumn(int defaultIndex, boolean required, String... aliases) {
+        this.defaultIndex = defaultIndex;
+        this.required = required;
+        this.aliases = List.of(aliases);
+    }
+
+    @Override
+    public int defaultIndex() {
+        return defaultIndex;
+    }
+
+    @Override
+    public List<String> aliases() {
+        return aliases;
+    }
+
+    @Override
+    public boolean required() {
+        return required;
+    }
+}
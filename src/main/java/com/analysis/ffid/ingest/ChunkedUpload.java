@@ -0,0 +1,148 @@
+package com.analysis.ffid.ingest;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.BitSet;
+
+/**
+ * A file being received in fixed-size chunks. Chunks are written straight
+ * into {@link #getPartFile()} at their offset, so they may arrive in any
+ * order and a client can resume by re-sending only the missing ones.
+ *
+ * Chunk writes, completion and abort coordinate on this object's monitor:
+ * completion waits for no write to be in flight and then blocks new ones,
+ * and a session being completed cannot be aborted, so the part file is
+ * never changed or deleted while it is hashed or handed to a job.
+ */
+public class ChunkedUpload {
+
+    private final String id;
+    private final UploadKind kind;
+    private final String analysisId;
+    private final String fileName;
+    private final long totalSize;
+    private final int chunkSize;
+    private final int totalChunks;
+    private final String sha256;
+    private final IngestMode mode;
+    private final Path partFile;
+    private final Instant createdAt = Instant.now();
+
+    private final BitSet received;
+    private volatile Instant lastActivity = Instant.now();
+    private volatile boolean completing;
+    private boolean aborted;
+    private int writesInFlight;
+
+    public ChunkedUpload(String id, UploadKind kind, String analysisId, String fileName, long totalSize,
+                         int chunkSize, String sha256, IngestMode mode, Path partFile) {
+        this.id = id;
+        this.kind = kind;
+        this.analysisId = analysisId;
+        this.fileName = fileName;
+        this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+        this.totalChunks = (int) ((totalSize + chunkSize - 1) / chunkSize);
+        this.sha256 = sha256;
+        this.mode = mode;
+        this.partFile = partFile;
+        this.received = new BitSet(totalChunks);
+    }
+
+    public long offsetOf(int index) {
+        return (long) index * chunkSize;
+    }
+
+    /**
+     * Exact byte length chunk {@code index} must have (the last one may be short).
+     */
+    public long lengthOf(int index) {
+        return Math.min(chunkSize, totalSize - offsetOf(index));
+    }
+
+    public synchronized void markReceived(int index) {
+        received.set(index);
+        lastActivity = Instant.now();
+    }
+
+    public synchronized boolean isReceived(int index) {
+        return received.get(index);
+    }
+
+    public synchronized int getReceivedChunks() {
+        return received.cardinality();
+    }
+
+    public synchronized boolean isComplete() {
+        return received.cardinality() == totalChunks;
+    }
+
+    /**
+     * Index of the first chunk not yet acknowledged, or -1 when all arrived.
+     */
+    public synchronized int getNextChunk() {
+        int next = received.nextClearBit(0);
+        return next < totalChunks ? next : -1;
+    }
+
+    /**
+     * Register a chunk write; false if the session is being completed or
+     * was aborted. Every successful call must be paired with {@link #endWrite()}.
+     */
+    public synchronized boolean beginWrite() {
+        if (completing || aborted) {
+            return false;
+        }
+        writesInFlight++;
+        lastActivity = Instant.now();
+        return true;
+    }
+
+    public synchronized void endWrite() {
+        writesInFlight--;
+    }
+
+    /**
+     * Claim the session for assembly; false if another request already did,
+     * a chunk is still being written, or the session was aborted.
+     */
+    public synchronized boolean startCompleting() {
+        if (completing || aborted || writesInFlight > 0) {
+            return false;
+        }
+        completing = true;
+        return true;
+    }
+
+    /**
+     * Claim the session for removal; false while it is being completed.
+     */
+    public synchronized boolean startAborting() {
+        if (completing) {
+            return false;
+        }
+        aborted = true;
+        return true;
+    }
+
+    public synchronized void abortCompleting() {
+        completing = false;
+    }
+
+    public boolean isCompleting() {
+        return completing;
+    }
+
+    public String getId() { return id; }
+    public UploadKind getKind() { return kind; }
+    public String getAnalysisId() { return analysisId; }
+    public String getFileName() { return fileName; }
+    public long getTotalSize() { return totalSize; }
+    public int getChunkSize() { return chunkSize; }
+    public int getTotalChunks() { return totalChunks; }
+    public String getSha256() { return sha256; }
+    public IngestMode getMode() { return mode; }
+    public Path getPartFile() { return partFile; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getLastActivity() { return lastActivity; }
+}
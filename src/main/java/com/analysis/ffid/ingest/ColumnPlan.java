@@ -0,0 +1,163 @@
+package com.analysis.ffid.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps the logical columns of one upload kind to positions in a file,
+ * compiled once from the header row. The row loop then reads a cell with a
+ * single array access instead of a hard-coded index.
+ *
+ * Header texts are compared case-, space- and punctuation-insensitively
+ * against each column's aliases. A header that matches no alias at all is
+ * taken to be data-less decoration and the classic positional layout is
+ * used; a recognised header that lacks a required column is rejected.
+ * Plans are immutable and cached per header signature, so repeated uploads
+ * of the same layout skip the matching.
+ */
+@Slf4j
+public final class ColumnPlan<E extends Enum<E> & LogColumn> {
+
+    private static final int CACHE_LIMIT = 256;
+    private static final Map<String, ColumnPlan<?>> CACHE = new ConcurrentHashMap<>();
+
+    private final Class<E> columnType;
+    private final int[] positions;
+    private final boolean fromHeader;
+
+    private ColumnPlan(Class<E> columnType, int[] positions, boolean fromHeader) {
+        this.columnType = columnType;
+        this.positions = positions;
+        this.fromHeader = fromHeader;
+    }
+
+    /**
+     * The plan for a file whose first row is {@code header}.
+     *
+     * @throws IllegalArgumentException if the header is recognised but a
+     *                                  required column is missing
+     */
+    @SuppressWarnings("unchecked")
+    public static <E extends Enum<E> & LogColumn> ColumnPlan<E> forHeader(Class<E> columnType, SheetRow header) {
+        String[] names = new String[header.getCellCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = normalize(header.getCellValue(i));
+        }
+        String signature = columnType.getName() + '\u001f' + String.join("\u001f", names);
+
+        ColumnPlan<?> cached = CACHE.get(signature);
+        if (cached != null) {
+            return (ColumnPlan<E>) cached;
+        }
+        ColumnPlan<E> plan = compile(columnType, names);
+        if (CACHE.size() < CACHE_LIMIT) {
+            CACHE.put(signature, plan);
+        }
+        log.info("Compiled {} column plan: {}", columnType.getSimpleName(), plan);
+        return plan;
+    }
+
+    /**
+     * The classic positional layout.
+     */
+    public static <E extends Enum<E> & LogColumn> ColumnPlan<E> positional(Class<E> columnType) {
+        E[] columns = columnType.getEnumConstants();
+        int[] positions = new int[columns.length];
+        for (E column : columns) {
+            positions[column.ordinal()] = column.defaultIndex();
+        }
+        return new ColumnPlan<>(columnType, positions, false);
+    }
+
+    private static <E extends Enum<E> & LogColumn> ColumnPlan<E> compile(Class<E> columnType, String[] names) {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (!names[i].isEmpty()) {
+                byName.putIfAbsent(names[i], i);
+            }
+        }
+
+        E[] columns = columnType.getEnumConstants();
+        int[] positions = new int[columns.length];
+        boolean[] claimed = new boolean[names.length];
+        int matched = 0;
+        for (E column : columns) {
+            positions[column.ordinal()] = -1;
+            for (String alias : column.aliases()) {
+                Integer index = byName.get(normalize(alias));
+                if (index != null && !claimed[index]) {
+                    positions[column.ordinal()] = index;
+                    claimed[index] = true;
+                    matched++;
+                    break;
+                }
+            }
+        }
+
+        if (matched == 0) {
+            log.warn("No {} header names recognised, using the positional layout", columnType.getSimpleName());
+            return positional(columnType);
+        }
+
+        List<String> missing = new ArrayList<>();
+        for (E column : columns) {
+            if (positions[column.ordinal()] < 0 && column.required()) {
+                missing.add(column.name() + " (" + String.join(" / ", column.aliases()) + ")");
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("File header is missing required column(s): "
+                    + String.join(", ", missing));
+        }
+        return new ColumnPlan<>(columnType, positions, true);
+    }
+
+    /**
+     * Lower-case letters and digits only, so "Audit Log Msg. Text",
+     * "AUDIT_LOG_MSG_TEXT" and "audit log msg text" all match.
+     */
+    static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Zero-based position of the column in the file, or -1 when the file
+     * does not have it (its cells then read as blank).
+     */
+    public int index(E column) {
+        return positions[column.ordinal()];
+    }
+
+    public String value(SheetRow row, E column) {
+        return row.getCellValue(positions[column.ordinal()]);
+    }
+
+    public boolean isFromHeader() {
+        return fromHeader;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", fromHeader ? "header[" : "positional[", "]");
+        for (E column : columnType.getEnumConstants()) {
+            joiner.add(column.name() + "=" + positions[column.ordinal()]);
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.analysis.ffid.ingest;
+
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression of an uploaded file, detected from its leading bytes
+ * (gzip, zstd) or its name (zip, since .xlsx files are zips as well).
+ */
+public enum Compression {
+    NONE,
+    GZIP,
+    ZSTD,
+    ZIP;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static Compression detect(Path file, String filename) throws IOException {
+        byte[] magic = new byte[4];
+        int n;
+        try (InputStream in = Files.newInputStream(file)) {
+            n = in.readNBytes(magic, 0, magic.length);
+        }
+
+        if (n >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return GZIP;
+        }
+        if (n == 4 && (magic[0] & 0xFF) == 0x28 && (magic[1] & 0xFF) == 0xB5
+                && (magic[2] & 0xFF) == 0x2F && (magic[3] & 0xFF) == 0xFD) {
+            return ZSTD;
+        }
+        if (filename != null && filename.toLowerCase().endsWith(".zip")) {
+            return ZIP;
+        }
+        return NONE;
+    }
+
+    /**
+     * Strip a compression suffix ("sm20.csv.gz" -> "sm20.csv").
+     */
+    public static String stripSuffix(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        String name = filename.toLowerCase();
+        for (String suffix : new String[]{".gz", ".gzip", ".zst", ".zstd"}) {
+            if (name.endsWith(suffix)) {
+                return filename.substring(0, filename.length() - suffix.length());
+            }
+        }
+        return filename;
+    }
+
+    /**
+     * Wrap a stream of gzip or zstd data in a decompressing stream. Zip
+     * archives are handled by {@link UploadRowReader}, which needs the
+     * entry name.
+     */
+    public InputStream decompress(InputStream in) throws IOException {
+        return switch (this) {
+            case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+            case ZSTD -> {
+                if (!ZstdUtils.isZstdCompressionAvailable()) {
+                    throw new IllegalArgumentException(
+                            "zstd is not supported on this server platform");
+                }
+                yield new ZstdCompressorInputStream(in);
+            }
+            case NONE -> in;
+            case ZIP -> throw new IllegalStateException("Zip archives are not a stream compression");
+        };
+    }
+}
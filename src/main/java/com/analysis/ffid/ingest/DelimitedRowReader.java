@@ -0,0 +1,350 @@
+package com.analysis.ffid.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads CSV/TSV exports of the SAP logs into {@link SheetRow}s, so they go
+ * through the same entity mapping as Excel uploads.
+ *
+ * A file on disk is memory-mapped in windows; decompressed content is read
+ * through a fixed buffer instead. Either way it is tokenized byte by byte
+ * into one reusable field buffer; a String is only created for non-empty
+ * fields, and a value equal to the previous row's value in the same
+ * column reuses that String (SAP logs repeat client, user and transaction
+ * a lot). Quoting follows RFC 4180; the text is expected to be UTF-8 (a
+ * BOM is skipped).
+ */
+@Slf4j
+@Component
+public class DelimitedRowReader {
+
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 256 * 1024;
+    private static final int DETECT_BYTES = 64 * 1024;
+    private static final char[] CANDIDATE_DELIMITERS = {'\t', ',', ';', '|'};
+
+    /**
+     * Stream every record of the file (header included) to the handler.
+     *
+     * @param fileName client file name; ".tsv" forces tab as delimiter,
+     *                 otherwise the delimiter is detected from the first line
+     * @return number of records handed to the handler
+     */
+    public int read(Path file, String fileName, SheetRowHandler handler) throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return 0;
+            }
+            log.info("Reading delimited file {} ({} bytes, memory-mapped)", fileName, size);
+            return read(new MappedInput(channel, size), fileName, handler);
+        }
+    }
+
+    /**
+     * Same as {@link #read(Path, String, SheetRowHandler)} for content that
+     * only exists as a stream (e.g. while it is being decompressed). Only a
+     * fixed-size buffer is held; the caller closes the stream.
+     */
+    public int read(InputStream in, String fileName, SheetRowHandler handler) throws Exception {
+        log.info("Reading delimited stream {}", fileName);
+        return read(new StreamInput(in), fileName, handler);
+    }
+
+    private int read(ByteInput in, String fileName, SheetRowHandler handler) throws Exception {
+        byte[] head = in.lookahead(DETECT_BYTES);
+        int start = 0;
+        if (head.length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            in.next();
+            in.next();
+            in.next();
+            start = 3;
+        }
+
+        char delimiter = fileName != null && fileName.toLowerCase().endsWith(".tsv")
+                ? '\t'
+                : detectDelimiter(head, start);
+        log.info("Delimiter for {}: {}", fileName, delimiter == '\t' ? "TAB" : String.valueOf(delimiter));
+
+        return new Tokenizer(in, delimiter, handler).run();
+    }
+
+    /**
+     * Pick the candidate delimiter that occurs most often (outside quotes)
+     * in the first line; comma if none occurs.
+     */
+    private static char detectDelimiter(byte[] head, int start) {
+        int[] counts = new int[CANDIDATE_DELIMITERS.length];
+        boolean inQuotes = false;
+
+        for (int i = start; i < head.length; i++) {
+            int b = head[i] & 0xFF;
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (!inQuotes && (b == '\n' || b == '\r')) {
+                break;
+            } else if (!inQuotes) {
+                for (int c = 0; c < CANDIDATE_DELIMITERS.length; c++) {
+                    if (b == CANDIDATE_DELIMITERS[c]) {
+                        counts[c]++;
+                    }
+                }
+            }
+        }
+
+        int best = 1;   // comma
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > counts[best]) {
+                best = c;
+            }
+        }
+        return CANDIDATE_DELIMITERS[best];
+    }
+
+    private static final class Tokenizer {
+        private final ByteInput in;
+        private final int delimiter;
+        private final SheetRowHandler handler;
+
+        private final List<SheetRow.CellData> cells = new ArrayList<>();
+        private final List<SheetRow.CellData> previousRow = new ArrayList<>();
+        private final List<byte[]> previousBytes = new ArrayList<>();
+
+        private byte[] field = new byte[256];
+        private int fieldLength;
+        private boolean fieldAscii = true;
+        private boolean quoted;
+
+        private int rowNum;
+        private int rowCount;
+
+        Tokenizer(ByteInput in, char delimiter, SheetRowHandler handler) {
+            this.in = in;
+            this.delimiter = delimiter;
+            this.handler = handler;
+        }
+
+        int run() throws Exception {
+            boolean inQuotes = false;
+
+            while (true) {
+                int b = in.next();
+
+                if (b < 0) {
+                    if (fieldLength > 0 || quoted || !cells.isEmpty()) {
+                        endField();
+                        endRow();
+                    }
+                    return rowCount;
+                }
+
+                if (inQuotes) {
+                    if (b == '"') {
+                        if (in.peek() == '"') {
+                            in.next();
+                            append(b);
+                        } else {
+                            inQuotes = false;
+                        }
+                    } else {
+                        append(b);
+                    }
+                } else if (b == delimiter) {
+                    endField();
+                } else if (b == '\n' || b == '\r') {
+                    if (b == '\r' && in.peek() == '\n') {
+                        in.next();
+                    }
+                    if (cells.isEmpty() && fieldLength == 0 && !quoted) {
+                        rowNum++;   // blank line, like a missing row in a sheet
+                        continue;
+                    }
+                    endField();
+                    endRow();
+                } else if (b == '"' && fieldLength == 0 && !quoted) {
+                    inQuotes = true;
+                    quoted = true;
+                } else {
+                    append(b);
+                }
+            }
+        }
+
+        private void append(int b) {
+            if (fieldLength == field.length) {
+                field = Arrays.copyOf(field, field.length * 2);
+            }
+            field[fieldLength++] = (byte) b;
+            if (b >= 0x80) {
+                fieldAscii = false;
+            }
+        }
+
+        private void endField() {
+            int column = cells.size();
+            SheetRow.CellData cell = null;
+
+            if (fieldLength > 0) {
+                byte[] last = column < previousBytes.size() ? previousBytes.get(column) : null;
+                if (last != null && Arrays.equals(field, 0, fieldLength, last, 0, last.length)) {
+                    cell = previousRow.get(column);
+                } else {
+                    String value = new String(field, 0, fieldLength,
+                            fieldAscii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+                    cell = new SheetRow.CellData(value, value, Double.NaN, false);
+                    remember(column, Arrays.copyOf(field, fieldLength), cell);
+                }
+            }
+
+            cells.add(cell);
+            fieldLength = 0;
+            fieldAscii = true;
+            quoted = false;
+        }
+
+        private void remember(int column, byte[] bytes, SheetRow.CellData cell) {
+            while (previousBytes.size() <= column) {
+                previousBytes.add(null);
+                previousRow.add(null);
+            }
+            previousBytes.set(column, bytes);
+            previousRow.set(column, cell);
+        }
+
+        private void endRow() throws Exception {
+            handler.handle(new SheetRow(rowNum, cells.toArray(new SheetRow.CellData[0])));
+            cells.clear();
+            rowNum++;
+            rowCount++;
+        }
+    }
+
+    private interface ByteInput {
+        /** Next byte (0-255), or -1 at the end. */
+        int next() throws IOException;
+
+        /** Next byte without consuming it, or -1 at the end. */
+        int peek() throws IOException;
+
+        /** Up to {@code n} upcoming bytes, without consuming them. */
+        byte[] lookahead(int n) throws IOException;
+    }
+
+    /**
+     * Sequential reader over a file mapped {@link #WINDOW_SIZE} bytes at a time.
+     */
+    private static final class MappedInput implements ByteInput {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedInput(FileChannel channel, long size) throws IOException {
+            this.channel = channel;
+            this.size = size;
+            map(0);
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+        }
+
+        private boolean ensureAvailable() throws IOException {
+            if (window.hasRemaining()) {
+                return true;
+            }
+            long next = windowStart + window.limit();
+            if (next >= size) {
+                return false;
+            }
+            map(next);
+            return true;
+        }
+
+        @Override
+        public int next() throws IOException {
+            return ensureAvailable() ? window.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int peek() throws IOException {
+            return ensureAvailable() ? window.get(window.position()) & 0xFF : -1;
+        }
+
+        @Override
+        public byte[] lookahead(int n) {
+            byte[] bytes = new byte[Math.min(n, window.remaining())];
+            window.get(window.position(), bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * Sequential reader over a stream through one fixed buffer.
+     */
+    private static final class StreamInput implements ByteInput {
+        private final InputStream in;
+        private final byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private boolean eof;
+
+        StreamInput(InputStream in) {
+            this.in = in;
+        }
+
+        private boolean ensureAvailable() throws IOException {
+            while (position == limit) {
+                if (eof) {
+                    return false;
+                }
+                position = 0;
+                limit = 0;
+                fill();
+            }
+            return true;
+        }
+
+        private void fill() throws IOException {
+            int n = in.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+        }
+
+        @Override
+        public int next() throws IOException {
+            return ensureAvailable() ? buffer[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int peek() throws IOException {
+            return ensureAvailable() ? buffer[position] & 0xFF : -1;
+        }
+
+        @Override
+        public byte[] lookahead(int n) throws IOException {
+            // only used before the first byte is consumed, so the buffer starts at 0
+            int wanted = Math.min(n, buffer.length);
+            while (!eof && limit - position < wanted) {
+                fill();
+            }
+            return Arrays.copyOfRange(buffer, position, Math.min(limit, position + wanted));
+        }
+    }
+}
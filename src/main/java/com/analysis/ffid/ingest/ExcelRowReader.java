@@ -0,0 +1,235 @@
+package com.analysis.ffid.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.springframework.stereotype.Component;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the first sheet of an Excel upload row by row.
+ *
+ * .xlsx files are parsed with a SAX handler over the sheet XML, so only the
+ * current row (plus the shared strings table) is held in memory instead of
+ * the whole POI workbook DOM. Legacy .xls files fall back to the DOM reader.
+ */
+@Slf4j
+@Component
+public class ExcelRowReader {
+
+    /**
+     * Stream every row of the first sheet (header included) to the handler.
+     * The workbook is opened in file mode, so POI reads the zip package
+     * (or the OLE2 file system of an .xls) by random access instead of
+     * buffering it in memory.
+     *
+     * @return number of rows handed to the handler
+     */
+    public int read(Path file, SheetRowHandler handler) throws Exception {
+        FileMagic magic;
+        try (InputStream in = FileMagic.prepareToCheckMagic(Files.newInputStream(file))) {
+            magic = FileMagic.valueOf(in);
+        }
+
+        if (magic == FileMagic.OLE2) {
+            return readLegacy(file, handler);
+        }
+
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            return readXlsx(pkg, handler);
+        }
+    }
+
+    private int readXlsx(OPCPackage pkg, SheetRowHandler handler) throws Exception {
+        XSSFReader reader = new XSSFReader(pkg);
+        ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+        StylesTable styles = reader.getStylesTable();
+
+        Iterator<InputStream> sheets = reader.getSheetsData();
+        if (!sheets.hasNext()) {
+            return 0;
+        }
+
+        SheetHandler sheetHandler = new SheetHandler(strings, styles, handler);
+        try (InputStream sheet = sheets.next()) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(sheetHandler);
+            parser.parse(new InputSource(sheet));
+        } catch (SAXException e) {
+            if (e.getException() != null) {
+                throw e.getException();
+            }
+            throw e;
+        }
+        return sheetHandler.rowCount;
+    }
+
+    private int readLegacy(Path file, SheetRowHandler handler) throws Exception {
+        log.info("Legacy .xls workbook detected, using DOM reader");
+        DataFormatter formatter = new DataFormatter();
+        int rowCount = 0;
+
+        try (Workbook workbook = WorkbookFactory.create(file.toFile(), null, true)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            for (Row row : sheet) {
+                handler.handle(SheetRow.fromRow(row, formatter));
+                rowCount++;
+            }
+        }
+        return rowCount;
+    }
+
+    /**
+     * SAX handler for a worksheet part. Collects the cells of the current
+     * row and emits a {@link SheetRow} on every closing row tag.
+     */
+    private static final class SheetHandler extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final SheetRowHandler handler;
+        private final DataFormatter formatter = new DataFormatter();
+
+        private final List<SheetRow.CellData> cells = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+
+        private int rowNum = -1;
+        private int column = -1;
+        private String cellType;
+        private String cellStyle;
+        private boolean inValue;
+        private int rowCount;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, SheetRowHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            String name = elementName(localName, qName);
+
+            switch (name) {
+                case "row" -> {
+                    String ref = attributes.getValue("r");
+                    rowNum = ref != null ? Integer.parseInt(ref) - 1 : rowNum + 1;
+                    column = -1;
+                    cells.clear();
+                }
+                case "c" -> {
+                    String ref = attributes.getValue("r");
+                    column = ref != null ? new CellReference(ref).getCol() : column + 1;
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    text.setLength(0);
+                }
+                case "v", "t" -> inValue = true;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            String name = elementName(localName, qName);
+
+            switch (name) {
+                case "v", "t" -> inValue = false;
+                case "c" -> {
+                    while (cells.size() <= column) {
+                        cells.add(null);
+                    }
+                    cells.set(column, toCellData(text.toString()));
+                }
+                case "row" -> {
+                    try {
+                        handler.handle(new SheetRow(rowNum, cells.toArray(new SheetRow.CellData[0])));
+                    } catch (Exception e) {
+                        throw new SAXException(e);
+                    }
+                    rowCount++;
+                }
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private SheetRow.CellData toCellData(String value) {
+            if (cellType == null || "n".equals(cellType)) {
+                if (value.isEmpty()) {
+                    return null;
+                }
+                double number = Double.parseDouble(value);
+                int formatIndex = 0;
+                String formatString = null;
+
+                if (styles != null && styles.getNumCellStyles() > 0) {
+                    XSSFCellStyle style = cellStyle != null
+                            ? styles.getStyleAt(Integer.parseInt(cellStyle))
+                            : styles.getStyleAt(0);
+                    if (style != null) {
+                        formatIndex = style.getDataFormat();
+                        formatString = style.getDataFormatString();
+                    }
+                }
+                if (formatString == null) {
+                    formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+                }
+
+                boolean date = DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(number);
+                String formatted = formatString != null
+                        ? formatter.formatRawCellContents(number, formatIndex, formatString)
+                        : value;
+                return new SheetRow.CellData(formatted, value, number, date);
+            }
+
+            String resolved = switch (cellType) {
+                case "s" -> strings.getItemAt(Integer.parseInt(value)).getString();
+                case "b" -> "0".equals(value) ? "FALSE" : "TRUE";
+                default -> value;
+            };
+            return new SheetRow.CellData(resolved, resolved, Double.NaN, false);
+        }
+
+        private static String elementName(String localName, String qName) {
+            if (localName != null && !localName.isEmpty()) {
+                return localName;
+            }
+            int colon = qName.indexOf(':');
+            return colon >= 0 ? qName.substring(colon + 1) : qName;
+        }
+    }
+}
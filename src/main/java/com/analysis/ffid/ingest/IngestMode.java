@@ -0,0 +1,25 @@
+package com.analysis.ffid.ingest;
+
+/**
+ * How parsed upload rows are written to the database.
+ */
+public enum IngestMode {
+    /** Batched JPA inserts; works on every datasource. */
+    JPA,
+    /** PostgreSQL COPY ... FROM STDIN; falls back to JPA elsewhere. */
+    COPY;
+
+    /**
+     * Parse a request parameter; blank means "use the configured default".
+     */
+    public static IngestMode from(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return IngestMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown ingest mode: " + value + " (expected jpa or copy)");
+        }
+    }
+}
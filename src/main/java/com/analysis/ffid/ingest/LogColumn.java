@@ -0,0 +1,27 @@
+package com.analysis.ffid.ingest;
+
+import java.util.List;
+
+/**
+ * A logical column of an uploaded export (an SAP log or a ticket list),
+ * implemented by one enum per layout and resolved against the file's
+ * header by {@link ColumnPlan}.
+ */
+public interface LogColumn {
+
+    /**
+     * Position of the column in the classic export layout, used when the
+     * file's header is not recognised at all.
+     */
+    int defaultIndex();
+
+    /**
+     * Header texts that name this column, technical SAP field name first.
+     */
+    List<String> aliases();
+
+    /**
+     * Whether a recognised header without this column is rejected.
+     */
+    boolean required();
+}
@@ -0,0 +1,43 @@
+package com.analysis.ffid.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * Identity of a log row for duplicate detection: the MD5 of its values
+ * joined with U+001F (null as empty), as a UUID. This is exactly what
+ * PostgreSQL computes for md5(concat_ws(chr(31), coalesce(v1, ''), ...))::uuid,
+ * so rows already in the database can be hashed in SQL.
+ */
+public final class RowHash {
+
+    private static final char SEPARATOR = '\u001f';
+
+    private RowHash() {
+    }
+
+    public static UUID of(String... values) {
+        StringBuilder text = new StringBuilder(256);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                text.append(SEPARATOR);
+            }
+            if (values[i] != null) {
+                text.append(values[i]);
+            }
+        }
+        ByteBuffer digest = ByteBuffer.wrap(md5().digest(text.toString().getBytes(StandardCharsets.UTF_8)));
+        return new UUID(digest.getLong(), digest.getLong());
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.analysis.ffid.ingest;
+
+/**
+ * Destination for parsed upload rows. Implementations buffer and write in
+ * batches; {@link #finish()} must be called once after the last row, and
+ * {@link #close()} releases resources whether or not it was.
+ */
+public interface RowSink<T> extends AutoCloseable {
+
+    void add(T row) throws Exception;
+
+    /**
+     * Write whatever is still buffered.
+     *
+     * @return total number of rows written by this sink
+     */
+    long finish() throws Exception;
+
+    @Override
+    default void close() throws Exception {
+    }
+}
@@ -0,0 +1,196 @@
+package com.analysis.ffid.ingest;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses the date and time cells of SAP log exports into java.time values.
+ *
+ * Handles Excel serial numbers (date- or time-formatted cells) as well as
+ * text in the usual SAP layouts (dd.MM.yyyy, yyyy-MM-dd, yyyyMMdd and
+ * HH:mm:ss, HHmmss). All formatters are immutable, so the class is safe to
+ * share between upload threads. A session's logs span only a handful of
+ * distinct dates, so parsed date texts are memoised. Resolution is strict:
+ * 30.02.2024 or 24:00:00 is rejected rather than adjusted to a nearby value.
+ */
+public final class SapDateTimeParser {
+
+    public static final DateTimeFormatter DATE_FORMAT = strict("dd.MM.uuuu");
+    public static final DateTimeFormatter TIME_FORMAT = strict("HH:mm:ss");
+    public static final DateTimeFormatter DISPLAY_FORMAT = strict("dd.MM.uuuu HH:mm:ss");
+
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DATE_FORMAT,
+            strict("d.M.uuuu"),
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.BASIC_ISO_DATE,
+            strict("dd/MM/uuuu"));
+
+    private static final List<DateTimeFormatter> TIME_FORMATS = List.of(
+            TIME_FORMAT,
+            strict("H:mm:ss"),
+            strict("HHmmss"),
+            strict("H:mm"));
+
+    private static final int DATE_CACHE_LIMIT = 4096;
+    private static final Map<String, LocalDate> DATE_CACHE = new ConcurrentHashMap<>();
+    private static final LocalDate UNPARSEABLE = LocalDate.MIN;
+
+    private SapDateTimeParser() {
+    }
+
+    /**
+     * Date of a cell, or null if it is blank or not a recognisable date.
+     */
+    public static LocalDate parseDate(SheetRow row, int colIndex) {
+        if (row.isBlank(colIndex)) {
+            return null;
+        }
+        if (row.isNumeric(colIndex)) {
+            double serial = row.getNumericValue(colIndex);
+            return DateUtil.isValidExcelDate(serial) && serial >= 1
+                    ? DateUtil.getLocalDateTime(serial).toLocalDate()
+                    : null;
+        }
+        return parseDate(row.getRawValue(colIndex));
+    }
+
+    public static LocalDate parseDate(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        LocalDate cached = DATE_CACHE.get(text);
+        if (cached == null && text.length() == 10 && text.charAt(2) == '.' && text.charAt(5) == '.') {
+            cached = fastDate(text);
+        }
+        if (cached == null) {
+            cached = parse(text, DATE_FORMATS, LocalDate::parse);
+            if (cached == null) {
+                cached = UNPARSEABLE;
+            }
+            if (DATE_CACHE.size() < DATE_CACHE_LIMIT) {
+                DATE_CACHE.put(text, cached);
+            }
+        }
+        return cached == UNPARSEABLE ? null : cached;
+    }
+
+    /**
+     * Time of a cell, or null if it is blank or not a recognisable time.
+     * Numeric cells are read as a fraction of a day (the time part of an
+     * Excel serial), rounded to the second.
+     */
+    public static LocalTime parseTime(SheetRow row, int colIndex) {
+        if (row.isBlank(colIndex)) {
+            return null;
+        }
+        if (row.isNumeric(colIndex)) {
+            double fraction = row.getNumericValue(colIndex) % 1;
+            if (fraction < 0) {
+                return null;
+            }
+            int seconds = (int) Math.round(fraction * 86_400) % 86_400;
+            return LocalTime.ofSecondOfDay(seconds);
+        }
+        return parseTime(row.getRawValue(colIndex));
+    }
+
+    public static LocalTime parseTime(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        if (text.length() == 8 && text.charAt(2) == ':' && text.charAt(5) == ':') {
+            int h = digits(text, 0, 2);
+            int m = digits(text, 3, 5);
+            int sec = digits(text, 6, 8);
+            if (h >= 0 && h < 24 && m >= 0 && m < 60 && sec >= 0 && sec < 60) {
+                return LocalTime.of(h, m, sec);
+            }
+        }
+        return parse(text, TIME_FORMATS, LocalTime::parse);
+    }
+
+    /**
+     * Event time from separate date and time values; midnight when only the
+     * date is known, null without a date.
+     */
+    public static LocalDateTime combine(LocalDate date, LocalTime time) {
+        if (date == null) {
+            return null;
+        }
+        return date.atTime(time != null ? time : LocalTime.MIDNIGHT);
+    }
+
+    public static String formatDate(LocalDate date) {
+        return date != null ? DATE_FORMAT.format(date) : "";
+    }
+
+    public static String formatTime(LocalTime time) {
+        return time != null ? TIME_FORMAT.format(time) : "";
+    }
+
+    /**
+     * "dd.MM.yyyy HH:mm:ss", the layout the UI has always shown.
+     */
+    public static String formatDisplay(LocalDateTime eventTime) {
+        return eventTime != null ? DISPLAY_FORMAT.format(eventTime) : null;
+    }
+
+    /**
+     * dd.MM.yyyy without going through a formatter; null if not a valid date.
+     */
+    private static LocalDate fastDate(String text) {
+        int d = digits(text, 0, 2);
+        int m = digits(text, 3, 5);
+        int y = digits(text, 6, 10);
+        if (d < 1 || m < 1 || m > 12 || y < 1 || d > YearMonth.of(y, m).lengthOfMonth()) {
+            return null;
+        }
+        return LocalDate.of(y, m, d);
+    }
+
+    private static DateTimeFormatter strict(String pattern) {
+        return DateTimeFormatter.ofPattern(pattern).withResolverStyle(ResolverStyle.STRICT);
+    }
+
+    /**
+     * Value of the decimal digits in [from, to), or -1 if any is not a digit.
+     */
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private interface Parser<T> {
+        T parse(CharSequence text, DateTimeFormatter formatter);
+    }
+
+    private static <T> T parse(String text, List<DateTimeFormatter> formats, Parser<T> parser) {
+        String trimmed = text.trim();
+        for (DateTimeFormatter format : formats) {
+            try {
+                return parser.parse(trimmed, format);
+            } catch (DateTimeParseException e) {
+                // try the next layout
+            }
+        }
+        return null;
+    }
+}
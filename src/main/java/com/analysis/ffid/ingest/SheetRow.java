@@ -0,0 +1,117 @@
+package com.analysis.ffid.ingest;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.NumberToTextConverter;
+
+/**
+ * One spreadsheet row as handed out by {@link ExcelRowReader}.
+ * Holds, per column, the formatted text (what DataFormatter shows), the raw
+ * stored text and the numeric value, so callers never need the POI DOM.
+ */
+public class SheetRow {
+
+    private static final CellData EMPTY = new CellData("", "", Double.NaN, false);
+
+    private final int rowNum;
+    private final CellData[] cells;
+
+    SheetRow(int rowNum, CellData[] cells) {
+        this.rowNum = rowNum;
+        this.cells = cells;
+    }
+
+    /**
+     * Build a row from a DOM row (used for legacy .xls files only).
+     */
+    static SheetRow fromRow(Row row, DataFormatter formatter) {
+        int lastCell = Math.max(row.getLastCellNum(), 0);
+        CellData[] cells = new CellData[lastCell];
+
+        for (int i = 0; i < lastCell; i++) {
+            Cell cell = row.getCell(i);
+            if (cell == null) {
+                continue;
+            }
+            String formatted = formatter.formatCellValue(cell);
+
+            if (cell.getCellType() == CellType.NUMERIC) {
+                double value = cell.getNumericCellValue();
+                cells[i] = new CellData(formatted, NumberToTextConverter.toText(value), value,
+                        DateUtil.isCellDateFormatted(cell));
+            } else if (cell.getCellType() == CellType.STRING) {
+                cells[i] = new CellData(formatted, cell.getStringCellValue(), Double.NaN, false);
+            } else if (cell.getCellType() == CellType.BOOLEAN) {
+                cells[i] = new CellData(formatted, cell.getBooleanCellValue() ? "TRUE" : "FALSE", Double.NaN, false);
+            } else {
+                cells[i] = new CellData(formatted, formatted, Double.NaN, false);
+            }
+        }
+        return new SheetRow(row.getRowNum(), cells);
+    }
+
+    /**
+     * Zero-based row number within the sheet.
+     */
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    public int getCellCount() {
+        return cells.length;
+    }
+
+    private CellData cell(int colIndex) {
+        if (colIndex < 0 || colIndex >= cells.length || cells[colIndex] == null) {
+            return EMPTY;
+        }
+        return cells[colIndex];
+    }
+
+    public boolean isBlank(int colIndex) {
+        return cell(colIndex) == EMPTY;
+    }
+
+    /**
+     * Formatted cell text, trimmed; "" when the cell is missing.
+     */
+    public String getCellValue(int colIndex) {
+        return cell(colIndex).formatted.trim();
+    }
+
+    /**
+     * Unformatted stored text (the raw number for numeric cells), trimmed.
+     */
+    public String getRawValue(int colIndex) {
+        return cell(colIndex).raw.trim();
+    }
+
+    public boolean isNumeric(int colIndex) {
+        return !Double.isNaN(cell(colIndex).numeric);
+    }
+
+    public double getNumericValue(int colIndex) {
+        return cell(colIndex).numeric;
+    }
+
+    public boolean isDateFormatted(int colIndex) {
+        return cell(colIndex).date;
+    }
+
+    static final class CellData {
+        private final String formatted;
+        private final String raw;
+        private final double numeric;
+        private final boolean date;
+
+        CellData(String formatted, String raw, double numeric, boolean date) {
+            this.formatted = formatted != null ? formatted : "";
+            this.raw = raw != null ? raw : "";
+            this.numeric = numeric;
+            this.date = date;
+        }
+    }
+}
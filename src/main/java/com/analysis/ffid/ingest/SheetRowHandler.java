@@ -0,0 +1,10 @@
+package com.analysis.ffid.ingest;
+
+/**
+ * Callback invoked once per sheet row, in file order.
+ * The row is only valid for the duration of the call.
+ */
+@FunctionalInterface
+public interface SheetRowHandler {
+    void handle(SheetRow row) throws Exception;
+}
@@ -0,0 +1,52 @@
+package com.analysis.ffid.ingest;
+
+import java.util.List;
+
+/**
+ * Columns of an SM20 security audit log export.
+ */
+public enum Sm20Column implements LogColumn {
+    SAP_SYSTEM(0, false, "SAP System", "System", "SID"),
+    AS_INSTANCE(1, false, "AS Instance", "Instance", "Instance Name", "Server"),
+    DATE(2, true, "Date", "SLGDATE", "Entry Date", "Event Date", "Datum"),
+    TIME(3, true, "Time", "SLGTIME", "Entry Time", "Event Time", "Uhrzeit", "Zeit"),
+    CLIENT(4, false, "Client", "SLGMAND", "MANDT", "Cl.", "Mandant"),
+    EVENT(5, false, "Event", "Audit Event", "Event ID", "Message ID", "Ereignis"),
+    USERNAME(6, true, "Username", "SLGUSER", "User", "User Name", "Benutzer", "Benutzername"),
+    GROUPNAME(7, false, "Groupname", "Group", "User Group", "Gruppe"),
+    TERMINAL(8, false, "Terminal", "SLGLTRM", "Terminal Name"),
+    PEER(9, false, "Peer", "Peer Address"),
+    SOURCE_TA(10, false, "Source TA", "SLGTC", "Transaction", "Transaction Code", "TCode", "Transaktion"),
+    PROGRAM(11, false, "Program", "SLGREPNA", "Program Name", "Report", "Programm"),
+    AUDIT_LOG_MSG_TEXT(12, false, "Audit Log Msg. Text", "Audit Log Msg Text", "Message Text", "Message",
+            "Text", "Meldungstext"),
+    NOTE(13, false, "Note", "Notiz"),
+    VARIABLE_MESSAGE_DATA(14, false, "Variable Message Data", "Variable Data 1", "Variable 1"),
+    VARIABLE_2(15, false, "Variable 2", "Variable Data 2"),
+    VARIABLE_DATA(16, false, "Variable Data", "Variable Data 3", "Variable 3");
+
+    private final int defaultIndex;
+    private final boolean required;
+    private final List<String> aliases;
+
+    Sm20Column(int defaultIndex, boolean required, String... aliases) {
+        this.defaultIndex = defaultIndex;
+        this.required = required;
+        this.aliases = List.of(aliases);
+    }
+
+    @Override
+    public int defaultIndex() {
+        return defaultIndex;
+    }
+
+    @Override
+    public List<String> aliases() {
+        return aliases;
+    }
+
+    @Override
+    public boolean required() {
+        return required;
+    }
+}
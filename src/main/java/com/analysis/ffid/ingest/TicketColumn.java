@@ -0,0 +1,46 @@
+package com.analysis.ffid.ingest;
+
+import java.util.List;
+
+/**
+ * Columns of an ITSM firefighter ticket export, for bulk request creation.
+ * The attribute names of the JSON API are accepted as header texts too.
+ */
+public enum TicketColumn implements LogColumn {
+    ITSM_NUMBER(0, false, "ITSM Number", "itsmNumber", "Ticket Number", "Ticket", "Incident", "Number"),
+    CLIENT(1, true, "Client", "MANDT", "Mandant"),
+    SYSTEM(2, true, "System", "SAP System", "SID"),
+    REQUESTED_FOR(3, false, "Requested For", "requestedFor", "Firefighter ID", "FF ID"),
+    REQUESTED_ON_BEHALF_OF(4, false, "Requested On Behalf Of", "requested_on_behalfof", "On Behalf Of",
+            "Requester"),
+    REQUESTED_DATE(5, false, "Requested Date", "requestedDate", "Request Date", "Created"),
+    USED_DATE(6, false, "Used Date", "usedDate", "Usage Date"),
+    TCODES(7, false, "TCodes", "tcodes", "Transaction Codes", "Transactions"),
+    REASON(8, false, "Reason", "Justification"),
+    ACTIVITIES(9, false, "Activities To Be Performed", "activities_to_be_performed", "Activities");
+
+    private final int defaultIndex;
+    private final boolean required;
+    private final List<String> aliases;
+
+    TicketColumn(int defaultIndex, boolean required, String... aliases) {
+        this.defaultIndex = defaultIndex;
+        this.required = required;
+        this.aliases = List.of(aliases);
+    }
+
+    @Override
+    public int defaultIndex() {
+        return defaultIndex;
+    }
+
+    @Override
+    public List<String> aliases() {
+        return aliases;
+    }
+
+    @Override
+    public boolean required() {
+        return required;
+    }
+}
@@ -0,0 +1,37 @@
+package com.analysis.ffid.ingest;
+
+import java.util.List;
+
+/**
+ * Columns of a transaction usage (STAD) export.
+ */
+public enum TransactionColumn implements LogColumn {
+    TIME(0, false, "Time", "Started", "Start Time", "Date/Time", "Timestamp", "Uhrzeit"),
+    TCODE(1, true, "TCode", "TCODE", "Transaction", "Transaction Code", "Transaktion"),
+    PROGRAM(2, false, "Program", "REPORT", "Program Name", "Report", "Programm");
+
+    private final int defaultIndex;
+    private final boolean required;
+    private final List<String> aliases;
+
+    TransactionColumn(int defaultIndex, boolean required, String... aliases) {
+        this.defaultIndex = defaultIndex;
+        this.required = required;
+        this.aliases = List.of(aliases);
+    }
+
+    @Override
+    public int defaultIndex() {
+        return defaultIndex;
+    }
+
+    @Override
+    public List<String> aliases() {
+        return aliases;
+    }
+
+    @Override
+    public boolean required() {
+        return required;
+    }
+}
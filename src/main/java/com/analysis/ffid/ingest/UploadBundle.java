@@ -0,0 +1,122 @@
+package com.analysis.ffid.ingest;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * The log files of one firefighter session, spooled to disk and keyed by
+ * kind. Sources handed out with {@link #take} belong to the caller; the
+ * rest are deleted on {@link #close()}.
+ */
+public class UploadBundle implements AutoCloseable {
+
+    private final Map<UploadKind, UploadSource> sources = new EnumMap<>(UploadKind.class);
+
+    public void add(UploadKind kind, UploadSource source) throws IOException {
+        UploadSource previous = sources.put(kind, source);
+        if (previous != null) {
+            previous.close();
+            throw new IllegalArgumentException("Bundle contains more than one " + kind.getLabel() + " file");
+        }
+    }
+
+    /**
+     * Spool a multipart file if it was sent; empty parts are ignored.
+     */
+    public void add(UploadKind kind, MultipartFile file, UploadSpool spool) throws IOException {
+        if (file != null && !file.isEmpty()) {
+            add(kind, spool.spool(file));
+        }
+    }
+
+    /**
+     * Unpack a ZIP whose entries are named after their kind, e.g.
+     * sm20.xlsx, transaction.xlsx, cdhdr.xlsx, cdpos.xlsx. Directories and
+     * entries that match no kind are skipped.
+     *
+     * @param maxEntrySize upper bound for one uncompressed entry
+     */
+    public static UploadBundle fromZip(InputStream in, long maxEntrySize, UploadSpool spool) throws IOException {
+        UploadBundle bundle = new UploadBundle();
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String name = Paths.get(entry.getName()).getFileName().toString();
+                UploadKind kind = kindOf(name);
+                if (kind == null) {
+                    continue;
+                }
+                bundle.add(kind, UploadSource.adopt(spool.spool(zip, "Bundle entry " + name, maxEntrySize), name));
+            }
+        } catch (IOException | RuntimeException e) {
+            bundle.close();
+            throw e;
+        }
+        return bundle;
+    }
+
+    /**
+     * Kind of a bundle entry from its file name. CDHDR/CDPOS are checked
+     * first since SAP export names often also mention the transaction.
+     */
+    static UploadKind kindOf(String fileName) {
+        String name = fileName.toLowerCase();
+        if (name.startsWith(".") || name.startsWith("__macosx")) {
+            return null;
+        }
+        if (name.contains("cdhdr")) {
+            return UploadKind.CDHDR;
+        }
+        if (name.contains("cdpos")) {
+            return UploadKind.CDPOS;
+        }
+        if (name.contains("sm20")) {
+            return UploadKind.SM20;
+        }
+        if (name.contains("transaction") || name.contains("tcode")) {
+            return UploadKind.TRANSACTION;
+        }
+        return null;
+    }
+
+    public boolean contains(UploadKind kind) {
+        return sources.containsKey(kind);
+    }
+
+    public boolean isEmpty() {
+        return sources.isEmpty();
+    }
+
+    /**
+     * Hand the source over to the caller, who becomes responsible for closing it.
+     */
+    public UploadSource take(UploadKind kind) {
+        return sources.remove(kind);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (UploadSource source : sources.values()) {
+            try {
+                source.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        sources.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.analysis.ffid.ingest;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * State of one asynchronous upload, kept in memory by the job service.
+ */
+public class UploadJob {
+
+    /**
+     * WAITING: picked up once, but another upload of the same kind (or an
+     * analysis) held the session, so the job went back to the queue.
+     */
+    public enum State { QUEUED, WAITING, RUNNING, SUCCEEDED, FAILED }
+
+    private final String id;
+    private final UploadKind kind;
+    private final String analysisId;
+    private final String fileName;
+    private final Instant submittedAt = Instant.now();
+    private final UploadProgress progress;
+    private final CompletableFuture<UploadJob> completion = new CompletableFuture<>();
+
+    private volatile State state = State.QUEUED;
+    private volatile Instant waitingSince;
+    private volatile int waits;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Integer recordsSaved;
+    private volatile String error;
+
+    public UploadJob(String id, UploadKind kind, String analysisId, String fileName) {
+        this.id = id;
+        this.kind = kind;
+        this.analysisId = analysisId;
+        this.fileName = fileName;
+        this.progress = new UploadProgress(id);
+    }
+
+    public void markWaiting() {
+        if (waitingSince == null) {
+            waitingSince = Instant.now();
+        }
+        waits++;
+        state = State.WAITING;
+    }
+
+    public void markRunning() {
+        startedAt = Instant.now();
+        progress.start();
+        state = State.RUNNING;
+    }
+
+    public void markSucceeded(int recordsSaved) {
+        this.recordsSaved = recordsSaved;
+        finish(State.SUCCEEDED);
+    }
+
+    public void markFailed(String error) {
+        this.error = error;
+        finish(State.FAILED);
+    }
+
+    private void finish(State finalState) {
+        progress.finish();
+        finishedAt = Instant.now();
+        state = finalState;
+        completion.complete(this);
+    }
+
+    /**
+     * Completes (normally, whatever the outcome) once the job has finished.
+     */
+    public CompletableFuture<UploadJob> whenFinished() {
+        return completion;
+    }
+
+    public boolean isFinished() {
+        return state == State.SUCCEEDED || state == State.FAILED;
+    }
+
+    public String getId() { return id; }
+    public UploadKind getKind() { return kind; }
+    public String getAnalysisId() { return analysisId; }
+    public String getFileName() { return fileName; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public UploadProgress getProgress() { return progress; }
+    public State getState() { return state; }
+    public Instant getWaitingSince() { return waitingSince; }
+    public int getWaits() { return waits; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public Integer getRecordsSaved() { return recordsSaved; }
+    public String getError() { return error; }
+}
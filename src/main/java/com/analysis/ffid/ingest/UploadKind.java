@@ -0,0 +1,36 @@
+package com.analysis.ffid.ingest;
+
+/**
+ * The log files a firefighter session is built from.
+ */
+public enum UploadKind {
+    SM20("SM20 log"),
+    TRANSACTION("Transaction log"),
+    CDHDR("CDHDR"),
+    CDPOS("CDPOS");
+
+    private final String label;
+
+    UploadKind(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Parse a request value such as "sm20" or "cdpos".
+     */
+    public static UploadKind from(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Upload kind is required");
+        }
+        try {
+            return UploadKind.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown upload kind: " + value
+                    + " (expected sm20, transaction, cdhdr or cdpos)");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.analysis.ffid.ingest;
+
+/**
+ * Live counters of one upload. Written only by the thread running the
+ * upload and read by status endpoints, so plain volatile fields suffice
+ * and a row costs one field write, not a log line.
+ */
+public class UploadProgress {
+
+    private final String uploadId;
+
+    private volatile long startedAtNanos;
+    private volatile long finishedAtNanos;
+    private volatile long rowsProcessed;
+    private volatile long rowsRejected;
+    private volatile long rowsDuplicate;
+    private volatile long rowsUnmatched;
+    private volatile long batchesFlushed;
+    private volatile long totalBatchNanos;
+    private volatile long lastBatchNanos;
+    private volatile long lastBatchRows;
+
+    public UploadProgress(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    /**
+     * Id of the upload (its job id); rejected rows are stored under it.
+     */
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void start() {
+        startedAtNanos = System.nanoTime();
+    }
+
+    public void finish() {
+        finishedAtNanos = System.nanoTime();
+    }
+
+    public void rowProcessed() {
+        rowsProcessed++;
+    }
+
+    public void rowRejected() {
+        rowsRejected++;
+    }
+
+    /**
+     * Rows the sink skipped because an identical row is already in the
+     * analysis (or earlier in the file); they were counted as processed
+     * but are not inserted.
+     */
+    public void rowsDuplicate(long rows) {
+        rowsDuplicate += rows;
+    }
+
+    /**
+     * Rows that were stored but have no matching parent record (CDPOS items
+     * without a CDHDR header); they are not part of the saved count.
+     */
+    public void rowsUnmatched(long rows) {
+        rowsUnmatched += rows;
+    }
+
+    /**
+     * Called by the row sinks once per written batch (JDBC batch or COPY chunk).
+     */
+    public void batchFlushed(long rows, long nanos) {
+        lastBatchRows = rows;
+        lastBatchNanos = nanos;
+        totalBatchNanos += nanos;
+        batchesFlushed++;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getRowsDuplicate() {
+        return rowsDuplicate;
+    }
+
+    public long getRowsUnmatched() {
+        return rowsUnmatched;
+    }
+
+    public long getBatchesFlushed() {
+        return batchesFlushed;
+    }
+
+    public long getLastBatchRows() {
+        return lastBatchRows;
+    }
+
+    public double getLastBatchMillis() {
+        return lastBatchNanos / 1_000_000.0;
+    }
+
+    public double getAverageBatchMillis() {
+        long batches = batchesFlushed;
+        return batches > 0 ? totalBatchNanos / 1_000_000.0 / batches : 0;
+    }
+
+    public long getElapsedMillis() {
+        if (startedAtNanos == 0) {
+            return 0;
+        }
+        long end = finishedAtNanos != 0 ? finishedAtNanos : System.nanoTime();
+        return (end - startedAtNanos) / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed > 0 ? rowsProcessed * 1000.0 / elapsed : 0;
+    }
+}
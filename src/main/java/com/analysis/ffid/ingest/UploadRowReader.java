@@ -0,0 +1,210 @@
+package com.analysis.ffid.ingest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Picks the row reader for an uploaded file by its extension: delimited
+ * text goes to {@link DelimitedRowReader}, everything else is treated as
+ * an Excel workbook.
+ *
+ * gzip, zstd and single-entry zip uploads are decompressed as a stream.
+ * Delimited content goes straight into the reader; a compressed workbook
+ * is first decompressed into the spool directory, since POI needs random
+ * access to open it without buffering the whole package.
+ *
+ * Every read holds a share of the {@link UploadSpool} in-flight budget
+ * and waits for it when the budget is in use. The share starts at the
+ * file's size on disk; for a compressed upload it grows to the zip entry's
+ * uncompressed size when the archive records it, and otherwise follows the
+ * decompressed stream as it is read, up to the per-upload limit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadRowReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long GROW_STEP = 8L * 1024 * 1024;
+
+    public static final List<String> EXCEL_EXTENSIONS = List.of(".xlsx", ".xls");
+    public static final List<String> DELIMITED_EXTENSIONS = List.of(".csv", ".tsv", ".txt");
+
+    private final ExcelRowReader excelRowReader;
+    private final DelimitedRowReader delimitedRowReader;
+    private final UploadSpool spool;
+
+    @Value("${ffid.upload.max-file-size:2147483648}")
+    private long maxFileSize;
+
+    public static boolean isDelimited(String filename) {
+        return hasExtension(filename, DELIMITED_EXTENSIONS);
+    }
+
+    /**
+     * Whether the file name looks like something we can read, also when it
+     * carries a compression suffix (.gz, .zst) or is a zip archive.
+     */
+    public static boolean isSupported(String filename) {
+        if (hasExtension(filename, List.of(".zip"))) {
+            return true;
+        }
+        String name = Compression.stripSuffix(filename);
+        return hasExtension(name, EXCEL_EXTENSIONS) || hasExtension(name, DELIMITED_EXTENSIONS);
+    }
+
+    private static boolean hasExtension(String filename, List<String> extensions) {
+        if (filename == null) {
+            return false;
+        }
+        String name = filename.toLowerCase();
+        return extensions.stream().anyMatch(name::endsWith);
+    }
+
+    /**
+     * Hands the first row to {@code headerHandler} and every following row
+     * to {@code rowHandler}.
+     *
+     * @return number of data rows (header excluded)
+     */
+    public int read(UploadSource file, SheetRowHandler headerHandler, SheetRowHandler rowHandler) throws Exception {
+        SheetRowHandler handler = splitHeader(headerHandler, rowHandler);
+        try (UploadSpool.Reservation reservation = spool.reserve(file.getSize(), file.getFilename())) {
+            return Math.max(readAll(file, reservation, handler) - 1, 0);
+        }
+    }
+
+    private int readAll(UploadSource file, UploadSpool.Reservation reservation, SheetRowHandler handler)
+            throws Exception {
+        Compression compression = Compression.detect(file.getPath(), file.getFilename());
+        int rows;
+
+        if (compression == Compression.NONE) {
+            if (isDelimited(file.getFilename())) {
+                rows = delimitedRowReader.read(file.getPath(), file.getFilename(), handler);
+            } else {
+                rows = excelRowReader.read(file.getPath(), handler);
+            }
+        } else if (compression == Compression.ZIP) {
+            try (ZipFile zip = new ZipFile(file.getPath().toFile())) {
+                ZipEntry entry = singleEntry(zip, file.getFilename());
+                String name = Paths.get(entry.getName()).getFileName().toString();
+                log.info("Reading {} from zip {} ({} bytes uncompressed)", name, file.getFilename(), entry.getSize());
+                if (entry.getSize() > 0) {
+                    reservation.growTo(entry.getSize());
+                }
+                try (InputStream is = new BufferedInputStream(
+                        new ReservingInputStream(zip.getInputStream(entry), reservation), BUFFER_SIZE)) {
+                    rows = readStream(is, name, handler);
+                }
+            }
+        } else {
+            String name = Compression.stripSuffix(file.getFilename());
+            log.info("Reading {} compressed upload {} as a stream", compression, file.getFilename());
+            try (InputStream is = new BufferedInputStream(
+                    new ReservingInputStream(compression.decompress(file.openStream()), reservation), BUFFER_SIZE)) {
+                rows = readStream(is, name, handler);
+            }
+        }
+        return rows;
+    }
+
+    private int readStream(InputStream is, String name, SheetRowHandler handler) throws Exception {
+        if (isDelimited(name)) {
+            return delimitedRowReader.read(is, name, handler);
+        }
+        if (hasExtension(name, EXCEL_EXTENSIONS)) {
+            Path workbook = spool.spool(is, name, maxFileSize);
+            try {
+                return excelRowReader.read(workbook, handler);
+            } finally {
+                Files.deleteIfExists(workbook);
+            }
+        }
+        throw new IllegalArgumentException("Unsupported file inside compressed upload: " + name);
+    }
+
+    private static ZipEntry singleEntry(ZipFile zip, String filename) {
+        List<? extends ZipEntry> entries = zip.stream()
+                .filter(e -> !e.isDirectory())
+                .filter(e -> !e.getName().startsWith("__MACOSX/"))
+                .toList();
+        if (entries.size() != 1) {
+            throw new IllegalArgumentException("Zip upload " + filename + " must contain exactly one file, found "
+                    + entries.size());
+        }
+        return entries.get(0);
+    }
+
+    private static SheetRowHandler splitHeader(SheetRowHandler headerHandler, SheetRowHandler rowHandler) {
+        boolean[] headerSeen = {false};
+        return row -> {
+            if (!headerSeen[0]) {
+                headerSeen[0] = true;
+                headerHandler.handle(row);
+            } else {
+                rowHandler.handle(row);
+            }
+        };
+    }
+
+    /**
+     * Grows the reservation ahead of the decompressed bytes read through it,
+     * one {@link #GROW_STEP} at a time.
+     */
+    private static final class ReservingInputStream extends FilterInputStream {
+
+        private final UploadSpool.Reservation reservation;
+        private long count;
+
+        ReservingInputStream(InputStream in, UploadSpool.Reservation reservation) {
+            super(in);
+            this.reservation = reservation;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                advance(n);
+            }
+            return n;
+        }
+
+        private void advance(long n) throws IOException {
+            count += n;
+            if (count <= reservation.getBytes()) {
+                return;
+            }
+            try {
+                reservation.growTo(count + GROW_STEP);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for upload budget");
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.analysis.ffid.ingest;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * An uploaded file on local disk, independent of the HTTP request that
+ * delivered it, so it can be parsed after the request has returned.
+ * Multipart uploads are spooled through {@link UploadSpool}.
+ */
+public class UploadSource implements AutoCloseable {
+
+    private final String filename;
+    private final Path path;
+    private final boolean temporary;
+
+    private UploadSource(String filename, Path path, boolean temporary) {
+        this.filename = filename;
+        this.path = path;
+        this.temporary = temporary;
+    }
+
+    /**
+     * Take over a file that is already on disk (e.g. an assembled chunked
+     * upload); it is deleted on {@link #close()} like a spooled file.
+     */
+    public static UploadSource adopt(Path path, String filename) {
+        return new UploadSource(filename, path, true);
+    }
+
+    /**
+     * Wrap a file that the caller owns; {@link #close()} leaves it alone.
+     */
+    public static UploadSource of(Path path, String filename) {
+        return new UploadSource(filename, path, false);
+    }
+
+    /**
+     * Name of the file as sent by the client (may be null).
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() throws IOException {
+        return Files.size(path);
+    }
+
+    public InputStream openStream() throws IOException {
+        return new BufferedInputStream(Files.newInputStream(path), 64 * 1024);
+    }
+
+    /**
+     * Hex SHA-256 of the file as uploaded (the compressed bytes, for a
+     * compressed upload).
+     */
+    public String sha256() throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[256 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (temporary) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.analysis.ffid.ingest;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Owns the directory uploads are spooled to and the budget of bytes that
+ * may be parsed at the same time.
+ *
+ * Every upload is parsed from a file in the spool directory, never from a
+ * request stream, so POI can open workbooks in file mode (random access
+ * into the zip) instead of buffering the package in memory. Before a file
+ * is parsed its size is reserved against the global in-flight budget; an
+ * upload that does not fit waits, in arrival order, until earlier ones
+ * have finished. A single upload reserves at most the per-upload limit,
+ * so one very large file never needs the whole budget to itself.
+ */
+@Slf4j
+@Component
+public class UploadSpool {
+
+    private static final String PREFIX = "ffid-upload-";
+    private static final int KIB = 1024;
+
+    private final Path directory;
+    private final int budgetKib;
+    private final int maxUploadKib;
+    private final Semaphore budget;
+
+    public UploadSpool(@Value("${ffid.upload.spool-dir:${java.io.tmpdir}/ffid-spool}") String directory,
+                       @Value("${ffid.upload.max-in-flight-bytes:1073741824}") long maxInFlightBytes,
+                       @Value("${ffid.upload.max-upload-bytes:536870912}") long maxUploadBytes) {
+        if (maxInFlightBytes < KIB || maxUploadBytes < KIB) {
+            throw new IllegalArgumentException("ffid.upload.max-in-flight-bytes and max-upload-bytes must be at least "
+                    + KIB + " bytes");
+        }
+        this.directory = Paths.get(directory);
+        this.budgetKib = toKib(maxInFlightBytes);
+        this.maxUploadKib = Math.min(toKib(maxUploadBytes), budgetKib);
+        this.budget = new Semaphore(budgetKib, true);
+    }
+
+    /**
+     * Create the spool directory and remove files left behind by a
+     * previous run that did not shut down cleanly.
+     */
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(directory);
+        int removed = 0;
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, PREFIX + "*")) {
+            for (Path file : stale) {
+                if (Files.deleteIfExists(file)) {
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            log.info("Removed {} stale spool files from {}", removed, directory);
+        }
+        log.info("Spooling uploads to {} (in-flight budget {} MiB, at most {} MiB per upload)",
+                directory, budgetKib / KIB, maxUploadKib / KIB);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * An empty file in the spool directory; the caller deletes it.
+     */
+    public Path newFile() throws IOException {
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, PREFIX, ".tmp");
+    }
+
+    /**
+     * Move a multipart upload into the spool directory. When the servlet
+     * container stored the part in the same directory
+     * (spring.servlet.multipart.location) this is a rename, not a copy.
+     */
+    public UploadSource spool(MultipartFile file) throws IOException {
+        Path target = newFile();
+        try {
+            file.transferTo(target.toFile());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return UploadSource.adopt(target, file.getOriginalFilename());
+    }
+
+    /**
+     * Copy a stream into a spool file, failing once it exceeds
+     * {@code maxBytes}.
+     */
+    public Path spool(InputStream in, String name, long maxBytes) throws IOException {
+        Path target = newFile();
+        try (OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                total += n;
+                if (total > maxBytes) {
+                    throw new IllegalArgumentException(name + " exceeds " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, n);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return target;
+    }
+
+    /**
+     * Reserve {@code bytes} of the in-flight budget, waiting while other
+     * uploads hold it. Close the reservation when parsing is done; grow it
+     * with {@link Reservation#growTo} once the real size is known.
+     */
+    public Reservation reserve(long bytes, String name) throws InterruptedException {
+        int kib = Math.max(1, Math.min(toKib(bytes), maxUploadKib));
+        if (!budget.tryAcquire(kib)) {
+            log.info("Upload {} waits for {} KiB of in-flight budget ({} KiB free)",
+                    name, kib, budget.availablePermits());
+            long start = System.nanoTime();
+            budget.acquire(kib);
+            log.info("Upload {} got its budget after {} ms", name, (System.nanoTime() - start) / 1_000_000);
+        }
+        return new Reservation(name, kib);
+    }
+
+    /**
+     * Bytes of the budget currently reserved by running uploads.
+     */
+    public long getReservedBytes() {
+        return (long) (budgetKib - budget.availablePermits()) * KIB;
+    }
+
+    public long getBudgetBytes() {
+        return (long) budgetKib * KIB;
+    }
+
+    private static int toKib(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, (bytes + KIB - 1) / KIB);
+    }
+
+    /**
+     * A share of the in-flight budget, returned on {@link #close()}.
+     */
+    public final class Reservation implements AutoCloseable {
+
+        private final String name;
+        private int kib;
+        private boolean released;
+
+        private Reservation(String name, int kib) {
+            this.name = name;
+            this.kib = kib;
+        }
+
+        /**
+         * Bytes currently held by this reservation.
+         */
+        public long getBytes() {
+            return (long) kib * KIB;
+        }
+
+        /**
+         * Grow the reservation to {@code bytes}, capped at the per-upload
+         * limit. When the extra share is not free the reservation gives back
+         * what it holds and waits for the whole amount, so two growing
+         * uploads never hold part of the budget while waiting on each other.
+         */
+        public void growTo(long bytes) throws InterruptedException {
+            int target = Math.max(1, Math.min(toKib(bytes), maxUploadKib));
+            if (released || target <= kib) {
+                return;
+            }
+            if (!budget.tryAcquire(target - kib)) {
+                log.info("Upload {} waits to grow its budget from {} to {} KiB ({} KiB free)",
+                        name, kib, target, budget.availablePermits());
+                budget.release(kib);
+                kib = 0;
+                budget.acquire(target);
+            }
+            kib = target;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                budget.release(kib);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.analysis.ffid.model;
+
+import com.analysis.ffid.repository.SapDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a String attribute as the id of its {@link sap_dictionary} entry.
+ * Instantiated by Hibernate through Spring, which injects the dictionary.
+ *
+ * Lookup only: values must have gone through {@link SapDictionary#intern}
+ * before they are saved; an unknown term converts to null.
+ */
+@Converter
+public class SapDictionaryConverter implements AttributeConverter<String, Integer> {
+
+    private final SapDictionary dictionary;
+
+    public SapDictionaryConverter(SapDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String value) {
+        return dictionary.find(value);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return dictionary.termOf(id);
+    }
+}
@@ -17,7 +17,8 @@ public class analysis_result {
 
     @EqualsAndHashCode.Include
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analysis_result_seq")
+    @SequenceGenerator(name = "analysis_result_seq", sequenceName = "analysis_result_seq", allocationSize = 100)
     @Column(name = "resultID")
     private Long resultID;
 
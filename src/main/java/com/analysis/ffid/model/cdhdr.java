@@ -0,0 +1,88 @@
+package com.analysis.ffid.model;
+
+import com.analysis.ffid.ingest.RowHash;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * CDHDR change-document header. Its CDPOS items live in {@link cdpos} and
+ * are joined on analysis and doc_number, so a header is stored once no
+ * matter how many items it has.
+ */
+@Entity
+@Table(name = "cdhdr",
+        indexes = {
+                @Index(name = "idx_cdhdr_analysis_doc", columnList = "ANALYSIS_ID, doc_number"),
+                @Index(name = "idx_cdhdr_analysis_event_time", columnList = "ANALYSIS_ID, event_time, id"),
+                @Index(name = "uk_cdhdr_analysis_row_hash", columnList = "ANALYSIS_ID, row_hash", unique = true)
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+
+public class cdhdr {
+
+    @EqualsAndHashCode.Include
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cdhdr_seq")
+    @SequenceGenerator(name = "cdhdr_seq", sequenceName = "cdhdr_seq", allocationSize = 100)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "ANALYSIS_ID", referencedColumnName = "analysisID")
+    private request_details requestDetails;
+
+    /** Identifies duplicates within the analysis; see {@link #computeRowHash()}. */
+    @Column(name = "row_hash")
+    private UUID rowHash;
+
+    /** One-based row of the uploaded file this entity was parsed from; not stored. */
+    @Transient
+    private Integer sourceRow;
+
+    @Column(name = "client")
+    private String client;
+
+    @Convert(converter = SapDictionaryConverter.class)
+    @Column(name = "object_id")
+    private String object;
+
+    @Column(name = "object_value")
+    private String objectValue;
+
+    @Column(name = "doc_number")
+    private String docNumber;
+
+    @Column(name = "username")
+    private String username;
+
+    @Column(name = "entrydate")
+    private String entryDate;
+
+    @Column(name = "entrytime")
+    private String entryTime;
+
+    /** Date and time above as a typed value, filled at ingest; null if they could not be parsed. */
+    @Column(name = "event_time")
+    private LocalDateTime eventTime;
+
+    @Column(name = "tcode")
+    private String tcode;
+
+    /** Attributes hashed into row_hash, in order; RowHashBackfill hashes stored rows the same way. */
+    public static final List<String> ROW_HASH_ATTRIBUTES = List.of(
+            "client", "object", "objectValue", "docNumber", "username", "entryDate",
+            "entryTime", "tcode");
+
+    public UUID computeRowHash() {
+        return RowHash.of(client, object, objectValue, docNumber, username, entryDate,
+                entryTime, tcode);
+    }
+}
@@ -0,0 +1,87 @@
+package com.analysis.ffid.model;
+
+import com.analysis.ffid.ingest.RowHash;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * CDPOS change-document item. Items are only ever appended; their header
+ * is the {@link cdhdr} row of the same analysis and doc_number.
+ */
+@Entity
+@Table(name = "cdpos",
+        indexes = {
+                @Index(name = "idx_cdpos_analysis_doc", columnList = "ANALYSIS_ID, doc_number"),
+                @Index(name = "uk_cdpos_analysis_row_hash", columnList = "ANALYSIS_ID, row_hash", unique = true)
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class cdpos {
+
+    @EqualsAndHashCode.Include
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cdpos_seq")
+    @SequenceGenerator(name = "cdpos_seq", sequenceName = "cdpos_seq", allocationSize = 100)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "ANALYSIS_ID", referencedColumnName = "analysisID")
+    private request_details requestDetails;
+
+    /** Identifies duplicates within the analysis; see {@link #computeRowHash()}. */
+    @Column(name = "row_hash")
+    private UUID rowHash;
+
+    /** One-based row of the uploaded file this entity was parsed from; not stored. */
+    @Transient
+    private Integer sourceRow;
+
+    @Column(name = "doc_number")
+    private String docNumber;
+
+    @Convert(converter = SapDictionaryConverter.class)
+    @Column(name = "table_name_id")
+    private String tableName;
+
+    @Column(name = "tableKey")
+    private String tableKey;
+
+    @Convert(converter = SapDictionaryConverter.class)
+    @Column(name = "field_name_id")
+    private String fieldName;
+
+    @Column(name = "changeID")
+    private String changeId;
+
+    @Column(name = "textFlag")
+    private String textFlag;
+
+    @Column(name = "Unit")
+    private String unit;
+
+    @Column(name = "CUKY")
+    private String cuky;
+
+    @Column(name = "newValue")
+    private String newValue;
+
+    @Column(name = "oldValue")
+    private String oldValue;
+
+    /** Attributes hashed into row_hash, in order; RowHashBackfill hashes stored rows the same way. */
+    public static final List<String> ROW_HASH_ATTRIBUTES = List.of(
+            "docNumber", "tableName", "tableKey", "fieldName", "changeId", "textFlag",
+            "unit", "cuky", "newValue", "oldValue");
+
+    public UUID computeRowHash() {
+        return RowHash.of(docNumber, tableName, tableKey, fieldName, changeId, textFlag,
+                unit, cuky, newValue, oldValue);
+    }
+}
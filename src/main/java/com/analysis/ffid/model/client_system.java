@@ -4,9 +4,13 @@ import jakarta.persistence.*;
 
 
 @Entity
-@Table(name = "clientSystem")
+@Table(name = "clientSystem", uniqueConstraints = @UniqueConstraint(
+        name = client_system.PAIR_CONSTRAINT, columnNames = {"client", "system"}))
 public class client_system {
 
+    /** Unique (client, system); the target of the upsert in client_systemService. */
+    public static final String PAIR_CONSTRAINT = "uk_client_system_pair";
+
     @Id
     @Column(name="CS_ID")
     private String CS_ID;
@@ -62,7 +62,7 @@ public class request_details {
     private Set<sm20> sm20Entries;
 
     @OneToMany(mappedBy = "requestDetails", fetch = FetchType.LAZY)
-    private Set<cdhdr_cdpos> cdhdrEntries;
+    private Set<cdhdr> cdhdrEntries;
 
     @OneToMany(mappedBy = "requestDetails", cascade = CascadeType.ALL)
     private List<analysis_result> analysisResults;
@@ -70,8 +70,16 @@ public class request_details {
     @PrePersist
     public void generateAnalysisId() {
         if (this.analysisID == null || this.analysisID.isEmpty()) {
-            long randomNum = 100000 + new Random().nextInt(900000);
-            this.analysisID = "REQ-" + randomNum;
+            this.analysisID = newAnalysisId();
         }
     }
+
+    /**
+     * A random "REQ-" id; callers that insert without JPA check it for
+     * collisions themselves.
+     */
+    public static String newAnalysisId() {
+        long randomNum = 100000 + new Random().nextInt(900000);
+        return "REQ-" + randomNum;
+    }
 }
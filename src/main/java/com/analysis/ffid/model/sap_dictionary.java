@@ -0,0 +1,28 @@
+package com.analysis.ffid.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Distinct SAP identifiers (programs, transactions, terminals, users,
+ * tables, fields, ...) referenced by integer id from the log tables, so
+ * each repeated string is stored once instead of once per row.
+ */
+@Entity
+@Table(name = "sap_dictionary")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class sap_dictionary {
+
+    @EqualsAndHashCode.Include
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "term", nullable = false, unique = true, columnDefinition = "TEXT")
+    private String term;
+}
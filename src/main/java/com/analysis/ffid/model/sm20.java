@@ -1,11 +1,20 @@
 package com.analysis.ffid.model;
 
+import com.analysis.ffid.ingest.RowHash;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
 
 @Entity
-@Table(name = "sm20")
+@Table(name = "sm20",
+        indexes = {
+                @Index(name = "idx_sm20_analysis_event_time", columnList = "ANALYSIS_ID, event_time, ENTRY_ID"),
+                @Index(name = "uk_sm20_analysis_row_hash", columnList = "ANALYSIS_ID, row_hash", unique = true)
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,7 +25,8 @@ public class sm20 {
 
     @EqualsAndHashCode.Include
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sm20_seq")
+    @SequenceGenerator(name = "sm20_seq", sequenceName = "sm20_seq", allocationSize = 100)
     @Column(name = "ENTRY_ID")
     private Long entryId;
 
@@ -24,10 +34,20 @@ public class sm20 {
     @JoinColumn(name = "ANALYSIS_ID", referencedColumnName = "analysisID")
     private request_details requestDetails;
 
-    @Column(name = "SAP System")
+    /** Identifies duplicates within the analysis; see {@link #computeRowHash()}. */
+    @Column(name = "row_hash")
+    private UUID rowHash;
+
+    /** One-based row of the uploaded file this entity was parsed from; not stored. */
+    @Transient
+    private Integer sourceRow;
+
+    @Convert(converter = SapDictionaryConverter.class)
+    @Column(name = "sap_system_id")
     private String sapSystem;
 
-    @Column(name = "AS Instance")
+    @Convert(converter = SapDictionaryConverter.class)
+    @Column(name = "as_instance_id")
     private String asInstance;
 
 
@@ -37,28 +57,36 @@ public class sm20 {
     @Column(name = "entryTime")
     private String entrytime;
 
+    /** Date and time above as a typed value, filled at ingest; null if they could not be parsed. */
+    @Column(name = "event_time")
+    private LocalDateTime eventTime;
+
     @Column(name = "Client")
     private String client;
 
     @Column(name = "Event")
     private String event;
 
-    @Column(name = "Username")
+    @Convert(converter = SapDictionaryConverter.class)
+    @Column(name = "username_id")
     private String username;
 
     @Column(name = "Groupname")
     private String groupname;
 
-    @Column(name = "Terminal")
+    @Convert(converter = SapDictionaryConverter.class)
+    @Column(name = "terminal_id")
     private String terminal;
 
     @Column(name = "Peer")
     private String peer;
 
-    @Column(name = "Source TA")
+    @Convert(converter = SapDictionaryConverter.class)
+    @Column(name = "source_ta_id")
     private String sourceTA;
 
-    @Column(name = "Program")
+    @Convert(converter = SapDictionaryConverter.class)
+    @Column(name = "program_id")
     private String program;
 
     @Column(name = "Audit_Log_Msg_Text")
@@ -76,6 +104,15 @@ public class sm20 {
     @Column(name = "Variable_Data")
     private String variableData;
 
-
+    /** Attributes hashed into row_hash, in order; RowHashBackfill hashes stored rows the same way. */
+    public static final List<String> ROW_HASH_ATTRIBUTES = List.of(
+            "sapSystem", "asInstance", "entrydate", "entrytime", "client", "event",
+            "username", "groupname", "terminal", "peer", "sourceTA", "program",
+            "auditLogMsgText", "note", "variableMessageData", "variable2", "variableData");
+
+    public UUID computeRowHash() {
+        return RowHash.of(sapSystem, asInstance, entrydate, entrytime, client, event,
+                username, groupname, terminal, peer, sourceTA, program,
+                auditLogMsgText, note, variableMessageData, variable2, variableData);
+    }
 }
-
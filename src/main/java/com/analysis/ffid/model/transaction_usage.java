@@ -1,11 +1,20 @@
 package com.analysis.ffid.model;
 
+import com.analysis.ffid.ingest.RowHash;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.util.List;
+import java.util.UUID;
+
 
 @Entity
-@Table(name = "transaction_usage")
+@Table(name = "transaction_usage",
+        indexes = {
+                @Index(name = "idx_transaction_usage_analysis_id", columnList = "analysis_id, t_id"),
+                @Index(name = "uk_transaction_usage_analysis_row_hash", columnList = "analysis_id, row_hash",
+                        unique = true)
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,7 +24,8 @@ import lombok.*;
 public class transaction_usage {
     @EqualsAndHashCode.Include
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_usage_seq")
+    @SequenceGenerator(name = "transaction_usage_seq", sequenceName = "transaction_usage_seq", allocationSize = 100)
     @Column(name = "t_id")
     private Long t_id;
 
@@ -23,6 +33,14 @@ public class transaction_usage {
     @JoinColumn(name = "analysis_id", referencedColumnName = "analysisID")
     private request_details requestDetails;
 
+    /** Identifies duplicates within the analysis; see {@link #computeRowHash()}. */
+    @Column(name = "row_hash")
+    private UUID rowHash;
+
+    /** One-based row of the uploaded file this entity was parsed from; not stored. */
+    @Transient
+    private Integer sourceRow;
+
     @Column(name = "time")
     private String time;
 
@@ -32,6 +50,11 @@ public class transaction_usage {
     @Column(name = "program")
     private String program;
 
+    /** Attributes hashed into row_hash, in order; RowHashBackfill hashes stored rows the same way. */
+    public static final List<String> ROW_HASH_ATTRIBUTES = List.of(
+            "time", "tcode", "program");
 
-
+    public UUID computeRowHash() {
+        return RowHash.of(time, tcode, program);
+    }
 }
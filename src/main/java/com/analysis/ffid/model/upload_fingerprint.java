@@ -0,0 +1,50 @@
+package com.analysis.ffid.model;
+
+import com.analysis.ffid.ingest.UploadKind;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A log file that has been loaded into an analysis, identified by the
+ * SHA-256 of its bytes, so uploading the same file again can be skipped.
+ */
+@Entity
+@Table(name = "upload_fingerprint",
+        indexes = @Index(name = "uk_upload_fingerprint_analysis_kind_sha256",
+                columnList = "ANALYSIS_ID, kind, sha256", unique = true))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class upload_fingerprint {
+
+    @EqualsAndHashCode.Include
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "ANALYSIS_ID", referencedColumnName = "analysisID")
+    private request_details requestDetails;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false)
+    private UploadKind kind;
+
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    /** Rows inserted by the upload (duplicates of existing rows not counted). */
+    @Column(name = "rows_inserted")
+    private Integer rowsInserted;
+
+    @Column(name = "uploaded_at")
+    private LocalDateTime uploadedAt;
+}
@@ -0,0 +1,58 @@
+package com.analysis.ffid.model;
+
+import com.analysis.ffid.ingest.UploadKind;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of an uploaded file that could not be loaded, with the reason, so
+ * the rest of the file can be kept and the operator gets a report of what
+ * to fix.
+ */
+@Entity
+@Table(name = "upload_rejection",
+        indexes = @Index(name = "idx_upload_rejection_upload_row", columnList = "upload_id, row_number"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class upload_rejection {
+
+    @EqualsAndHashCode.Include
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Id of the upload job the row belonged to. */
+    @Column(name = "upload_id", nullable = false)
+    private String uploadId;
+
+    @ManyToOne
+    @JoinColumn(name = "ANALYSIS_ID", referencedColumnName = "analysisID")
+    private request_details requestDetails;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind")
+    private UploadKind kind;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    /** One-based row (line) number in the file; null if it is not known. */
+    @Column(name = "row_number")
+    private Integer rowNumber;
+
+    @Column(name = "reason", columnDefinition = "TEXT")
+    private String reason;
+
+    /** The row's cell values, tab-separated. */
+    @Column(name = "row_values", columnDefinition = "TEXT")
+    private String rowValues;
+
+    @Column(name = "rejected_at")
+    private LocalDateTime rejectedAt;
+}
@@ -0,0 +1,14 @@
+package com.analysis.ffid.repository;
+
+/**
+ * One distinct (transaction, program, message) combination of a session's
+ * SM20 log.
+ */
+public interface AuditActivityRow {
+
+    String getSourceTa();
+
+    String getProgram();
+
+    String getMessage();
+}
@@ -0,0 +1,28 @@
+package com.analysis.ffid.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The SM20 columns shown in the session details, without loading the
+ * entity.
+ */
+public interface AuditLogRow {
+
+    Long getEntryId();
+
+    LocalDateTime getEventTime();
+
+    String getEntryDate();
+
+    String getEntryTime();
+
+    String getClient();
+
+    String getTerminal();
+
+    String getSourceTa();
+
+    String getProgram();
+
+    String getMessage();
+}
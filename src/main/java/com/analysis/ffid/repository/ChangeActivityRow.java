@@ -0,0 +1,16 @@
+package com.analysis.ffid.repository;
+
+/**
+ * One distinct (object, object value, table, field) combination of a
+ * session's change documents.
+ */
+public interface ChangeActivityRow {
+
+    String getObject();
+
+    String getObjectValue();
+
+    String getTableName();
+
+    String getFieldName();
+}
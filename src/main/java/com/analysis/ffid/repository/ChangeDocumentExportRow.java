@@ -0,0 +1,16 @@
+package com.analysis.ffid.repository;
+
+/**
+ * {@link ChangeDocumentRow} with the remaining header and item columns,
+ * for the full export.
+ */
+public interface ChangeDocumentExportRow extends ChangeDocumentRow {
+
+    String getDocNumber();
+
+    String getTcode();
+
+    String getTableKey();
+
+    String getChangeId();
+}
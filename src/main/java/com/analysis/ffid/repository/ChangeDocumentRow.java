@@ -0,0 +1,35 @@
+package com.analysis.ffid.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One CDHDR header joined with one of its CDPOS items; the item getters
+ * return null for a header that has no items.
+ */
+public interface ChangeDocumentRow {
+
+    Long getHeaderId();
+
+    /** Null for a header without items. */
+    Long getItemId();
+
+    LocalDateTime getEventTime();
+
+    String getEntryDate();
+
+    String getEntryTime();
+
+    String getUsername();
+
+    String getObject();
+
+    String getObjectValue();
+
+    String getTableName();
+
+    String getFieldName();
+
+    String getOldValue();
+
+    String getNewValue();
+}
@@ -0,0 +1,163 @@
+package com.analysis.ffid.repository;
+
+import com.analysis.ffid.ingest.RowSink;
+import com.analysis.ffid.ingest.UploadProgress;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.EntityType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Writes new entities through saveAll, then flushes and clears the
+ * persistence context once per batch so it does not grow with the file.
+ *
+ * Each batch is committed in its own transaction (unless the caller
+ * already runs one), so a failure late in a file keeps the rows before
+ * it. If a batch fails and a row-failure handler is set, the batch is
+ * retried row by row and only the rows that still fail are handed to it.
+ *
+ * With a row hash, each batch first drops rows repeated within it and rows
+ * whose hash is already stored (one IN query per batch), so memory stays
+ * bounded by the batch rather than the analysis. Callers must keep other
+ * writers of the same analysis out while the sink runs (see
+ * AnalysisLockService); the unique index still rejects anything that
+ * slips through.
+ */
+public class JpaBatchSink<T> implements RowSink<T> {
+
+    private final JpaRepository<T, ?> repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final UploadProgress progress;
+    private final BiConsumer<T, RuntimeException> onRowFailure;
+    private final Function<T, UUID> rowHash;
+    private final Function<Collection<UUID>, Set<UUID>> storedHashes;
+    private final List<T> batch;
+    private long written;
+
+    public JpaBatchSink(JpaRepository<T, ?> repository, EntityManager entityManager,
+                        TransactionTemplate transactionTemplate, int batchSize, UploadProgress progress,
+                        BiConsumer<T, RuntimeException> onRowFailure) {
+        this(repository, entityManager, transactionTemplate, batchSize, progress, onRowFailure, null, null);
+    }
+
+    /**
+     * @param rowHash      the row's hash, or null for rows that are never duplicates
+     * @param storedHashes which of the given hashes the analysis already has
+     */
+    public JpaBatchSink(JpaRepository<T, ?> repository, EntityManager entityManager,
+                        TransactionTemplate transactionTemplate, int batchSize, UploadProgress progress,
+                        BiConsumer<T, RuntimeException> onRowFailure,
+                        Function<T, UUID> rowHash, Function<Collection<UUID>, Set<UUID>> storedHashes) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.progress = progress;
+        this.onRowFailure = onRowFailure;
+        this.rowHash = rowHash;
+        this.storedHashes = storedHashes;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public void add(T row) {
+        batch.add(row);
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public long finish() {
+        flush();
+        return written;
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (rowHash != null) {
+            dropDuplicates();
+            if (batch.isEmpty()) {
+                return;
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAll(batch);
+                entityManager.flush();
+                entityManager.clear();
+            });
+            written += batch.size();
+        } catch (RuntimeException e) {
+            if (onRowFailure == null) {
+                throw e;
+            }
+            saveOneByOne();
+        }
+        progress.batchFlushed(batch.size(), System.nanoTime() - start);
+        batch.clear();
+    }
+
+    private void dropDuplicates() {
+        int before = batch.size();
+        Set<UUID> hashes = new HashSet<>();
+        batch.removeIf(row -> {
+            UUID hash = rowHash.apply(row);
+            return hash != null && !hashes.add(hash);
+        });
+        Set<UUID> stored = hashes.isEmpty() ? Set.of() : storedHashes.apply(hashes);
+        if (!stored.isEmpty()) {
+            batch.removeIf(row -> stored.contains(rowHash.apply(row)));
+        }
+        if (batch.size() < before) {
+            progress.rowsDuplicate(before - batch.size());
+        }
+    }
+
+    private void saveOneByOne() {
+        for (T row : batch) {
+            resetId(row);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    repository.save(row);
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+                written++;
+            } catch (RuntimeException e) {
+                onRowFailure.accept(row, e);
+            }
+        }
+    }
+
+    /**
+     * The failed saveAll may have assigned ids; clear them so the retry
+     * persists the row instead of merging a row that does not exist.
+     */
+    private void resetId(T row) {
+        EntityType<?> type = entityManager.getMetamodel().entity(row.getClass());
+        if (type.getId(type.getIdType().getJavaType()).getJavaMember() instanceof Field field) {
+            try {
+                field.setAccessible(true);
+                field.set(row, null);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot reset id of " + type.getName(), e);
+            }
+        }
+    }
+}
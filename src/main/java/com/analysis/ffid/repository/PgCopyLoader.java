@@ -0,0 +1,317 @@
+package com.analysis.ffid.repository;
+
+import com.analysis.ffid.config.IdSequenceInitializer;
+import com.analysis.ffid.ingest.IngestMode;
+import com.analysis.ffid.ingest.RowSink;
+import com.analysis.ffid.ingest.UploadProgress;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk loads rows with PostgreSQL's COPY ... FROM STDIN (CSV format).
+ *
+ * The COPY runs on the connection bound to the current transaction, so it
+ * commits or rolls back together with it; outside a transaction (the upload
+ * services) every COPY chunk commits on its own. Primary keys
+ * are reserved from the entity's pooled sequence before each COPY chunk,
+ * which keeps them disjoint from ids Hibernate hands out.
+ *
+ * With a unique key, each chunk is copied into a session-local staging
+ * table and merged with INSERT ... ON CONFLICT DO NOTHING, so rows already
+ * in the table (or repeated within the upload) are skipped by the database
+ * and counted as duplicates.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PgCopyLoader {
+
+    private final DataSource dataSource;
+    private final TableMetadata tableMetadata;
+
+    @Value("${ffid.ingest.copy-chunk-size:50000}")
+    private int chunkSize;
+
+    @Value("${ffid.ingest.mode:jpa}")
+    private String defaultMode;
+
+    private volatile Boolean available;
+
+    /**
+     * Whether the datasource is PostgreSQL and exposes the COPY API.
+     */
+    public boolean isAvailable() {
+        if (available == null) {
+            try (Connection con = dataSource.getConnection()) {
+                available = con.isWrapperFor(PGConnection.class);
+            } catch (SQLException e) {
+                log.warn("Could not determine COPY support, using JPA inserts", e);
+                available = false;
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Decide whether an upload should use COPY: the requested mode, or the
+     * configured default when none was requested, and only on PostgreSQL.
+     */
+    public boolean shouldUse(IngestMode requested) {
+        IngestMode mode = requested != null ? requested : IngestMode.from(defaultMode);
+        if (mode != IngestMode.COPY) {
+            return false;
+        }
+        if (!isAvailable()) {
+            log.warn("COPY ingestion requested but the datasource is not PostgreSQL, falling back to JPA");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Open a COPY sink for an entity table.
+     *
+     * @param sequence   sequence backing the entity's id generator
+     * @param attributes entity attributes to load, in the order {@code values} returns them
+     * @param uniqueKey  attributes of a unique index to skip conflicting rows on, or empty to copy directly
+     * @param progress   receives the timing of every finished COPY chunk and the skipped rows
+     * @param values     maps a row to its attribute values (to-one associations as their id)
+     */
+    public <T> RowSink<T> open(Class<?> entity, String sequence, List<String> attributes, List<String> uniqueKey,
+                               UploadProgress progress, Function<T, Object[]> values) throws SQLException {
+        String table = tableMetadata.table(entity);
+        String columns = tableMetadata.idColumn(entity) + ", " + attributes.stream()
+                .map(attribute -> tableMetadata.column(entity, attribute))
+                .collect(Collectors.joining(", "));
+        String stage = uniqueKey.isEmpty() ? null : "ffid_stage_" + table.replace("\"", "");
+        String copySql = "COPY " + (stage != null ? stage : table) + " (" + columns + ")" +
+                " FROM STDIN WITH (FORMAT csv, ENCODING 'UTF8')";
+        String mergeSql = stage == null ? null
+                : "INSERT INTO " + table + " (" + columns + ") SELECT " + columns + " FROM " + stage +
+                " ON CONFLICT (" + uniqueKey.stream()
+                .map(attribute -> tableMetadata.column(entity, attribute))
+                .collect(Collectors.joining(", ")) + ") DO NOTHING";
+
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (stage != null) {
+                try (Statement st = con.createStatement()) {
+                    st.execute("CREATE TEMP TABLE IF NOT EXISTS " + stage + " (LIKE " + table + ")");
+                    st.execute("TRUNCATE " + stage);
+                }
+            }
+            return new CopySink<>(con, con.unwrap(PGConnection.class).getCopyAPI(), copySql, stage, mergeSql,
+                    sequence, progress, values);
+        } catch (SQLException e) {
+            DataSourceUtils.releaseConnection(con, dataSource);
+            throw e;
+        }
+    }
+
+    private final class CopySink<T> implements RowSink<T> {
+
+        private static final int FLUSH_CHARS = 64 * 1024;
+
+        private final Connection con;
+        private final CopyManager copyManager;
+        private final String copySql;
+        private final String stage;
+        private final String mergeSql;
+        private final String sequence;
+        private final UploadProgress progress;
+        private final Function<T, Object[]> values;
+        private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 1024);
+
+        private CopyIn copyIn;
+        private long[] blocks = new long[0];
+        private int blockIndex;
+        private long nextId = 1;
+        private long blockEnd;
+        private long written;
+        private long chunkRows;
+        private long chunkWriteNanos;
+        private boolean closed;
+
+        CopySink(Connection con, CopyManager copyManager, String copySql, String stage, String mergeSql,
+                 String sequence, UploadProgress progress, Function<T, Object[]> values) {
+            this.con = con;
+            this.copyManager = copyManager;
+            this.copySql = copySql;
+            this.stage = stage;
+            this.mergeSql = mergeSql;
+            this.sequence = sequence;
+            this.progress = progress;
+            this.values = values;
+        }
+
+        @Override
+        public void add(T row) throws SQLException {
+            if (nextId > blockEnd && !nextBlock()) {
+                endChunk();
+                do {
+                    reserveIds();
+                } while (!nextBlock());
+                copyIn = copyManager.copyIn(copySql);
+            }
+
+            buffer.append(nextId++);
+            for (Object value : values.apply(row)) {
+                buffer.append(',');
+                appendCsv(value);
+            }
+            buffer.append('\n');
+            written++;
+            chunkRows++;
+
+            if (buffer.length() >= FLUSH_CHARS) {
+                writeBuffer();
+            }
+        }
+
+        @Override
+        public long finish() throws SQLException {
+            endChunk();
+            return written;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (copyIn != null && copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                if (stage != null) {
+                    dropStage();
+                }
+            } finally {
+                DataSourceUtils.releaseConnection(con, dataSource);
+            }
+        }
+
+        /**
+         * Reserve enough pooled blocks for one COPY chunk. Each nextval
+         * value v owns the ids (v - allocationSize, v], same as Hibernate's
+         * pooled optimizer; the very first values of a fresh sequence do not
+         * describe a full block and are skipped.
+         */
+        private void reserveIds() throws SQLException {
+            int allocation = IdSequenceInitializer.ALLOCATION_SIZE;
+            int count = (chunkSize + allocation - 1) / allocation;
+
+            try (PreparedStatement ps = con.prepareStatement(
+                    "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)")) {
+                ps.setInt(1, count);
+                try (ResultSet rs = ps.executeQuery()) {
+                    long[] reserved = new long[count];
+                    int i = 0;
+                    while (rs.next()) {
+                        long high = rs.getLong(1);
+                        if (high >= allocation) {
+                            reserved[i++] = high;
+                        }
+                    }
+                    blocks = Arrays.copyOf(reserved, i);
+                }
+            }
+            blockIndex = 0;
+        }
+
+        private boolean nextBlock() {
+            if (blockIndex >= blocks.length) {
+                return false;
+            }
+            blockEnd = blocks[blockIndex++];
+            nextId = blockEnd - IdSequenceInitializer.ALLOCATION_SIZE + 1;
+            return true;
+        }
+
+        private void endChunk() throws SQLException {
+            if (copyIn == null) {
+                return;
+            }
+            writeBuffer();
+            long start = System.nanoTime();
+            copyIn.endCopy();
+            if (mergeSql != null) {
+                merge();
+            }
+            progress.batchFlushed(chunkRows, chunkWriteNanos + System.nanoTime() - start);
+            copyIn = null;
+            chunkRows = 0;
+            chunkWriteNanos = 0;
+        }
+
+        /**
+         * Move the staged chunk into the table; rows whose key is already
+         * there are left out and reported as duplicates.
+         */
+        private void merge() throws SQLException {
+            try (Statement st = con.createStatement()) {
+                long skipped = chunkRows - st.executeUpdate(mergeSql);
+                st.execute("TRUNCATE " + stage);
+                written -= skipped;
+                if (skipped > 0) {
+                    progress.rowsDuplicate(skipped);
+                }
+            }
+        }
+
+        private void dropStage() {
+            try (Statement st = con.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS " + stage);
+            } catch (SQLException e) {
+                // an aborted transaction; the temp table goes with the session
+                log.debug("Could not drop staging table {}", stage, e);
+            }
+        }
+
+        private void writeBuffer() throws SQLException {
+            if (buffer.length() == 0) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            long start = System.nanoTime();
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            chunkWriteNanos += System.nanoTime() - start;
+            buffer.setLength(0);
+        }
+
+        private void appendCsv(Object value) {
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            buffer.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') {
+                    buffer.append('"');
+                }
+                buffer.append(c);
+            }
+            buffer.append('"');
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.analysis.ffid.repository;
+
+import com.analysis.ffid.model.request_details;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Inserts many request_details rows with one statement per chunk: each
+ * column is bound as a text array and expanded with unnest, so a thousand
+ * tickets cost one round trip instead of a thousand.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RequestBulkRepository {
+
+    private static final List<String> ATTRIBUTES = List.of(
+            "itsmNumber", "clientSystem", "client", "system", "requestedFor", "requested_on_behalfof",
+            "requestedDate", "usedDate", "tcodes", "reason", "activities_to_be_performed");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TableMetadata tableMetadata;
+
+    /**
+     * Insert the rows, skipping any whose analysis ID already exists.
+     * Each row must carry its analysis ID and a client_system with an id.
+     *
+     * @return the analysis IDs that were inserted
+     */
+    public Set<String> insertNew(List<request_details> rows) {
+        if (rows.isEmpty()) {
+            return new HashSet<>();
+        }
+        String idColumn = tableMetadata.idColumn(request_details.class);
+        StringBuilder columns = new StringBuilder(idColumn);
+        StringBuilder arrays = new StringBuilder("?::text[]");
+        for (String attribute : ATTRIBUTES) {
+            columns.append(", ").append(tableMetadata.column(request_details.class, attribute));
+            arrays.append(", ?::text[]");
+        }
+        String sql = "INSERT INTO " + tableMetadata.table(request_details.class) + " (" + columns + ") " +
+                "SELECT * FROM unnest(" + arrays + ") ON CONFLICT (" + idColumn + ") DO NOTHING " +
+                "RETURNING " + idColumn;
+
+        List<Function<request_details, String>> values = List.of(
+                request_details::getAnalysisID,
+                request_details::getItsmNumber,
+                r -> r.getClientSystem().getCS_ID(),
+                request_details::getClient,
+                request_details::getSystem,
+                request_details::getRequestedFor,
+                request_details::getRequested_on_behalfof,
+                request_details::getRequestedDate,
+                request_details::getUsedDate,
+                request_details::getTcodes,
+                request_details::getReason,
+                request_details::getActivities_to_be_performed);
+
+        return jdbcTemplate.execute((ConnectionCallback<Set<String>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                for (int c = 0; c < values.size(); c++) {
+                    String[] column = new String[rows.size()];
+                    for (int i = 0; i < column.length; i++) {
+                        column[i] = values.get(c).apply(rows.get(i));
+                    }
+                    Array array = con.createArrayOf("text", column);
+                    ps.setArray(c + 1, array);
+                }
+                Set<String> inserted = new HashSet<>(rows.size() * 2);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        inserted.add(rs.getString(1));
+                    }
+                }
+                return inserted;
+            }
+        });
+    }
+}
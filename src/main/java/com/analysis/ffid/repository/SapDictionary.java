@@ -0,0 +1,156 @@
+package com.analysis.ffid.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two-way cache over the sap_dictionary table. Every distinct identifier is
+ * looked up (or inserted) in the database once per process; after that the
+ * upload loops resolve it from memory, and all rows share one String
+ * instance per value.
+ *
+ * Only {@link #intern} inserts terms, and the upload loops call it while
+ * parsing, before rows reach a sink. New terms are committed in their own
+ * transaction, so a failed upload never leaves the cache pointing at a
+ * rolled-back id. {@link #find} never writes, so the JPA converter and the
+ * COPY sinks can use it in the middle of a flush or chunk without taking
+ * a second connection for an insert.
+ *
+ * The cache holds at most ffid.dictionary.cache-size terms; past that the
+ * least recently used one is dropped, so the terms every upload needs stay
+ * resolved while rare ones are read back from the table when they recur.
+ */
+@Component
+public class SapDictionary {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+
+    // Both maps are guarded by the lock on terms; its access order is the
+    // LRU order, and an evicted term leaves ids with it.
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<Integer, String> terms = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            if (size() <= cacheSize) {
+                return false;
+            }
+            ids.remove(eldest.getValue());
+            return true;
+        }
+    };
+
+    @Value("${ffid.dictionary.cache-size:500000}")
+    private int cacheSize;
+
+    /**
+     * The transaction manager is injected lazily: Hibernate builds the
+     * dictionary converter while the entity manager factory, which the
+     * JPA transaction manager depends on, is still being created.
+     */
+    public SapDictionary(JdbcTemplate jdbcTemplate, @Lazy PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Id of a known term, or null if the term is null or not in the
+     * dictionary (a query for an unknown term then matches nothing).
+     */
+    public Integer find(String term) {
+        if (term == null) {
+            return null;
+        }
+        Integer id = cachedId(term);
+        if (id == null) {
+            List<Integer> found = jdbcTemplate.queryForList(
+                    "SELECT id FROM sap_dictionary WHERE term = ?", Integer.class, term);
+            if (found.isEmpty()) {
+                return null;
+            }
+            id = found.get(0);
+            remember(id, term);
+        }
+        return id;
+    }
+
+    /**
+     * Id of the term, inserting it if it is new.
+     */
+    private Integer resolve(String term) {
+        Integer id = cachedId(term);
+        if (id == null) {
+            id = requiresNew.execute(status -> {
+                jdbcTemplate.update("INSERT INTO sap_dictionary (term) VALUES (?) ON CONFLICT (term) DO NOTHING", term);
+                return jdbcTemplate.queryForObject("SELECT id FROM sap_dictionary WHERE term = ?", Integer.class, term);
+            });
+            remember(id, term);
+        }
+        return id;
+    }
+
+    /**
+     * Term of an id; null for null.
+     */
+    public String termOf(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        String term = cachedTerm(id);
+        if (term == null) {
+            List<String> found = jdbcTemplate.queryForList("SELECT term FROM sap_dictionary WHERE id = ?", String.class, id);
+            if (found.isEmpty()) {
+                throw new IllegalStateException("Unknown sap_dictionary id: " + id);
+            }
+            term = found.get(0);
+            remember(id, term);
+        }
+        return term;
+    }
+
+    /**
+     * Add the term to the dictionary if it is new and return the shared
+     * instance of it, so parsed rows do not each keep their own copy of the
+     * string. Call from the ingest loop for every dictionary column.
+     */
+    public String intern(String term) {
+        if (term == null) {
+            return null;
+        }
+        return termOf(resolve(term));
+    }
+
+    private Integer cachedId(String term) {
+        synchronized (terms) {
+            Integer id = ids.get(term);
+            if (id != null) {
+                terms.get(id); // mark as recently used
+            }
+            return id;
+        }
+    }
+
+    private String cachedTerm(Integer id) {
+        synchronized (terms) {
+            return terms.get(id);
+        }
+    }
+
+    private void remember(Integer id, String term) {
+        synchronized (terms) {
+            String shared = terms.putIfAbsent(id, term);
+            ids.put(shared != null ? shared : term, id);
+        }
+    }
+}
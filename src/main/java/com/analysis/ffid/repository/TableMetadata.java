@@ -0,0 +1,40 @@
+package com.analysis.ffid.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Physical table and column names of mapped entities, as Hibernate renders
+ * them after the naming strategy. Native SQL should use these instead of
+ * hard-coding names like "ANALYSIS_ID" or "Source TA".
+ */
+@Component
+@RequiredArgsConstructor
+public class TableMetadata {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public String table(Class<?> entity) {
+        return persister(entity).getRootTableName();
+    }
+
+    public String idColumn(Class<?> entity) {
+        return persister(entity).getIdentifierColumnNames()[0];
+    }
+
+    /**
+     * Column of a basic attribute, or the join column of a to-one association.
+     */
+    public String column(Class<?> entity, String attribute) {
+        return persister(entity).getPropertyColumnNames(attribute)[0];
+    }
+
+    private AbstractEntityPersister persister(Class<?> entity) {
+        return (AbstractEntityPersister) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(entity);
+    }
+}
@@ -0,0 +1,12 @@
+package com.analysis.ffid.repository;
+
+/**
+ * One distinct (tcode, program) combination of a session's transaction
+ * usage.
+ */
+public interface TransactionActivityRow {
+
+    String getTcode();
+
+    String getProgram();
+}
@@ -0,0 +1,16 @@
+package com.analysis.ffid.repository;
+
+/**
+ * The transaction_usage columns shown in the session details, without
+ * loading the entity.
+ */
+public interface TransactionUsageRow {
+
+    Long getId();
+
+    String getTime();
+
+    String getTcode();
+
+    String getProgram();
+}
@@ -0,0 +1,101 @@
+package com.analysis.ffid.repository;
+
+import com.analysis.ffid.model.cdhdr;
+import com.analysis.ffid.model.request_details;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Repository
+public interface cdhdrRepository extends JpaRepository<cdhdr, Long> {
+
+    boolean existsByRequestDetails(request_details requestDetails);
+
+    long countByRequestDetails(request_details requestDetails);
+
+    /**
+     * Distinct (object, object value, table, field) combinations, in order
+     * of first occurrence; grouped in the database so the analysis prompt
+     * does not load every change document row.
+     */
+    @Query("SELECT h.object AS object, h.objectValue AS objectValue, " +
+            "p.tableName AS tableName, p.fieldName AS fieldName " +
+            "FROM cdhdr h LEFT JOIN cdpos p ON p.requestDetails = h.requestDetails AND p.docNumber = h.docNumber " +
+            "WHERE h.requestDetails = :request " +
+            "GROUP BY h.object, h.objectValue, p.tableName, p.fieldName " +
+            "ORDER BY MIN(h.eventTime), MIN(h.id)")
+    List<ChangeActivityRow> findDistinctChangeActivity(@Param("request") request_details request);
+
+    /**
+     * Next page of change document rows of timed headers after
+     * (time, header id, item id); a header without items counts as item 0.
+     */
+    @Query("SELECT h.id AS headerId, p.id AS itemId, " +
+            "h.eventTime AS eventTime, h.entryDate AS entryDate, h.entryTime AS entryTime, " +
+            "h.username AS username, h.object AS object, h.objectValue AS objectValue, " +
+            "p.tableName AS tableName, p.fieldName AS fieldName, p.oldValue AS oldValue, p.newValue AS newValue " +
+            "FROM cdhdr h LEFT JOIN cdpos p ON p.requestDetails = h.requestDetails AND p.docNumber = h.docNumber " +
+            "WHERE h.requestDetails = :request AND h.eventTime >= :time " +
+            "AND (h.eventTime > :time OR h.id > :headerId OR (h.id = :headerId AND COALESCE(p.id, 0) > :itemId)) " +
+            "ORDER BY h.eventTime ASC, h.id ASC, COALESCE(p.id, 0) ASC")
+    List<ChangeDocumentRow> findTimedPage(@Param("request") request_details request,
+                                          @Param("time") LocalDateTime time, @Param("headerId") long headerId,
+                                          @Param("itemId") long itemId, Pageable page);
+
+    /**
+     * Next page of change document rows of headers without event_time,
+     * which follow all timed ones.
+     */
+    @Query("SELECT h.id AS headerId, p.id AS itemId, " +
+            "h.eventTime AS eventTime, h.entryDate AS entryDate, h.entryTime AS entryTime, " +
+            "h.username AS username, h.object AS object, h.objectValue AS objectValue, " +
+            "p.tableName AS tableName, p.fieldName AS fieldName, p.oldValue AS oldValue, p.newValue AS newValue " +
+            "FROM cdhdr h LEFT JOIN cdpos p ON p.requestDetails = h.requestDetails AND p.docNumber = h.docNumber " +
+            "WHERE h.requestDetails = :request AND h.eventTime IS NULL " +
+            "AND (h.id > :headerId OR (h.id = :headerId AND COALESCE(p.id, 0) > :itemId)) " +
+            "ORDER BY h.id ASC, COALESCE(p.id, 0) ASC")
+    List<ChangeDocumentRow> findUntimedPage(@Param("request") request_details request,
+                                            @Param("headerId") long headerId, @Param("itemId") long itemId,
+                                            Pageable page);
+
+    /**
+     * All change document rows with every column for export, in the order
+     * of the paged queries, read through a database cursor; call inside a
+     * transaction and close the stream.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT h.id AS headerId, p.id AS itemId, " +
+            "h.eventTime AS eventTime, h.entryDate AS entryDate, h.entryTime AS entryTime, " +
+            "h.docNumber AS docNumber, h.username AS username, h.tcode AS tcode, " +
+            "h.object AS object, h.objectValue AS objectValue, p.tableName AS tableName, p.tableKey AS tableKey, " +
+            "p.fieldName AS fieldName, p.changeId AS changeId, p.oldValue AS oldValue, p.newValue AS newValue " +
+            "FROM cdhdr h LEFT JOIN cdpos p ON p.requestDetails = h.requestDetails AND p.docNumber = h.docNumber " +
+            "WHERE h.requestDetails = :request " +
+            "ORDER BY h.eventTime ASC NULLS LAST, h.id ASC, COALESCE(p.id, 0) ASC")
+    Stream<ChangeDocumentExportRow> streamChangeDocuments(@Param("request") request_details request);
+
+    @Query("SELECT COUNT(h) FROM cdhdr h WHERE h.requestDetails = :request AND NOT EXISTS (" +
+            "SELECT 1 FROM cdpos p WHERE p.requestDetails = h.requestDetails AND p.docNumber = h.docNumber)")
+    long countWithoutItems(@Param("request") request_details request);
+
+    /**
+     * Which of the given row hashes the analysis already has.
+     */
+    @Query("SELECT h.rowHash FROM cdhdr h WHERE h.requestDetails = :request AND h.rowHash IN :hashes")
+    Set<UUID> findStoredRowHashes(@Param("request") request_details request,
+                                  @Param("hashes") Collection<UUID> hashes);
+}
@@ -0,0 +1,29 @@
+package com.analysis.ffid.repository;
+
+import com.analysis.ffid.model.cdpos;
+import com.analysis.ffid.model.request_details;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+@Repository
+public interface cdposRepository extends JpaRepository<cdpos, Long> {
+
+    long countByRequestDetails(request_details requestDetails);
+
+    @Query("SELECT COUNT(p) FROM cdpos p WHERE p.requestDetails = :request AND EXISTS (" +
+            "SELECT 1 FROM cdhdr h WHERE h.requestDetails = p.requestDetails AND h.docNumber = p.docNumber)")
+    long countWithHeader(@Param("request") request_details request);
+
+    /**
+     * Which of the given row hashes the analysis already has.
+     */
+    @Query("SELECT p.rowHash FROM cdpos p WHERE p.requestDetails = :request AND p.rowHash IN :hashes")
+    Set<UUID> findStoredRowHashes(@Param("request") request_details request,
+                                  @Param("hashes") Collection<UUID> hashes);
+}
@@ -1,10 +1,77 @@
 package com.analysis.ffid.repository;
+
 import com.analysis.ffid.model.request_details;
 import com.analysis.ffid.model.sm20;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface sm20Repository extends JpaRepository<sm20, Long> {
         List<sm20> findByRequestDetails(request_details requestDetails);
-    }
+
+        List<sm20> findByRequestDetailsOrderByEventTimeAsc(request_details requestDetails);
+
+        long countByRequestDetails(request_details requestDetails);
+
+        /**
+         * Next page of timed entries after (time, id), oldest first. The
+         * redundant {@code >= :time} bound lets the (analysis, event_time,
+         * id) index seek straight to the cursor.
+         */
+        @Query("SELECT s.entryId AS entryId, s.eventTime AS eventTime, s.entrydate AS entryDate, " +
+                "s.entrytime AS entryTime, s.client AS client, s.terminal AS terminal, s.sourceTA AS sourceTa, " +
+                "s.program AS program, s.auditLogMsgText AS message " +
+                "FROM sm20 s WHERE s.requestDetails = :request AND s.eventTime >= :time " +
+                "AND (s.eventTime > :time OR s.entryId > :id) ORDER BY s.eventTime ASC, s.entryId ASC")
+        List<AuditLogRow> findTimedPage(@Param("request") request_details request,
+                                        @Param("time") LocalDateTime time, @Param("id") long id, Pageable page);
+
+        /**
+         * Next page of entries without event_time, which follow all timed ones.
+         */
+        @Query("SELECT s.entryId AS entryId, s.eventTime AS eventTime, s.entrydate AS entryDate, " +
+                "s.entrytime AS entryTime, s.client AS client, s.terminal AS terminal, s.sourceTA AS sourceTa, " +
+                "s.program AS program, s.auditLogMsgText AS message " +
+                "FROM sm20 s WHERE s.requestDetails = :request AND s.eventTime IS NULL AND s.entryId > :id " +
+                "ORDER BY s.entryId ASC")
+        List<AuditLogRow> findUntimedPage(@Param("request") request_details request, @Param("id") long id, Pageable page);
+
+        /**
+         * Distinct (source TA, program, message) combinations, in order of
+         * first occurrence; grouped in the database so the analysis prompt
+         * does not load every entry.
+         */
+        @Query("SELECT s.sourceTA AS sourceTa, s.program AS program, s.auditLogMsgText AS message " +
+                "FROM sm20 s WHERE s.requestDetails = :request " +
+                "GROUP BY s.sourceTA, s.program, s.auditLogMsgText ORDER BY MIN(s.entryId)")
+        List<AuditActivityRow> findDistinctActivity(@Param("request") request_details request);
+
+        /**
+         * All entries for export, oldest first, read through a database
+         * cursor; call inside a transaction and close the stream.
+         */
+        @QueryHints({
+                @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+        @Query("SELECT s FROM sm20 s WHERE s.requestDetails = :request " +
+                "ORDER BY s.eventTime ASC NULLS LAST, s.entryId ASC")
+        Stream<sm20> streamByRequestDetails(@Param("request") request_details request);
+
+        /**
+         * Which of the given row hashes the analysis already has.
+         */
+        @Query("SELECT s.rowHash FROM sm20 s WHERE s.requestDetails = :request AND s.rowHash IN :hashes")
+        Set<UUID> findStoredRowHashes(@Param("request") request_details request,
+                                      @Param("hashes") Collection<UUID> hashes);
+}
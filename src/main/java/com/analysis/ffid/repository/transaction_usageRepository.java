@@ -2,10 +2,54 @@ package com.analysis.ffid.repository;
 
 import com.analysis.ffid.model.request_details;
 import com.analysis.ffid.model.transaction_usage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface transaction_usageRepository extends JpaRepository<transaction_usage, Long> {
     List<transaction_usage> findByRequestDetails(request_details requestDetails);
-}
\ No newline at end of file
+
+    long countByRequestDetails(request_details requestDetails);
+
+    /**
+     * Next page after the given id, in upload (file) order; transaction
+     * usage has no typed timestamp to page on.
+     */
+    @Query("SELECT t.t_id AS id, t.time AS time, t.tcode AS tcode, t.program AS program " +
+            "FROM transaction_usage t WHERE t.requestDetails = :request AND t.t_id > :id ORDER BY t.t_id ASC")
+    List<TransactionUsageRow> findPage(@Param("request") request_details request, @Param("id") long id, Pageable page);
+
+    /**
+     * Distinct (tcode, program) combinations, in order of first occurrence.
+     */
+    @Query("SELECT t.tcode AS tcode, t.program AS program FROM transaction_usage t " +
+            "WHERE t.requestDetails = :request GROUP BY t.tcode, t.program ORDER BY MIN(t.t_id)")
+    List<TransactionActivityRow> findDistinctActivity(@Param("request") request_details request);
+
+    /**
+     * All rows for export in upload order, read through a database cursor;
+     * call inside a transaction and close the stream.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT t FROM transaction_usage t WHERE t.requestDetails = :request ORDER BY t.t_id ASC")
+    Stream<transaction_usage> streamByRequestDetails(@Param("request") request_details request);
+
+    /**
+     * Which of the given row hashes the analysis already has.
+     */
+    @Query("SELECT t.rowHash FROM transaction_usage t WHERE t.requestDetails = :request AND t.rowHash IN :hashes")
+    Set<UUID> findStoredRowHashes(@Param("request") request_details request,
+                                  @Param("hashes") Collection<UUID> hashes);
+}
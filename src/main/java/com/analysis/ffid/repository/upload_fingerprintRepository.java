@@ -0,0 +1,16 @@
+package com.analysis.ffid.repository;
+
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.model.request_details;
+import com.analysis.ffid.model.upload_fingerprint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface upload_fingerprintRepository extends JpaRepository<upload_fingerprint, Long> {
+
+    Optional<upload_fingerprint> findByRequestDetailsAndKindAndSha256(
+            request_details requestDetails, UploadKind kind, String sha256);
+}
@@ -0,0 +1,18 @@
+package com.analysis.ffid.repository;
+
+import com.analysis.ffid.model.upload_rejection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface upload_rejectionRepository extends JpaRepository<upload_rejection, Long> {
+
+    List<upload_rejection> findByUploadIdOrderByRowNumberAscIdAsc(String uploadId);
+
+    List<upload_rejection> findByUploadIdOrderByRowNumberAscIdAsc(String uploadId, Pageable pageable);
+
+    long countByUploadId(String uploadId);
+}
@@ -0,0 +1,12 @@
+package com.analysis.ffid.service;
+
+/**
+ * Thrown when whole-session work could not get the session lock in time
+ * because uploads into the analysis kept it busy.
+ */
+public class AnalysisBusyException extends RuntimeException {
+
+    public AnalysisBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,244 @@
+package com.analysis.ffid.service;
+
+import com.analysis.ffid.ingest.UploadKind;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes conflicting work on one analysis while different analyses
+ * run fully in parallel.
+ *
+ * Each (analysis ID, upload kind) pair has its own lock. An upload holds
+ * the lock of its kind, so two CDHDR uploads into one session run one
+ * after the other while SM20, transaction and CDHDR uploads still run
+ * side by side. A CDPOS upload also holds the CDHDR lock, so CDHDR and
+ * CDPOS uploads of one session never overlap. Whole-session work (reading
+ * the analysis input) takes all kind locks; every caller takes its locks
+ * in enum order, so they cannot deadlock. Locks exist only while someone
+ * holds or waits for them.
+ *
+ * The locks live in this JVM, which is enough for the single-instance
+ * deployment. Wait times are recorded per purpose for GET /api/locks/metrics.
+ */
+@Slf4j
+@Service
+public class AnalysisLockService {
+
+    private final Map<String, LockEntry> locks = new ConcurrentHashMap<>();
+    private final Map<String, WaitStats> stats = new ConcurrentHashMap<>();
+
+    @Value("${ffid.lock.session-wait-seconds:300}")
+    private long sessionWaitSeconds;
+
+    @Value("${ffid.lock.upload-wait-millis:1000}")
+    private long uploadWaitMillis;
+
+    /**
+     * Wait briefly (ffid.lock.upload-wait-millis) until no other upload of
+     * this kind runs for the analysis and no whole-session work holds it.
+     * A CDPOS upload also takes the CDHDR lock, because it counts its items
+     * against the headers and that count must not move underneath it.
+     * Upload workers are few, so a busy analysis must not keep one waiting
+     * for long; the caller re-queues the job instead.
+     *
+     * @return the held lock, or null if the analysis is still busy
+     */
+    public Held tryLockUpload(String analysisId, UploadKind kind) throws InterruptedException {
+        List<UploadKind> kinds = kind == UploadKind.CDPOS
+                ? List.of(UploadKind.CDHDR, UploadKind.CDPOS)
+                : List.of(kind);
+        return acquire(analysisId, kinds, "upload", TimeUnit.MILLISECONDS.toNanos(uploadWaitMillis));
+    }
+
+    /**
+     * Wait until no upload runs for the analysis and keep new ones out.
+     *
+     * @throws AnalysisBusyException if the analysis is still busy after
+     *                               ffid.lock.session-wait-seconds
+     */
+    public Held lockSession(String analysisId, String purpose) throws InterruptedException {
+        Held held = acquire(analysisId, List.of(UploadKind.values()), purpose,
+                TimeUnit.SECONDS.toNanos(sessionWaitSeconds));
+        if (held == null) {
+            throw new AnalysisBusyException("Analysis " + analysisId + " is still busy with uploads after "
+                    + sessionWaitSeconds + " seconds, please retry later");
+        }
+        return held;
+    }
+
+    /**
+     * Take the locks of all kinds in order, or none of them if they are not
+     * all free within the timeout.
+     *
+     * @return the held locks, or null on timeout
+     */
+    private Held acquire(String analysisId, List<UploadKind> kinds, String purpose, long timeoutNanos)
+            throws InterruptedException {
+        WaitStats waitStats = stats.computeIfAbsent(purpose, p -> new WaitStats());
+        List<String> held = new ArrayList<>(kinds.size());
+        long start = System.nanoTime();
+        long deadline = start + timeoutNanos;
+        boolean contended = false;
+        waitStats.waiting.incrementAndGet();
+        try {
+            for (UploadKind kind : kinds) {
+                String key = analysisId + '/' + kind;
+                ReentrantLock lock = retain(key);
+                boolean locked = lock.tryLock();
+                if (!locked) {
+                    contended = true;
+                    try {
+                        locked = lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    } catch (InterruptedException e) {
+                        release(key, false);
+                        throw e;
+                    }
+                }
+                if (!locked) {
+                    release(key, false);
+                    releaseAll(held);
+                    waitStats.record(System.nanoTime() - start, true, false);
+                    return null;
+                }
+                held.add(key);
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            releaseAll(held);
+            waitStats.record(System.nanoTime() - start, contended, false);
+            throw e;
+        } finally {
+            waitStats.waiting.decrementAndGet();
+        }
+
+        long waited = System.nanoTime() - start;
+        waitStats.record(waited, contended, true);
+        if (contended) {
+            log.info("Waited {} ms for the {} lock on analysis {}", waited / 1_000_000, purpose, analysisId);
+        }
+        return new Held(held, waitStats);
+    }
+
+    private ReentrantLock retain(String key) {
+        return locks.compute(key, (k, entry) -> {
+            LockEntry e = entry != null ? entry : new LockEntry();
+            e.users++;
+            return e;
+        }).lock;
+    }
+
+    private void release(String key, boolean unlock) {
+        locks.computeIfPresent(key, (k, entry) -> {
+            if (unlock) {
+                entry.lock.unlock();
+            }
+            return --entry.users == 0 ? null : entry;
+        });
+    }
+
+    private void releaseAll(List<String> keys) {
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            release(keys.get(i), true);
+        }
+    }
+
+    /**
+     * Wait-time counters per purpose, plus the analyses currently locked.
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> byPurpose = new TreeMap<>();
+        stats.forEach((purpose, s) -> byPurpose.put(purpose, s.toMap()));
+
+        Map<String, Integer> active = new TreeMap<>();
+        locks.forEach((key, entry) -> active.put(key, entry.users));
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("waits", byPurpose);
+        metrics.put("activeLocks", active);
+        return metrics;
+    }
+
+    /**
+     * Locks held by one caller; {@link #close()} releases them in reverse
+     * order. Must be closed on the thread that acquired them.
+     */
+    public final class Held implements AutoCloseable {
+
+        private final List<String> keys;
+        private final WaitStats waitStats;
+        private final long acquiredAt = System.nanoTime();
+        private boolean released;
+
+        private Held(List<String> keys, WaitStats waitStats) {
+            this.keys = keys;
+            this.waitStats = waitStats;
+            waitStats.holding.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            releaseAll(keys);
+            waitStats.holding.decrementAndGet();
+            waitStats.heldNanos.addAndGet(System.nanoTime() - acquiredAt);
+        }
+    }
+
+    private static final class LockEntry {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private int users;
+    }
+
+    private static final class WaitStats {
+        private final AtomicLong acquired = new AtomicLong();
+        private final AtomicLong contended = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLong heldNanos = new AtomicLong();
+        private final AtomicLong waiting = new AtomicLong();
+        private final AtomicLong holding = new AtomicLong();
+
+        void record(long nanos, boolean wasContended, boolean success) {
+            if (success) {
+                acquired.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+            if (wasContended) {
+                contended.incrementAndGet();
+            }
+            waitNanos.addAndGet(nanos);
+            maxWaitNanos.accumulate(nanos);
+        }
+
+        Map<String, Object> toMap() {
+            long count = acquired.get() + failed.get();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("acquired", acquired.get());
+            map.put("contended", contended.get());
+            map.put("failed", failed.get());
+            map.put("waitingNow", waiting.get());
+            map.put("holdingNow", holding.get());
+            map.put("totalWaitMillis", waitNanos.get() / 1_000_000);
+            map.put("avgWaitMillis", count > 0 ? Math.round(waitNanos.get() / 1e5 / count) / 10.0 : 0.0);
+            map.put("maxWaitMillis", maxWaitNanos.get() / 1_000_000);
+            map.put("totalHeldMillis", heldNanos.get() / 1_000_000);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.analysis.ffid.service;
+
+import com.analysis.ffid.dto.ChunkedUploadDTO;
+import com.analysis.ffid.ingest.ChunkedUpload;
+import com.analysis.ffid.ingest.IngestMode;
+import com.analysis.ffid.ingest.UploadJob;
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.ingest.UploadSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Receives large log files as a series of chunks (init / put chunk N /
+ * complete). Chunks are written into a sparse .part file at their offset;
+ * on completion the SHA-256 of the assembled file is checked and the file
+ * is handed to {@link UploadJobService} like any other upload.
+ *
+ * Sessions live in memory and are dropped, together with their .part file,
+ * once they have been idle for the configured time.
+ */
+@Slf4j
+@Service
+public class ChunkedUploadService {
+
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    private final UploadJobService uploadJobService;
+    private final request_detailsService requestDetailsService;
+    private final Map<String, ChunkedUpload> uploads = new ConcurrentHashMap<>();
+
+    @Value("${ffid.upload.chunk-dir:${java.io.tmpdir}/ffid-chunks}")
+    private String chunkDir;
+
+    @Value("${ffid.upload.max-chunk-size:33554432}")
+    private int maxChunkSize;
+
+    @Value("${ffid.upload.max-file-size:2147483648}")
+    private long maxFileSize;
+
+    @Value("${ffid.upload.chunk-session-minutes:1440}")
+    private long sessionMinutes;
+
+    public ChunkedUploadService(UploadJobService uploadJobService, request_detailsService requestDetailsService) {
+        this.uploadJobService = uploadJobService;
+        this.requestDetailsService = requestDetailsService;
+    }
+
+    /**
+     * Open a new chunked upload session.
+     *
+     * @throws NoSuchElementException   if the analysis ID does not exist
+     * @throws IllegalArgumentException if sizes or checksum are invalid
+     */
+    public ChunkedUpload init(UploadKind kind, String analysisId, String fileName, long totalSize,
+                              int chunkSize, String sha256, IngestMode mode) throws IOException {
+        if (analysisId == null || analysisId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Analysis ID is required");
+        }
+        if (requestDetailsService.getRequestById(analysisId).isEmpty()) {
+            throw new NoSuchElementException("Request ID not found: " + analysisId);
+        }
+        if (totalSize <= 0 || totalSize > maxFileSize) {
+            throw new IllegalArgumentException("totalSize must be between 1 and " + maxFileSize + " bytes");
+        }
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("chunkSize must be between " + MIN_CHUNK_SIZE
+                    + " and " + maxChunkSize + " bytes");
+        }
+        if (sha256 == null || !sha256.matches("(?i)[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("sha256 must be the hex SHA-256 of the whole file");
+        }
+        evictExpired();
+
+        Path dir = Paths.get(chunkDir);
+        Files.createDirectories(dir);
+
+        String id = UUID.randomUUID().toString();
+        Path partFile = dir.resolve(id + ".part");
+        Files.createFile(partFile);
+
+        ChunkedUpload upload = new ChunkedUpload(id, kind, analysisId, fileName, totalSize, chunkSize,
+                sha256.toLowerCase(), mode, partFile);
+        uploads.put(id, upload);
+
+        log.info("Opened chunked {} upload {} for analysis ID: {} ({} bytes in {} chunks)",
+                kind, id, analysisId, totalSize, upload.getTotalChunks());
+        return upload;
+    }
+
+    public Optional<ChunkedUpload> getUpload(String uploadId) {
+        return Optional.ofNullable(uploads.get(uploadId));
+    }
+
+    /**
+     * Write chunk {@code index}. Re-sending an acknowledged chunk is allowed
+     * and simply overwrites it, so a client that lost the response can retry.
+     *
+     * @throws NoSuchElementException   if the session is unknown
+     * @throws IllegalArgumentException if the index or length is wrong
+     * @throws IllegalStateException    if the upload is being completed or was aborted
+     */
+    public ChunkedUpload putChunk(String uploadId, int index, InputStream body) throws IOException {
+        ChunkedUpload upload = require(uploadId);
+        if (index < 0 || index >= upload.getTotalChunks()) {
+            throw new IllegalArgumentException("Chunk index must be between 0 and " + (upload.getTotalChunks() - 1));
+        }
+        if (!upload.beginWrite()) {
+            throw new IllegalStateException("Upload " + uploadId + " is being completed or was aborted");
+        }
+        try {
+            writeChunk(upload, index, body);
+        } finally {
+            upload.endWrite();
+        }
+        log.debug("Upload {}: chunk {}/{} received", uploadId, index + 1, upload.getTotalChunks());
+        return upload;
+    }
+
+    private void writeChunk(ChunkedUpload upload, int index, InputStream body) throws IOException {
+        long expected = upload.lengthOf(index);
+        long position = upload.offsetOf(index);
+        long written = 0;
+        byte[] buffer = new byte[64 * 1024];
+
+        try (FileChannel channel = FileChannel.open(upload.getPartFile(), StandardOpenOption.WRITE)) {
+            int n;
+            while ((n = body.read(buffer)) != -1) {
+                if (written + n > expected) {
+                    throw new IllegalArgumentException("Chunk " + index + " is larger than " + expected + " bytes");
+                }
+                ByteBuffer bb = ByteBuffer.wrap(buffer, 0, n);
+                while (bb.hasRemaining()) {
+                    position += channel.write(bb, position);
+                }
+                written += n;
+            }
+        }
+
+        if (written != expected) {
+            throw new IllegalArgumentException("Chunk " + index + " has " + written
+                    + " bytes, expected " + expected);
+        }
+
+        upload.markReceived(index);
+    }
+
+    /**
+     * Verify the assembled file and queue it for ingestion.
+     *
+     * @throws IllegalStateException if chunks are missing or the checksum does not match
+     * @throws org.springframework.core.task.TaskRejectedException if the upload queue is full;
+     *         the session is kept so complete can be retried
+     */
+    public UploadJob complete(String uploadId) throws IOException {
+        ChunkedUpload upload = require(uploadId);
+        if (!upload.isComplete()) {
+            throw new IllegalStateException("Upload " + uploadId + " is missing chunks, next expected chunk is "
+                    + upload.getNextChunk());
+        }
+        if (!upload.startCompleting()) {
+            throw new IllegalStateException("Upload " + uploadId
+                    + " is already being completed or still has chunks being written, retry once they finish");
+        }
+
+        try {
+            String actual = UploadSource.of(upload.getPartFile(), upload.getFileName()).sha256();
+            if (!actual.equals(upload.getSha256())) {
+                throw new IllegalStateException("Checksum mismatch for upload " + uploadId
+                        + ": expected " + upload.getSha256() + ", got " + actual);
+            }
+        } catch (IOException | RuntimeException e) {
+            upload.abortCompleting();
+            throw e;
+        }
+
+        UploadJob job;
+        try {
+            job = uploadJobService.submit(upload.getKind(), upload.getAnalysisId(),
+                    UploadSource.adopt(upload.getPartFile(), upload.getFileName()), upload.getMode());
+        } catch (RuntimeException e) {
+            // e.g. queue full: keep the session so the client can retry complete
+            upload.abortCompleting();
+            throw e;
+        }
+        // the job owns the file now
+        uploads.remove(uploadId);
+
+        log.info("Chunked upload {} assembled ({} bytes), queued as job {}",
+                uploadId, upload.getTotalSize(), job.getId());
+        return job;
+    }
+
+    /**
+     * Drop a session and its partial file.
+     *
+     * @throws IllegalStateException if the upload is being completed
+     */
+    public boolean abort(String uploadId) throws IOException {
+        ChunkedUpload upload = uploads.get(uploadId);
+        if (upload == null) {
+            return false;
+        }
+        if (!upload.startAborting()) {
+            throw new IllegalStateException("Upload " + uploadId + " is being completed and cannot be aborted");
+        }
+        uploads.remove(uploadId, upload);
+        Files.deleteIfExists(upload.getPartFile());
+        log.info("Aborted chunked upload {}", uploadId);
+        return true;
+    }
+
+    public ChunkedUploadDTO toDTO(ChunkedUpload upload) {
+        return ChunkedUploadDTO.builder()
+                .uploadId(upload.getId())
+                .kind(upload.getKind().name())
+                .analysisId(upload.getAnalysisId())
+                .fileName(upload.getFileName())
+                .totalSize(upload.getTotalSize())
+                .chunkSize(upload.getChunkSize())
+                .totalChunks(upload.getTotalChunks())
+                .receivedChunks(upload.getReceivedChunks())
+                .nextChunk(upload.getNextChunk())
+                .complete(upload.isComplete())
+                .createdAt(upload.getCreatedAt().toString())
+                .lastActivity(upload.getLastActivity().toString())
+                .build();
+    }
+
+    private ChunkedUpload require(String uploadId) {
+        return getUpload(uploadId)
+                .orElseThrow(() -> new NoSuchElementException("Upload session not found: " + uploadId));
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(sessionMinutes));
+        uploads.values().removeIf(upload -> {
+            if (upload.getLastActivity().isAfter(cutoff) || !upload.startAborting()) {
+                return false;
+            }
+            try {
+                Files.deleteIfExists(upload.getPartFile());
+            } catch (IOException e) {
+                log.warn("Could not delete expired chunk file {}", upload.getPartFile(), e);
+            }
+            log.info("Expired idle chunked upload {}", upload.getId());
+            return true;
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.analysis.ffid.service;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output formats of the session log export.
+ */
+public enum ExportFormat {
+    /** One JSON object per line. */
+    NDJSON("ndjson", new MediaType("application", "x-ndjson", StandardCharsets.UTF_8)),
+    /** Comma-separated with a header row; text values quoted. */
+    CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8));
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    ExportFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Parse a request parameter; blank means NDJSON.
+     */
+    public static ExportFormat from(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return NDJSON;
+        }
+        try {
+            return ExportFormat.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown export format: " + value + " (expected ndjson or csv)");
+        }
+    }
+}
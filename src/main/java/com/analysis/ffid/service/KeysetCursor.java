@@ -0,0 +1,79 @@
+package com.analysis.ffid.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by (event_time, id[, item id]), rows without
+ * event_time last. Travels to the client as an opaque URL-safe string.
+ */
+final class KeysetCursor {
+
+    /** Before every real event_time, so the first page needs no special query. */
+    private static final LocalDateTime START_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+
+    private static final KeysetCursor START = new KeysetCursor(START_TIME, 0, 0);
+
+    private final LocalDateTime time;
+    private final long id;
+    private final long itemId;
+
+    private KeysetCursor(LocalDateTime time, long id, long itemId) {
+        this.time = time;
+        this.id = id;
+        this.itemId = itemId;
+    }
+
+    /**
+     * The cursor after a row; {@code time} null for a row without event_time.
+     */
+    static KeysetCursor after(LocalDateTime time, long id, Long itemId) {
+        return new KeysetCursor(time, id, itemId != null ? itemId : 0);
+    }
+
+    /**
+     * Decode a cursor from a previous page; null or blank means the start.
+     *
+     * @throws IllegalArgumentException if the text is not a cursor
+     */
+    static KeysetCursor decode(String text) {
+        if (text == null || text.isBlank()) {
+            return START;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(text), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("wrong number of parts");
+            }
+            LocalDateTime time = parts[0].isEmpty() ? null : LocalDateTime.parse(parts[0]);
+            return new KeysetCursor(time, Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + text);
+        }
+    }
+
+    String encode() {
+        String text = (time != null ? time.toString() : "") + "|" + id + "|" + itemId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Whether the position is already past all timed rows.
+     */
+    boolean isUntimed() {
+        return time == null;
+    }
+
+    LocalDateTime getTime() {
+        return time;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    long getItemId() {
+        return itemId;
+    }
+}
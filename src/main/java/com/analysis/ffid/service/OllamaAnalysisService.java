@@ -28,6 +28,10 @@ public class OllamaAnalysisService {
     private final ObjectMapper objectMapper;
     private final request_detailsRepository requestDetailsRepository;
     private final analysis_resultRepository analysisResultRepository;
+    private final cdhdrRepository cdhdrRepository;
+    private final sm20Repository sm20Repository;
+    private final transaction_usageRepository transactionUsageRepository;
+    private final AnalysisLockService lockService;
 
     @Value("${ollama.api.url:http://localhost:11434/api/generate}")
     private String ollamaApiUrl;
@@ -41,11 +45,19 @@ public class OllamaAnalysisService {
             RestTemplate restTemplate,
             ObjectMapper objectMapper,
             request_detailsRepository requestDetailsRepository,
-            analysis_resultRepository analysisResultRepository) {
+            analysis_resultRepository analysisResultRepository,
+            cdhdrRepository cdhdrRepository,
+            sm20Repository sm20Repository,
+            transaction_usageRepository transactionUsageRepository,
+            AnalysisLockService lockService) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
         this.requestDetailsRepository = requestDetailsRepository;
         this.analysisResultRepository = analysisResultRepository;
+        this.cdhdrRepository = cdhdrRepository;
+        this.sm20Repository = sm20Repository;
+        this.transactionUsageRepository = transactionUsageRepository;
+        this.lockService = lockService;
     }
 
     @Transactional
@@ -53,11 +65,16 @@ public class OllamaAnalysisService {
         log.info("Starting analysis for analysis_id: {}", analysisId);
 
 
-        request_details requestDetails = requestDetailsRepository.findByIdWithRelations(analysisId)
+        request_details requestDetails = requestDetailsRepository.findById(analysisId)
                 .orElseThrow(() -> new RuntimeException("Analysis ID not found: " + analysisId));
 
 
-        String prompt = buildAnalysisPrompt(requestDetails);
+        // Wait for running uploads of the session and keep new ones out only
+        // while the input is read; the model call works on that snapshot
+        String prompt;
+        try (AnalysisLockService.Held ignored = lockService.lockSession(analysisId, "analysis")) {
+            prompt = buildAnalysisPrompt(requestDetails);
+        }
 
         log.info("Generated prompt for Ollama: {}", prompt);
 
@@ -94,12 +111,13 @@ public class OllamaAnalysisService {
         requestDetailsMap.put("activities", requestDetails.getActivities_to_be_performed());
 
 
-        List<Map<String, String>> sm20Summary = new ArrayList<>();
-        if (requestDetails.getSm20Entries() != null) {
-            sm20Summary = requestDetails.getSm20Entries().stream()
+        // Each log is read with its own grouped query rather than by fetching
+        // the collections, so the work grows with the number of distinct
+        // activities instead of the product of the log sizes.
+        List<Map<String, String>> sm20Summary = sm20Repository.findDistinctActivity(requestDetails).stream()
                     .filter(sm20 -> {
-                        String sourceTA = sm20.getSourceTA() != null ? sm20.getSourceTA().trim() : "";
-                        String auditMsg = sm20.getAuditLogMsgText() != null ? sm20.getAuditLogMsgText().trim() : "";
+                        String sourceTA = sm20.getSourceTa() != null ? sm20.getSourceTa().trim() : "";
+                        String auditMsg = sm20.getMessage() != null ? sm20.getMessage().trim() : "";
                         String auditMsgLower = auditMsg.toLowerCase();
 
 
@@ -130,20 +148,18 @@ public class OllamaAnalysisService {
                     })
                     .map(sm20 -> {
                         Map<String, String> entry = new HashMap<>();
-                        entry.put("transaction", sm20.getSourceTA() != null ? sm20.getSourceTA() : "");
+                        entry.put("transaction", sm20.getSourceTa() != null ? sm20.getSourceTa() : "");
                         entry.put("program", sm20.getProgram() != null ? sm20.getProgram() : "");
-                        entry.put("audit_msg", sm20.getAuditLogMsgText() != null ? sm20.getAuditLogMsgText() : "");
+                        entry.put("audit_msg", sm20.getMessage() != null ? sm20.getMessage() : "");
                         return entry;
                     })
                     .distinct()
                     .collect(Collectors.toList());
-        }
 
 
 
-        List<Map<String, String>> transactionUsageSummary = new ArrayList<>();
-        if (requestDetails.getTransactionUsages() != null) {
-            transactionUsageSummary = requestDetails.getTransactionUsages().stream()
+        List<Map<String, String>> transactionUsageSummary =
+                transactionUsageRepository.findDistinctActivity(requestDetails).stream()
                     .map(transaction_usage -> {
                         Map<String, String> entry = new HashMap<>();
                         entry.put("transaction", transaction_usage.getTcode() != null ?transaction_usage.getTcode() : "");
@@ -152,24 +168,20 @@ public class OllamaAnalysisService {
                     })
                     .distinct()
                     .collect(Collectors.toList());
-        }
 
         List<String> allUniqueExecutedTCodes = extractUniqueTCodes(sm20Summary, transactionUsageSummary);
 
-        List<Map<String, String>> cdposSummary = new ArrayList<>();
-        if (requestDetails.getCdhdrEntries() != null) {
-            cdposSummary = requestDetails.getCdhdrEntries().stream()
-                    .map(cdpos -> {
-                        Map<String, String> entry = new HashMap<>();
-                        entry.put("object", cdpos.getObject() != null ? cdpos.getObject() : "");
-                        entry.put("object_value", cdpos.getObjectValue() != null ? cdpos.getObjectValue() : "");
-                        entry.put("table", cdpos.getTableName() != null ? cdpos.getTableName() : "");
-                        entry.put("field", cdpos.getFieldName() != null ? cdpos.getFieldName() : "");
-                        return entry;
-                    })
-                    .distinct()
-                    .collect(Collectors.toList());
-        }
+        List<Map<String, String>> cdposSummary = cdhdrRepository.findDistinctChangeActivity(requestDetails).stream()
+                .map(cdpos -> {
+                    Map<String, String> entry = new HashMap<>();
+                    entry.put("object", cdpos.getObject() != null ? cdpos.getObject() : "");
+                    entry.put("object_value", cdpos.getObjectValue() != null ? cdpos.getObjectValue() : "");
+                    entry.put("table", cdpos.getTableName() != null ? cdpos.getTableName() : "");
+                    entry.put("field", cdpos.getFieldName() != null ? cdpos.getFieldName() : "");
+                    return entry;
+                })
+                .distinct()
+                .collect(Collectors.toList());
 
         Map<String, Object> inputData = new HashMap<>();
         inputData.put("request_details", requestDetailsMap);
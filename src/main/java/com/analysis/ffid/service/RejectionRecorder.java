@@ -0,0 +1,112 @@
+package com.analysis.ffid.service;
+
+import com.analysis.ffid.ingest.SheetRow;
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.ingest.UploadProgress;
+import com.analysis.ffid.model.request_details;
+import com.analysis.ffid.model.upload_rejection;
+import com.analysis.ffid.repository.upload_rejectionRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rejected rows of one upload. Counts every rejection in the upload's
+ * progress and saves the first few thousand (in small batches, each in
+ * its own transaction) so a report is available even if the upload later
+ * fails.
+ */
+@Slf4j
+public class RejectionRecorder implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final upload_rejectionRepository rejectionRepo;
+    private final request_details request;
+    private final UploadKind kind;
+    private final String fileName;
+    private final UploadProgress progress;
+    private final int maxStored;
+    private final List<upload_rejection> pending = new ArrayList<>();
+    private int stored;
+
+    RejectionRecorder(upload_rejectionRepository rejectionRepo, request_details request, UploadKind kind,
+                      String fileName, UploadProgress progress, int maxStored) {
+        this.rejectionRepo = rejectionRepo;
+        this.request = request;
+        this.kind = kind;
+        this.fileName = fileName;
+        this.progress = progress;
+        this.maxStored = maxStored;
+    }
+
+    /**
+     * Reject a parsed row; the report shows its cell values.
+     */
+    public void reject(SheetRow row, String reason) {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < row.getCellCount(); i++) {
+            if (i > 0) {
+                values.append('\t');
+            }
+            values.append(row.getCellValue(i));
+        }
+        reject(row.getRowNum() + 1, reason, values.toString());
+    }
+
+    /**
+     * Reject a row by number (one-based; null if unknown).
+     */
+    public void reject(Integer rowNumber, String reason, String values) {
+        progress.rowRejected();
+        if (stored >= maxStored) {
+            return;
+        }
+        stored++;
+        pending.add(upload_rejection.builder()
+                .uploadId(progress.getUploadId())
+                .requestDetails(request)
+                .kind(kind)
+                .fileName(fileName)
+                .rowNumber(rowNumber)
+                .reason(reason)
+                .rowValues(values)
+                .rejectedAt(LocalDateTime.now())
+                .build());
+        if (pending.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Message of the innermost cause, which is usually the one that names
+     * the offending value or column.
+     */
+    public static String reasonOf(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        String message = cause.getMessage();
+        return message != null ? message : cause.getClass().getSimpleName();
+    }
+
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        rejectionRepo.saveAll(pending);
+        pending.clear();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        if (stored < progress.getRowsRejected()) {
+            log.warn("Upload {} rejected {} rows; only the first {} are in the report",
+                    progress.getUploadId(), progress.getRowsRejected(), stored);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.analysis.ffid.service;
+
+import com.analysis.ffid.dto.UploadJobDTO;
+import com.analysis.ffid.ingest.IngestMode;
+import com.analysis.ffid.ingest.UploadBundle;
+import com.analysis.ffid.ingest.UploadJob;
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.ingest.UploadSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingests all log files of a firefighter session in one call.
+ *
+ * SM20, transaction usage and CDHDR are queued at once; CDPOS is queued
+ * only after CDHDR has succeeded, since its items are merged onto the
+ * CDHDR headers. Each file runs as a normal upload job, so it also shows
+ * up under /api/jobs/{id}.
+ */
+@Slf4j
+@Service
+public class SessionBundleService {
+
+    private final UploadJobService uploadJobService;
+    private final request_detailsService requestDetailsService;
+
+    @Value("${ffid.upload.bundle-timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    public SessionBundleService(UploadJobService uploadJobService, request_detailsService requestDetailsService) {
+        this.uploadJobService = uploadJobService;
+        this.requestDetailsService = requestDetailsService;
+    }
+
+    /**
+     * Queue every file of the bundle. The returned future completes with
+     * the per-file results once all of them are done, or with the state so
+     * far ("complete": false) after the configured timeout; no thread
+     * waits in between. The bundle is closed on return.
+     *
+     * @throws NoSuchElementException   if the analysis ID does not exist
+     * @throws IllegalArgumentException if the bundle has no recognised files
+     */
+    public CompletableFuture<Map<String, Object>> ingest(String analysisId, UploadBundle bundle, IngestMode mode)
+            throws IOException {
+        try (bundle) {
+            if (requestDetailsService.getRequestById(analysisId).isEmpty()) {
+                throw new NoSuchElementException("Request ID not found: " + analysisId);
+            }
+            if (bundle.isEmpty()) {
+                throw new IllegalArgumentException(
+                        "Bundle contains no SM20, transaction, CDHDR or CDPOS file");
+            }
+
+            long start = System.nanoTime();
+            Map<UploadKind, UploadJob> jobs = new EnumMap<>(UploadKind.class);
+            Map<UploadKind, CompletableFuture<UploadJob>> futures = new EnumMap<>(UploadKind.class);
+
+            for (UploadKind kind : new UploadKind[]{UploadKind.SM20, UploadKind.TRANSACTION, UploadKind.CDHDR}) {
+                if (bundle.contains(kind)) {
+                    futures.put(kind, submit(kind, analysisId, bundle.take(kind), mode, jobs));
+                }
+            }
+
+            if (bundle.contains(UploadKind.CDPOS)) {
+                UploadSource cdpos = bundle.take(UploadKind.CDPOS);
+                CompletableFuture<UploadJob> cdhdr = futures.get(UploadKind.CDHDR);
+
+                if (cdhdr == null) {
+                    futures.put(UploadKind.CDPOS, submit(UploadKind.CDPOS, analysisId, cdpos, mode, jobs));
+                } else {
+                    futures.put(UploadKind.CDPOS, cdhdr
+                            .handle((job, error) -> {
+                                if (error == null && job.getState() == UploadJob.State.SUCCEEDED) {
+                                    return submit(UploadKind.CDPOS, analysisId, cdpos, mode, jobs);
+                                }
+                                closeQuietly(cdpos);
+                                return CompletableFuture.<UploadJob>failedFuture(
+                                        new IllegalStateException("Skipped because the CDHDR upload failed"));
+                            })
+                            .thenCompose(f -> f));
+                }
+            }
+
+            // individual failures are reported per file by summarize
+            return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                    .handle((done, error) -> true)
+                    .completeOnTimeout(false, timeoutMinutes, TimeUnit.MINUTES)
+                    .thenApply(complete -> {
+                        if (!complete) {
+                            log.warn("Bundle for analysis ID {} still running after {} minutes",
+                                    analysisId, timeoutMinutes);
+                        }
+                        return summarize(analysisId, futures, jobs, complete, start);
+                    });
+        }
+    }
+
+    private CompletableFuture<UploadJob> submit(UploadKind kind, String analysisId, UploadSource source,
+                                                IngestMode mode, Map<UploadKind, UploadJob> jobs) {
+        try {
+            UploadJob job = uploadJobService.submit(kind, analysisId, source, mode);
+            synchronized (jobs) {
+                jobs.put(kind, job);
+            }
+            return job.whenFinished();
+        } catch (Exception e) {
+            closeQuietly(source);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Map<String, Object> summarize(String analysisId, Map<UploadKind, CompletableFuture<UploadJob>> futures,
+                                          Map<UploadKind, UploadJob> jobs, boolean complete, long start) {
+        Map<String, UploadJobDTO> files = new LinkedHashMap<>();
+        boolean allSucceeded = complete;
+        long sumMillis = 0;
+
+        for (Map.Entry<UploadKind, CompletableFuture<UploadJob>> entry : futures.entrySet()) {
+            UploadKind kind = entry.getKey();
+            UploadJob job;
+            synchronized (jobs) {
+                job = jobs.get(kind);
+            }
+
+            UploadJobDTO dto;
+            if (job != null) {
+                dto = uploadJobService.toDTO(job);
+                sumMillis += dto.getElapsedMillis();
+            } else {
+                Throwable cause = entry.getValue().handle((j, e) -> e).getNow(null);
+                if (cause instanceof CompletionException && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                dto = UploadJobDTO.builder()
+                        .kind(kind.name())
+                        .analysisId(analysisId)
+                        .state(cause != null ? "NOT_RUN" : "PENDING")
+                        .error(cause != null ? cause.getMessage() : null)
+                        .build();
+            }
+            if (!UploadJob.State.SUCCEEDED.name().equals(dto.getState())) {
+                allSucceeded = false;
+            }
+            files.put(kind.name(), dto);
+        }
+
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Bundle for analysis ID {} finished in {} ms (sum of files {} ms), all succeeded: {}",
+                analysisId, wallMillis, sumMillis, allSucceeded);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", allSucceeded);
+        result.put("complete", complete);
+        result.put("analysisId", analysisId);
+        result.put("files", files);
+        result.put("wallMillis", wallMillis);
+        result.put("sumOfFileMillis", sumMillis);
+        result.put("timestamp", System.currentTimeMillis());
+        return result;
+    }
+
+    private static void closeQuietly(UploadSource source) {
+        try {
+            source.close();
+        } catch (IOException e) {
+            log.warn("Could not delete spooled file {}", source.getPath(), e);
+        }
+    }
+}
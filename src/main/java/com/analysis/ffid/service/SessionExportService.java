@@ -0,0 +1,532 @@
+package com.analysis.ffid.service;
+
+import com.analysis.ffid.model.analysis_result;
+import com.analysis.ffid.model.request_details;
+import com.analysis.ffid.model.sm20;
+import com.analysis.ffid.model.transaction_usage;
+import com.analysis.ffid.repository.ChangeDocumentExportRow;
+import com.analysis.ffid.repository.analysis_resultRepository;
+import com.analysis.ffid.repository.cdhdrRepository;
+import com.analysis.ffid.repository.request_detailsRepository;
+import com.analysis.ffid.repository.sm20Repository;
+import com.analysis.ffid.repository.transaction_usageRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Full session logs as NDJSON or CSV, and the whole session as an XLSX
+ * report. Rows are read through a database
+ * cursor (see the stream* repository queries) and written straight to the
+ * response, so memory use does not depend on the size of the log.
+ */
+@Slf4j
+@Service
+public class SessionExportService {
+
+    /** Entities are detached this often so the persistence context stays small. */
+    private static final int CLEAR_INTERVAL = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final List<Field<sm20>> AUDIT_LOG_FIELDS = List.of(
+            new Field<>("entryId", sm20::getEntryId),
+            new Field<>("eventTime", s -> s.getEventTime()),
+            new Field<>("sapSystem", sm20::getSapSystem),
+            new Field<>("asInstance", sm20::getAsInstance),
+            new Field<>("date", sm20::getEntrydate),
+            new Field<>("time", sm20::getEntrytime),
+            new Field<>("client", sm20::getClient),
+            new Field<>("event", sm20::getEvent),
+            new Field<>("username", sm20::getUsername),
+            new Field<>("groupname", sm20::getGroupname),
+            new Field<>("terminal", sm20::getTerminal),
+            new Field<>("peer", sm20::getPeer),
+            new Field<>("sourceTA", sm20::getSourceTA),
+            new Field<>("program", sm20::getProgram),
+            new Field<>("auditLogMsgText", sm20::getAuditLogMsgText),
+            new Field<>("note", sm20::getNote),
+            new Field<>("variableMessageData", sm20::getVariableMessageData),
+            new Field<>("variable2", sm20::getVariable2),
+            new Field<>("variableData", sm20::getVariableData));
+
+    private static final List<Field<transaction_usage>> TRANSACTION_USAGE_FIELDS = List.of(
+            new Field<>("id", transaction_usage::getT_id),
+            new Field<>("time", transaction_usage::getTime),
+            new Field<>("tcode", transaction_usage::getTcode),
+            new Field<>("program", transaction_usage::getProgram));
+
+    private static final List<Field<ChangeDocumentExportRow>> CHANGE_DOC_FIELDS = List.of(
+            new Field<>("headerId", ChangeDocumentExportRow::getHeaderId),
+            new Field<>("itemId", ChangeDocumentExportRow::getItemId),
+            new Field<>("eventTime", r -> r.getEventTime()),
+            new Field<>("date", ChangeDocumentExportRow::getEntryDate),
+            new Field<>("time", ChangeDocumentExportRow::getEntryTime),
+            new Field<>("docNumber", ChangeDocumentExportRow::getDocNumber),
+            new Field<>("username", ChangeDocumentExportRow::getUsername),
+            new Field<>("tcode", ChangeDocumentExportRow::getTcode),
+            new Field<>("object", ChangeDocumentExportRow::getObject),
+            new Field<>("objectValue", ChangeDocumentExportRow::getObjectValue),
+            new Field<>("tableName", ChangeDocumentExportRow::getTableName),
+            new Field<>("tableKey", ChangeDocumentExportRow::getTableKey),
+            new Field<>("fieldName", ChangeDocumentExportRow::getFieldName),
+            new Field<>("changeId", ChangeDocumentExportRow::getChangeId),
+            new Field<>("oldValue", ChangeDocumentExportRow::getOldValue),
+            new Field<>("newValue", ChangeDocumentExportRow::getNewValue));
+
+    private static final List<Field<request_details>> REQUEST_FIELDS = List.of(
+            new Field<>("analysisId", request_details::getAnalysisID),
+            new Field<>("itsmNumber", request_details::getItsmNumber),
+            new Field<>("client", request_details::getClient),
+            new Field<>("system", request_details::getSystem),
+            new Field<>("requestedFor", request_details::getRequestedFor),
+            new Field<>("requestedOnBehalfOf", request_details::getRequested_on_behalfof),
+            new Field<>("requestedDate", request_details::getRequestedDate),
+            new Field<>("usedDate", request_details::getUsedDate),
+            new Field<>("tcodes", request_details::getTcodes),
+            new Field<>("reason", request_details::getReason),
+            new Field<>("activitiesToBePerformed", request_details::getActivities_to_be_performed));
+
+    private static final List<Field<analysis_result>> INSIGHT_FIELDS = List.of(
+            new Field<>("resultId", analysis_result::getResultID),
+            new Field<>("analyzedTime", analysis_result::getAnalyzedTime),
+            new Field<>("riskScore", analysis_result::getRisk_score),
+            new Field<>("activityAlignment", analysis_result::getActivityAlignment),
+            new Field<>("ownership", analysis_result::getOwnership),
+            new Field<>("justification", analysis_result::getJustification),
+            new Field<>("keyInsight", analysis_result::getKeyInsight),
+            new Field<>("redFlags", analysis_result::getRed_flags),
+            new Field<>("recommendations", analysis_result::getRecommendations));
+
+    private static final MediaType XLSX =
+            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final request_detailsRepository requestRepo;
+    private final sm20Repository sm20Repo;
+    private final transaction_usageRepository transactionRepo;
+    private final cdhdrRepository cdhdrRepo;
+    private final analysis_resultRepository analysisResultRepo;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnly;
+    private final int reportRowWindow;
+
+    public SessionExportService(request_detailsRepository requestRepo, sm20Repository sm20Repo,
+                                transaction_usageRepository transactionRepo, cdhdrRepository cdhdrRepo,
+                                analysis_resultRepository analysisResultRepo,
+                                EntityManager entityManager, ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${ffid.report.row-window:500}") int reportRowWindow) {
+        this.requestRepo = requestRepo;
+        this.sm20Repo = sm20Repo;
+        this.transactionRepo = transactionRepo;
+        this.cdhdrRepo = cdhdrRepo;
+        this.analysisResultRepo = analysisResultRepo;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.reportRowWindow = reportRowWindow;
+    }
+
+    /**
+     * The logs that can be exported, by their path segment.
+     */
+    public enum Log {
+        AUDIT_LOGS("audit-logs"),
+        TRANSACTION_USAGE("transaction-usage"),
+        CHANGE_DOCS("change-docs");
+
+        private final String path;
+
+        Log(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public static Log from(String value) {
+            for (Log kind : values()) {
+                if (kind.path.equalsIgnoreCase(value)) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Unknown log: " + value
+                    + " (expected audit-logs, transaction-usage or change-docs)");
+        }
+    }
+
+    /**
+     * A checked export, ready to be written to a response.
+     */
+    public interface Export {
+
+        String getFileName();
+
+        MediaType getMediaType();
+
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Check the request, log and format up front so the caller can answer
+     * 404/400 before the response is committed; nothing is read yet.
+     *
+     * @throws NoSuchElementException if the request does not exist
+     * @throws IllegalArgumentException if the log or format is unknown
+     */
+    public Export prepare(String analysisId, String logName, String formatName) {
+        Log kind = Log.from(logName);
+        ExportFormat format = ExportFormat.from(formatName);
+        request_details request = requestRepo.findById(analysisId)
+                .orElseThrow(() -> new NoSuchElementException("Request not found: " + analysisId));
+
+        return switch (kind) {
+            case AUDIT_LOGS -> export(analysisId, kind, format, AUDIT_LOG_FIELDS,
+                    () -> sm20Repo.streamByRequestDetails(request));
+            case TRANSACTION_USAGE -> export(analysisId, kind, format, TRANSACTION_USAGE_FIELDS,
+                    () -> transactionRepo.streamByRequestDetails(request));
+            case CHANGE_DOCS -> export(analysisId, kind, format, CHANGE_DOC_FIELDS,
+                    () -> cdhdrRepo.streamChangeDocuments(request));
+        };
+    }
+
+    private <T> Export export(String analysisId, Log kind, ExportFormat format, List<Field<T>> fields,
+                              Supplier<Stream<T>> rows) {
+        String fileName = analysisId + "-" + kind.getPath() + "." + format.getExtension();
+        return new Export() {
+            @Override
+            public String getFileName() {
+                return fileName;
+            }
+
+            @Override
+            public MediaType getMediaType() {
+                return format.getMediaType();
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                long start = System.currentTimeMillis();
+                OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+                RowWriter<T> writer = format == ExportFormat.CSV
+                        ? new CsvRowWriter<>(buffered, fields)
+                        : new NdjsonRowWriter<>(buffered, fields);
+                Long written;
+                try {
+                    written = readOnly.execute(status -> copy(rows, writer));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                writer.finish();
+                log.info("Exported {} {} rows of {} as {} in {} ms", written, kind.getPath(),
+                        analysisId, format, System.currentTimeMillis() - start);
+            }
+        };
+    }
+
+    /**
+     * The whole session as one workbook: request, AI insights, SM20,
+     * transaction usage and change documents, one sheet each. Rows go
+     * through an SXSSF window and are spilled to compressed temp files,
+     * so heap use does not depend on the size of the session.
+     *
+     * @throws NoSuchElementException if the request does not exist
+     */
+    public Export prepareReport(String analysisId) {
+        request_details request = requestRepo.findById(analysisId)
+                .orElseThrow(() -> new NoSuchElementException("Request not found: " + analysisId));
+        String fileName = analysisId + "-report.xlsx";
+        return new Export() {
+            @Override
+            public String getFileName() {
+                return fileName;
+            }
+
+            @Override
+            public MediaType getMediaType() {
+                return XLSX;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                long start = System.currentTimeMillis();
+                SXSSFWorkbook workbook = new SXSSFWorkbook(reportRowWindow);
+                workbook.setCompressTempFiles(true);
+                try {
+                    SheetStyles styles = new SheetStyles(workbook);
+                    writeRequestSheet(workbook, styles, request);
+                    long[] counts;
+                    try {
+                        counts = readOnly.execute(status -> new long[]{
+                                copy(() -> analysisResultRepo.findByRequestDetails(request).stream(),
+                                        new SheetRowWriter<>(workbook, "AI insights", INSIGHT_FIELDS, styles)),
+                                copy(() -> sm20Repo.streamByRequestDetails(request),
+                                        new SheetRowWriter<>(workbook, "SM20", AUDIT_LOG_FIELDS, styles)),
+                                copy(() -> transactionRepo.streamByRequestDetails(request),
+                                        new SheetRowWriter<>(workbook, "Transaction usage",
+                                                TRANSACTION_USAGE_FIELDS, styles)),
+                                copy(() -> cdhdrRepo.streamChangeDocuments(request),
+                                        new SheetRowWriter<>(workbook, "Change documents", CHANGE_DOC_FIELDS, styles))
+                        });
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    }
+                    OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+                    workbook.write(buffered);
+                    buffered.flush();
+                    log.info("Wrote report of {} ({} insights, {} SM20, {} transaction, {} change document rows) in {} ms",
+                            analysisId, counts[0], counts[1], counts[2], counts[3],
+                            System.currentTimeMillis() - start);
+                } finally {
+                    workbook.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Write every row of the stream; call inside a transaction. I/O errors
+     * are wrapped so they can leave the transaction callback.
+     */
+    private <T> long copy(Supplier<Stream<T>> rows, RowWriter<T> writer) {
+        long count = 0;
+        try (Stream<T> stream = rows.get()) {
+            for (T row : (Iterable<T>) stream::iterator) {
+                writer.write(row);
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    private static void writeRequestSheet(SXSSFWorkbook workbook, SheetStyles styles, request_details request) {
+        Sheet sheet = workbook.createSheet("Request");
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("Field");
+        header.createCell(1).setCellValue("Value");
+        header.getCell(0).setCellStyle(styles.header);
+        header.getCell(1).setCellStyle(styles.header);
+        int index = 1;
+        for (Field<request_details> field : REQUEST_FIELDS) {
+            Row row = sheet.createRow(index++);
+            SheetRowWriter.cell(row, 0, field.name(), styles);
+            SheetRowWriter.cell(row, 1, field.value().apply(request), styles);
+        }
+        sheet.setColumnWidth(0, 28 * 256);
+        sheet.setColumnWidth(1, 80 * 256);
+    }
+
+    private record Field<T>(String name, Function<T, Object> value) {
+    }
+
+    private static class SheetStyles {
+
+        private final CellStyle header;
+        private final CellStyle dateTime;
+
+        SheetStyles(Workbook workbook) {
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            header = workbook.createCellStyle();
+            header.setFont(bold);
+            dateTime = workbook.createCellStyle();
+            dateTime.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+        }
+    }
+
+    /**
+     * One sheet with a frozen header row. A log longer than an XLSX sheet
+     * allows continues on "name (2)", "name (3)" and so on.
+     */
+    private static class SheetRowWriter<T> implements RowWriter<T> {
+
+        private static final int LAST_ROW = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+        private static final int MAX_TEXT = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+        private final SXSSFWorkbook workbook;
+        private final String name;
+        private final List<Field<T>> fields;
+        private final SheetStyles styles;
+        private Sheet sheet;
+        private int sheets;
+        private int rowIndex;
+
+        SheetRowWriter(SXSSFWorkbook workbook, String name, List<Field<T>> fields, SheetStyles styles) {
+            this.workbook = workbook;
+            this.name = name;
+            this.fields = fields;
+            this.styles = styles;
+            nextSheet();
+        }
+
+        private void nextSheet() {
+            sheets++;
+            sheet = workbook.createSheet(sheets == 1 ? name : name + " (" + sheets + ")");
+            sheet.createFreezePane(0, 1);
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < fields.size(); i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellValue(fields.get(i).name());
+                cell.setCellStyle(styles.header);
+            }
+            rowIndex = 1;
+        }
+
+        @Override
+        public void write(T row) {
+            if (rowIndex > LAST_ROW) {
+                nextSheet();
+            }
+            Row sheetRow = sheet.createRow(rowIndex++);
+            for (int i = 0; i < fields.size(); i++) {
+                cell(sheetRow, i, fields.get(i).value().apply(row), styles);
+            }
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        static void cell(Row row, int column, Object value, SheetStyles styles) {
+            if (value == null) {
+                return;
+            }
+            Cell cell = row.createCell(column);
+            if (value instanceof Number number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value instanceof LocalDateTime time) {
+                cell.setCellValue(time);
+                cell.setCellStyle(styles.dateTime);
+            } else {
+                String text = value.toString();
+                cell.setCellValue(text.length() > MAX_TEXT ? text.substring(0, MAX_TEXT) : text);
+            }
+        }
+    }
+
+    private interface RowWriter<T> {
+
+        void write(T row) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * One JSON object per line; no pretty printing.
+     */
+    private class NdjsonRowWriter<T> implements RowWriter<T> {
+
+        private final List<Field<T>> fields;
+        private final JsonGenerator json;
+
+        NdjsonRowWriter(OutputStream out, List<Field<T>> fields) throws IOException {
+            this.fields = fields;
+            this.json = objectMapper.getFactory().createGenerator(out);
+            this.json.setPrettyPrinter(null);
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            json.writeStartObject();
+            for (Field<T> field : fields) {
+                Object value = field.value().apply(row);
+                if (value == null) {
+                    json.writeNullField(field.name());
+                } else if (value instanceof Long number) {
+                    json.writeNumberField(field.name(), number);
+                } else if (value instanceof Integer number) {
+                    json.writeNumberField(field.name(), number);
+                } else {
+                    json.writeStringField(field.name(), value.toString());
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            json.flush();
+        }
+    }
+
+    /**
+     * Header row, then one line per row; text values are quoted so commas
+     * and line breaks in SAP fields survive.
+     */
+    private static class CsvRowWriter<T> implements RowWriter<T> {
+
+        private final List<Field<T>> fields;
+        private final Writer out;
+
+        CsvRowWriter(OutputStream out, List<Field<T>> fields) throws IOException {
+            this.fields = fields;
+            this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    this.out.write(',');
+                }
+                this.out.write(fields.get(i).name());
+            }
+            this.out.write('\n');
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                Object value = fields.get(i).value().apply(row);
+                if (value instanceof Number) {
+                    out.write(value.toString());
+                } else if (value != null) {
+                    out.write('"');
+                    out.write(value.toString().replace("\"", "\"\""));
+                    out.write('"');
+                }
+            }
+            out.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.analysis.ffid.service;
+
+import com.analysis.ffid.dto.UploadJobDTO;
+import com.analysis.ffid.ingest.UploadJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams upload progress to clients as Server-Sent Events.
+ *
+ * Nothing is pushed from the row loop itself: a scheduler thread samples the
+ * job's {@link com.analysis.ffid.ingest.UploadProgress} counters once per
+ * interval and builds a "progress" event, then a final "complete" event when
+ * the job is done. If the row count stops moving for longer than the stall
+ * threshold the event is flagged as stalled.
+ *
+ * Events are written on the {@code progressSender} pool. A subscriber whose
+ * previous event is still being written skips the sample, so a slow client
+ * only falls behind on its own stream.
+ */
+@Slf4j
+@Service
+public class UploadEventService {
+
+    private final UploadJobService uploadJobService;
+    private final ThreadPoolTaskScheduler progressScheduler;
+    private final ThreadPoolTaskExecutor progressSender;
+
+    @Value("${ffid.upload.progress-interval-ms:1000}")
+    private long intervalMillis;
+
+    @Value("${ffid.upload.stall-threshold-seconds:30}")
+    private long stallThresholdSeconds;
+
+    public UploadEventService(UploadJobService uploadJobService,
+                              @Qualifier("progressScheduler") ThreadPoolTaskScheduler progressScheduler,
+                              @Qualifier("progressSender") ThreadPoolTaskExecutor progressSender) {
+        this.uploadJobService = uploadJobService;
+        this.progressScheduler = progressScheduler;
+        this.progressSender = progressSender;
+    }
+
+    /**
+     * Open an event stream for the given job.
+     *
+     * @throws NoSuchElementException if the job is unknown (or already evicted)
+     */
+    public SseEmitter subscribe(String jobId) {
+        UploadJob job = uploadJobService.getJob(jobId)
+                .orElseThrow(() -> new NoSuchElementException("Upload job not found: " + jobId));
+
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscription subscription = new Subscription(job, emitter);
+
+        ScheduledFuture<?> future = progressScheduler.scheduleAtFixedRate(
+                subscription::tick, Duration.ofMillis(intervalMillis));
+        subscription.future.set(future);
+
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
+    }
+
+    private final class Subscription {
+        private final UploadJob job;
+        private final SseEmitter emitter;
+        private final AtomicReference<ScheduledFuture<?>> future = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private long lastRows = -1;
+        private long lastChangeMillis = System.currentTimeMillis();
+
+        Subscription(UploadJob job, SseEmitter emitter) {
+            this.job = job;
+            this.emitter = emitter;
+        }
+
+        void tick() {
+            if (!sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                UploadJobDTO status = uploadJobService.toDTO(job);
+
+                if (job.isFinished()) {
+                    cancel();
+                    progressSender.execute(() -> send(SseEmitter.event().name("complete").data(status), true));
+                    return;
+                }
+
+                long now = System.currentTimeMillis();
+                long rows = status.getRowsProcessed();
+                if (rows != lastRows) {
+                    lastRows = rows;
+                    lastChangeMillis = now;
+                }
+                long idleMillis = now - lastChangeMillis;
+
+                Map<String, Object> event = new HashMap<>();
+                event.put("status", status);
+                event.put("idleMillis", idleMillis);
+                event.put("stalled", job.getState() == UploadJob.State.RUNNING
+                        && idleMillis >= stallThresholdSeconds * 1000);
+
+                progressSender.execute(() -> send(SseEmitter.event().name("progress").data(event), false));
+            } catch (TaskRejectedException e) {
+                log.debug("Progress sender busy, skipping an event for job {}", job.getId());
+                sending.set(false);
+                if (job.isFinished()) {
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                log.warn("Progress stream for job {} failed", job.getId(), e);
+                sending.set(false);
+                cancel();
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event, boolean last) {
+            try {
+                emitter.send(event);
+                if (last) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Progress stream for job {} closed: {}", job.getId(), e.getMessage());
+                cancel();
+            } catch (Exception e) {
+                log.warn("Progress stream for job {} failed", job.getId(), e);
+                cancel();
+                emitter.completeWithError(e);
+            } finally {
+                sending.set(false);
+            }
+        }
+
+        void cancel() {
+            ScheduledFuture<?> f = future.getAndSet(null);
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.analysis.ffid.service;
+
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.ingest.UploadSource;
+import com.analysis.ffid.model.request_details;
+import com.analysis.ffid.model.upload_fingerprint;
+import com.analysis.ffid.repository.upload_fingerprintRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * File-level half of idempotent uploads: a file whose bytes were already
+ * loaded into the analysis is skipped without parsing it. Row-level
+ * duplicates (overlapping exports) are dropped by the upload loops using
+ * each table's row_hash.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadFingerprintService {
+
+    private final upload_fingerprintRepository fingerprintRepo;
+
+    /**
+     * The earlier load of an identical file, if any.
+     */
+    public Optional<upload_fingerprint> findLoaded(request_details request, UploadKind kind, String sha256) {
+        return fingerprintRepo.findByRequestDetailsAndKindAndSha256(request, kind, sha256);
+    }
+
+    /**
+     * Remember a finished load; call inside the upload's transaction so a
+     * rolled-back upload leaves no fingerprint behind.
+     */
+    public void record(request_details request, UploadKind kind, String sha256, UploadSource file, int rowsInserted) {
+        fingerprintRepo.save(upload_fingerprint.builder()
+                .requestDetails(request)
+                .kind(kind)
+                .sha256(sha256)
+                .fileName(file.getFilename())
+                .rowsInserted(rowsInserted)
+                .uploadedAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * SHA-256 of the file, or null (meaning "already loaded, skip it") after
+     * logging the earlier load.
+     */
+    public String fingerprintNew(request_details request, UploadKind kind, UploadSource file) throws IOException {
+        String sha256 = file.sha256();
+        Optional<upload_fingerprint> loaded = findLoaded(request, kind, sha256);
+        if (loaded.isPresent()) {
+            log.info("{} file {} is identical to {} loaded into {} at {}, skipping",
+                    kind.getLabel(), file.getFilename(), loaded.get().getFileName(),
+                    request.getAnalysisID(), loaded.get().getUploadedAt());
+            return null;
+        }
+        return sha256;
+    }
+}
@@ -0,0 +1,240 @@
+package com.analysis.ffid.service;
+
+import com.analysis.ffid.dto.UploadJobDTO;
+import com.analysis.ffid.ingest.IngestMode;
+import com.analysis.ffid.ingest.UploadJob;
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.ingest.UploadSource;
+import com.analysis.ffid.ingest.UploadSpool;
+import com.analysis.ffid.model.request_details;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs uploads on the bounded upload executor and keeps their status in
+ * memory for GET /api/jobs/{id}. Finished jobs are dropped after the
+ * configured retention.
+ */
+@Slf4j
+@Service
+public class UploadJobService {
+
+    private final request_detailsService requestDetailsService;
+    private final cdhdr_cdposService cdhdrCdposService;
+    private final ThreadPoolTaskExecutor uploadExecutor;
+    private final UploadSpool uploadSpool;
+    private final AnalysisLockService lockService;
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${ffid.upload.job-retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${ffid.lock.upload-wait-millis:1000}")
+    private long requeueDelayMillis;
+
+    @Value("${ffid.upload.requeue-max-delay-millis:30000}")
+    private long requeueMaxDelayMillis;
+
+    @Value("${ffid.upload.max-wait-minutes:60}")
+    private long maxWaitMinutes;
+
+    public UploadJobService(request_detailsService requestDetailsService,
+                            cdhdr_cdposService cdhdrCdposService,
+                            @Qualifier("uploadExecutor") ThreadPoolTaskExecutor uploadExecutor,
+                            UploadSpool uploadSpool,
+                            AnalysisLockService lockService) {
+        this.requestDetailsService = requestDetailsService;
+        this.cdhdrCdposService = cdhdrCdposService;
+        this.uploadExecutor = uploadExecutor;
+        this.uploadSpool = uploadSpool;
+        this.lockService = lockService;
+    }
+
+    /**
+     * Spool the file to disk and queue it for ingestion. The job starts
+     * parsing once the file fits into the in-flight byte budget.
+     *
+     * @throws NoSuchElementException if the analysis ID does not exist
+     * @throws TaskRejectedException  if the upload queue is full
+     */
+    public UploadJob submit(UploadKind kind, String analysisId, MultipartFile file, IngestMode mode) throws IOException {
+        checkRequestExists(analysisId);
+        UploadSource source = uploadSpool.spool(file);
+        try {
+            return submit(kind, analysisId, source, mode);
+        } catch (RuntimeException e) {
+            source.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Queue a file that is already on local disk. Once queued the job owns
+     * the source and closes it when done; if this method throws, the source
+     * is left to the caller.
+     *
+     * @throws NoSuchElementException if the analysis ID does not exist
+     * @throws TaskRejectedException  if the upload queue is full
+     */
+    public UploadJob submit(UploadKind kind, String analysisId, UploadSource source, IngestMode mode) throws IOException {
+        checkRequestExists(analysisId);
+        evictExpired();
+
+        UploadJob job = new UploadJob(UUID.randomUUID().toString(), kind, analysisId, source.getFilename());
+        jobs.put(job.getId(), job);
+
+        try {
+            uploadExecutor.execute(() -> run(job, source, mode));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+
+        log.info("Queued {} upload job {} for analysis ID: {}", kind, job.getId(), analysisId);
+        return job;
+    }
+
+    private void checkRequestExists(String analysisId) {
+        if (requestDetailsService.getRequestById(analysisId).isEmpty()) {
+            throw new NoSuchElementException("Request ID not found: " + analysisId);
+        }
+    }
+
+    public Optional<UploadJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Run the job if its session is free. Otherwise the worker is given
+     * back and the job re-queued after a delay that doubles with every
+     * attempt, so uploads into a busy analysis cannot take every worker
+     * from unrelated sessions.
+     */
+    private void run(UploadJob job, UploadSource source, IngestMode mode) {
+        AnalysisLockService.Held lock;
+        try {
+            lock = lockService.tryLockUpload(job.getAnalysisId(), job.getKind());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, source, new IllegalStateException("Interrupted while waiting for the analysis lock"));
+            return;
+        }
+        if (lock == null) {
+            job.markWaiting();
+            requeue(job, source, mode);
+            return;
+        }
+
+        job.markRunning();
+        try (lock; source) {
+            int records = ingest(job, source, mode);
+            job.markSucceeded(records);
+            log.info("Upload job {} finished: {} records in {} ms",
+                    job.getId(), records, job.getProgress().getElapsedMillis());
+        } catch (Exception e) {
+            log.error("Upload job {} failed", job.getId(), e);
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    /**
+     * Try the job again later. A full queue only postpones the retry, since
+     * the job was already accepted; the job is given up only once it has
+     * waited ffid.upload.max-wait-minutes for its session.
+     */
+    private void requeue(UploadJob job, UploadSource source, IngestMode mode) {
+        if (Duration.between(job.getWaitingSince(), Instant.now()).toMinutes() >= maxWaitMinutes) {
+            fail(job, source, new IllegalStateException("Analysis " + job.getAnalysisId()
+                    + " stayed busy for " + maxWaitMinutes + " minutes, please upload again later"));
+            return;
+        }
+        long delay = Math.min(requeueDelayMillis << Math.min(job.getWaits() - 1, 20), requeueMaxDelayMillis);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+            try {
+                uploadExecutor.execute(() -> run(job, source, mode));
+            } catch (TaskRejectedException e) {
+                log.info("Upload queue is full, retrying job {} later", job.getId());
+                job.markWaiting();
+                requeue(job, source, mode);
+            }
+        });
+    }
+
+    private void fail(UploadJob job, UploadSource source, Exception e) {
+        log.error("Upload job {} failed", job.getId(), e);
+        job.markFailed(e.getMessage());
+        try {
+            source.close();
+        } catch (IOException closeError) {
+            log.warn("Could not delete spooled file {}", source.getPath(), closeError);
+        }
+    }
+
+    /**
+     * Parse and persist one file synchronously on the calling thread; the
+     * caller holds the upload lock of the job's kind for the session.
+     *
+     * @return number of records saved
+     */
+    int ingest(UploadJob job, UploadSource source, IngestMode mode) throws Exception {
+        return switch (job.getKind()) {
+            case SM20 -> requestDetailsService.uploadSM20Log(source, loadRequest(job), mode, job.getProgress());
+            case TRANSACTION -> requestDetailsService.uploadTransactionLog(source, loadRequest(job), mode, job.getProgress());
+            case CDHDR -> cdhdrCdposService.uploadCdhdrData(source, job.getAnalysisId(), mode, job.getProgress());
+            case CDPOS -> cdhdrCdposService.uploadCdposData(source, job.getAnalysisId(), mode, job.getProgress());
+        };
+    }
+
+    private request_details loadRequest(UploadJob job) {
+        return requestDetailsService.getRequestById(job.getAnalysisId())
+                .orElseThrow(() -> new IllegalArgumentException("Request ID not found: " + job.getAnalysisId()));
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    public UploadJobDTO toDTO(UploadJob job) {
+        return UploadJobDTO.builder()
+                .jobId(job.getId())
+                .kind(job.getKind().name())
+                .analysisId(job.getAnalysisId())
+                .fileName(job.getFileName())
+                .state(job.getState().name())
+                .submittedAt(String.valueOf(job.getSubmittedAt()))
+                .startedAt(job.getStartedAt() != null ? job.getStartedAt().toString() : null)
+                .finishedAt(job.getFinishedAt() != null ? job.getFinishedAt().toString() : null)
+                .elapsedMillis(job.getProgress().getElapsedMillis())
+                .rowsProcessed(job.getProgress().getRowsProcessed())
+                .rowsPerSecond(Math.round(job.getProgress().getRowsPerSecond() * 10) / 10.0)
+                .rejectedRows(job.getProgress().getRowsRejected())
+                .duplicateRows(job.getProgress().getRowsDuplicate())
+                .unmatchedRows(job.getProgress().getRowsUnmatched())
+                .rejectionReport(job.getProgress().getRowsRejected() > 0
+                        ? "/api/jobs/" + job.getId() + "/rejections.csv" : null)
+                .batchesFlushed(job.getProgress().getBatchesFlushed())
+                .lastBatchRows(job.getProgress().getLastBatchRows())
+                .lastBatchMillis(Math.round(job.getProgress().getLastBatchMillis() * 10) / 10.0)
+                .avgBatchMillis(Math.round(job.getProgress().getAverageBatchMillis() * 10) / 10.0)
+                .recordsSaved(job.getRecordsSaved())
+                .error(job.getError())
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.analysis.ffid.service;
+
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.ingest.UploadProgress;
+import com.analysis.ffid.ingest.UploadSource;
+import com.analysis.ffid.model.request_details;
+import com.analysis.ffid.model.upload_rejection;
+import com.analysis.ffid.repository.upload_rejectionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Stores the rows an upload could not load in upload_rejection and reads
+ * them back as a report.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadRejectionService {
+
+    private final upload_rejectionRepository rejectionRepo;
+
+    /** Rejections kept per upload; further ones are only counted. */
+    @Value("${ffid.upload.max-rejections:10000}")
+    private int maxRejections;
+
+    /**
+     * Start collecting the rejections of one upload. Close the recorder
+     * (or call flush) once the file has been read.
+     */
+    public RejectionRecorder open(request_details request, UploadKind kind, UploadSource file,
+                                  UploadProgress progress) {
+        return new RejectionRecorder(rejectionRepo, request, kind, file.getFilename(), progress, maxRejections);
+    }
+
+    public long count(String uploadId) {
+        return rejectionRepo.countByUploadId(uploadId);
+    }
+
+    public List<upload_rejection> list(String uploadId, int limit) {
+        return rejectionRepo.findByUploadIdOrderByRowNumberAscIdAsc(uploadId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Write the rejections of an upload as CSV (row, reason, values).
+     */
+    public void writeCsv(String uploadId, Writer out) throws IOException {
+        out.write("row,reason,values\n");
+        for (upload_rejection rejection : rejectionRepo.findByUploadIdOrderByRowNumberAscIdAsc(uploadId)) {
+            out.write(rejection.getRowNumber() != null ? rejection.getRowNumber().toString() : "");
+            out.write(',');
+            out.write(csv(rejection.getReason()));
+            out.write(',');
+            out.write(csv(rejection.getRowValues()));
+            out.write('\n');
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -2,253 +2,288 @@
 
 package com.analysis.ffid.service;
 
-import com.analysis.ffid.model.cdhdr_cdpos;
+import com.analysis.ffid.ingest.CdhdrColumn;
+import com.analysis.ffid.ingest.CdposColumn;
+import com.analysis.ffid.ingest.ColumnPlan;
+import com.analysis.ffid.ingest.IngestMode;
+import com.analysis.ffid.ingest.RowSink;
+import com.analysis.ffid.ingest.SapDateTimeParser;
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.ingest.UploadProgress;
+import com.analysis.ffid.ingest.UploadRowReader;
+import com.analysis.ffid.ingest.UploadSource;
+import com.analysis.ffid.model.cdhdr;
+import com.analysis.ffid.model.cdpos;
 import com.analysis.ffid.model.request_details;
-import com.analysis.ffid.repository.cdhdr_cdposRepository;
+import com.analysis.ffid.repository.JpaBatchSink;
+import com.analysis.ffid.repository.PgCopyLoader;
+import com.analysis.ffid.repository.SapDictionary;
+import com.analysis.ffid.repository.cdhdrRepository;
+import com.analysis.ffid.repository.cdposRepository;
 import com.analysis.ffid.repository.request_detailsRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.InputStream;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class cdhdr_cdposService {
 
-    private final cdhdr_cdposRepository cdhdrCdposRepo;
+    private final cdhdrRepository cdhdrRepo;
+    private final cdposRepository cdposRepo;
     private final request_detailsRepository requestDetailsRepo;
+    private final UploadRowReader rowReader;
+    private final EntityManager entityManager;
+    private final PgCopyLoader copyLoader;
+    private final SapDictionary dictionary;
+    private final UploadFingerprintService fingerprints;
+    private final UploadRejectionService rejectionService;
+    private final TransactionTemplate transactionTemplate;
 
-    private static final int BATCH_SIZE = 1000;
+    @Value("${ffid.ingest.batch-size:1000}")
+    private int batchSize;
+
+    /** Unique index COPY uploads merge on; rows already there are skipped. */
+    private static final List<String> ROW_HASH_KEY = List.of("requestDetails", "rowHash");
+
+    private static final List<String> CDHDR_COPY_ATTRIBUTES = List.of(
+            "requestDetails", "rowHash", "client", "object", "objectValue", "docNumber", "username",
+            "entryDate", "entryTime", "eventTime", "tcode");
+
+    private static final List<String> CDPOS_COPY_ATTRIBUTES = List.of(
+            "requestDetails", "rowHash", "docNumber", "tableName", "tableKey", "fieldName", "changeId", "textFlag",
+            "unit", "cuky", "newValue", "oldValue");
 
     public request_details findRequestById(String analysisId) {
         return requestDetailsRepo.findById(analysisId)
                 .orElseThrow(() -> new RuntimeException("Request not found with ID: " + analysisId));
     }
 
-    private void validateFile(MultipartFile file, String fileType) {
-        if (file == null || file.isEmpty()) {
+    private void validateFile(UploadSource file, String fileType) throws IOException {
+        if (file == null || file.getSize() == 0) {
             throw new IllegalArgumentException(fileType + " file is empty or null");
         }
 
-        String filename = file.getOriginalFilename();
-        if (filename == null || (!filename.toLowerCase().endsWith(".xlsx") && !filename.toLowerCase().endsWith(".xls"))) {
-            throw new IllegalArgumentException(fileType + " file must be an Excel file (.xlsx or .xls)");
+        if (!UploadRowReader.isSupported(file.getFilename())) {
+            throw new IllegalArgumentException(fileType
+                    + " file must be an Excel file (.xlsx or .xls) or delimited text (.csv, .tsv or .txt)");
         }
     }
 
-    private String getCellValue(Row row, int index) {
-        Cell cell = row.getCell(index);
-        if (cell == null) {
-            return "";
-        }
-        DataFormatter formatter = new DataFormatter();
-        return formatter.formatCellValue(cell).trim();
-    }
-
-    @Transactional
-    public int uploadCdhdrData(MultipartFile cdhdrFile, String analysisId) throws Exception {
+    /**
+     * Not one transaction: rows are committed batch by batch, and a row that
+     * cannot be parsed or saved is written to upload_rejection instead of
+     * failing the whole file.
+     */
+    public int uploadCdhdrData(UploadSource cdhdrFile, String analysisId, IngestMode mode,
+                               UploadProgress progress) throws Exception {
         log.info("Starting CDHDR upload for analysis ID: {}", analysisId);
 
         validateFile(cdhdrFile, "CDHDR");
         request_details request = findRequestById(analysisId);
 
-        List<cdhdr_cdpos> batchList = new ArrayList<>();
-        int totalRecords = 0;
-
-        try (InputStream is = cdhdrFile.getInputStream();
-             Workbook workbook = WorkbookFactory.create(is)) {
-
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rowIterator = sheet.iterator();
-
-
-            if (rowIterator.hasNext()) {
-                Row headerRow = rowIterator.next();
-                log.info("CDHDR Header row: {}", getCellValue(headerRow, 0));
-            }
-
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-
-
-
-                String docNumber = getCellValue(row, 3);
-                String client = getCellValue(row, 0);
-
-                log.info("Reading CDHDR row {}: docNumber={}, client={}",
-                        row.getRowNum(), docNumber, client);
-
-
-                if (docNumber.isEmpty()) {
-                    log.warn("Skipping row {} due to empty doc_number", row.getRowNum());
-                    continue;
-                }
-
-                cdhdr_cdpos entity = cdhdr_cdpos.builder()
-                        .requestDetails(request)
-                        .client(client)
-                        .object(getCellValue(row, 1))
-                        .objectValue(getCellValue(row, 2))
-                        .docNumber(docNumber)
-                        .username(getCellValue(row, 4))
-                        .entryDate(getCellValue(row, 5))
-                        .entryTime(getCellValue(row, 6))
-                        .tcode(getCellValue(row, 7))
-
-                        .build();
-
-                batchList.add(entity);
-                totalRecords++;
-
-                if (batchList.size() >= BATCH_SIZE) {
-                    cdhdrCdposRepo.saveAll(batchList);
-                    batchList.clear();
-                    log.info("Saved batch of {} CDHDR records", BATCH_SIZE);
-                }
-            }
-
-            if (!batchList.isEmpty()) {
-                cdhdrCdposRepo.saveAll(batchList);
-                log.info("Saved final batch of {} CDHDR records", batchList.size());
-            }
+        String sha256 = fingerprints.fingerprintNew(request, UploadKind.CDHDR, cdhdrFile);
+        if (sha256 == null) {
+            return 0;
         }
+        int saved;
+
+        try (RejectionRecorder rejections = rejectionService.open(request, UploadKind.CDHDR, cdhdrFile, progress);
+             RowSink<cdhdr> sink = cdhdrSink(request, mode, progress, rejections)) {
+
+            AtomicReference<ColumnPlan<CdhdrColumn>> columns =
+                    new AtomicReference<>(ColumnPlan.positional(CdhdrColumn.class));
+            rowReader.read(cdhdrFile,
+                    headerRow -> columns.set(ColumnPlan.forHeader(CdhdrColumn.class, headerRow)),
+                    row -> {
+                        ColumnPlan<CdhdrColumn> plan = columns.get();
+                        String docNumber = plan.value(row, CdhdrColumn.DOC_NUMBER);
+                        String client = plan.value(row, CdhdrColumn.CLIENT);
+
+                        log.debug("Reading CDHDR row {}: docNumber={}, client={}",
+                                row.getRowNum(), docNumber, client);
+
+
+                        if (docNumber.isEmpty()) {
+                            log.warn("Skipping row {} due to empty doc_number", row.getRowNum());
+                            rejections.reject(row, "Empty doc_number (CHANGENR)");
+                            return;
+                        }
+
+                        cdhdr entity;
+                        try {
+                            entity = cdhdr.builder()
+                                    .requestDetails(request)
+                                    .client(client)
+                                    .object(dictionary.intern(plan.value(row, CdhdrColumn.OBJECT)))
+                                    .objectValue(plan.value(row, CdhdrColumn.OBJECT_VALUE))
+                                    .docNumber(docNumber)
+                                    .username(plan.value(row, CdhdrColumn.USERNAME))
+                                    .entryDate(plan.value(row, CdhdrColumn.DATE))
+                                    .entryTime(plan.value(row, CdhdrColumn.TIME))
+                                    .eventTime(SapDateTimeParser.combine(
+                                            SapDateTimeParser.parseDate(row, plan.index(CdhdrColumn.DATE)),
+                                            SapDateTimeParser.parseTime(row, plan.index(CdhdrColumn.TIME))))
+                                    .tcode(plan.value(row, CdhdrColumn.TCODE))
+                                    .sourceRow(row.getRowNum() + 1)
+                                    .build();
+                            entity.setRowHash(entity.computeRowHash());
+                        } catch (RuntimeException e) {
+                            rejections.reject(row, RejectionRecorder.reasonOf(e));
+                            return;
+                        }
+
+                        sink.add(entity);
+                        progress.rowProcessed();
+                    });
+
+            saved = (int) sink.finish();
+            log.info("Saved {} CDHDR records", saved);
+        }
+        fingerprints.record(request, UploadKind.CDHDR, sha256, cdhdrFile, saved);
 
-        log.info("CDHDR upload completed. Total records: {}", totalRecords);
-        return totalRecords;
+        log.info("CDHDR upload completed. Total records: {}, rejected: {}", saved, progress.getRowsRejected());
+        return saved;
     }
 
-    @Transactional
-    public int uploadCdposData(MultipartFile cdposFile, String analysisId) throws Exception {
+    /**
+     * Appends items in committed batches, like {@link #uploadCdhdrData}.
+     * Items without a CDHDR header are stored too, but only counted in
+     * {@link UploadProgress#getRowsUnmatched()}.
+     *
+     * @return number of stored items that match a CDHDR header
+     */
+    public int uploadCdposData(UploadSource cdposFile, String analysisId, IngestMode mode,
+                               UploadProgress progress) throws Exception {
         log.info("Starting CDPOS upload for analysis ID: {}", analysisId);
 
         validateFile(cdposFile, "CDPOS");
         request_details request = findRequestById(analysisId);
 
-        List<cdhdr_cdpos> existingRecords = cdhdrCdposRepo.findByRequestDetails(request);
-
-        log.info("Found {} existing CDHDR records for analysis ID: {}", existingRecords.size(), analysisId);
-
-        if (existingRecords.isEmpty()) {
+        if (!cdhdrRepo.existsByRequestDetails(request)) {
             throw new IllegalStateException("No CDHDR data found for analysis ID: " + analysisId +
                     ". Please upload CDHDR file first.");
         }
 
-        Map<String, cdhdr_cdpos> cdhdrMap = new HashMap<>();
-        for (cdhdr_cdpos record : existingRecords) {
-            if (!cdhdrMap.containsKey(record.getDocNumber())) {
-                cdhdrMap.put(record.getDocNumber(), record);
-            }
+        String sha256 = fingerprints.fingerprintNew(request, UploadKind.CDPOS, cdposFile);
+        if (sha256 == null) {
+            return 0;
         }
+        // The job holds the CDHDR lock as well as the CDPOS one, so no header
+        // arrives while the upload runs and the difference is exactly the
+        // items of this file that found their header.
+        long matchedBefore = cdposRepo.countWithHeader(request);
+        int saved;
+
+        try (RejectionRecorder rejections = rejectionService.open(request, UploadKind.CDPOS, cdposFile, progress);
+             RowSink<cdpos> sink = cdposSink(request, mode, progress, rejections)) {
+
+            AtomicReference<ColumnPlan<CdposColumn>> columns =
+                    new AtomicReference<>(ColumnPlan.positional(CdposColumn.class));
+            rowReader.read(cdposFile,
+                    headerRow -> columns.set(ColumnPlan.forHeader(CdposColumn.class, headerRow)),
+                    row -> {
+                        ColumnPlan<CdposColumn> plan = columns.get();
+                        String docNumber = plan.value(row, CdposColumn.DOC_NUMBER);
+
+                        if (docNumber.isEmpty()) {
+                            log.warn("Skipping row {} due to empty doc_number", row.getRowNum());
+                            rejections.reject(row, "Empty doc_number (CHANGENR)");
+                            return;
+                        }
+
+                        cdpos item;
+                        try {
+                            item = cdpos.builder()
+                                    .requestDetails(request)
+                                    .docNumber(docNumber)
+                                    .tableName(dictionary.intern(plan.value(row, CdposColumn.TABLE_NAME)))
+                                    .tableKey(plan.value(row, CdposColumn.TABLE_KEY))
+                                    .fieldName(dictionary.intern(plan.value(row, CdposColumn.FIELD_NAME)))
+                                    .changeId(plan.value(row, CdposColumn.CHANGE_ID))
+                                    .textFlag(plan.value(row, CdposColumn.TEXT_FLAG))
+                                    .unit(plan.value(row, CdposColumn.UNIT))
+                                    .cuky(plan.value(row, CdposColumn.CUKY))
+                                    .newValue(plan.value(row, CdposColumn.NEW_VALUE))
+                                    .oldValue(plan.value(row, CdposColumn.OLD_VALUE))
+                                    .sourceRow(row.getRowNum() + 1)
+                                    .build();
+                            item.setRowHash(item.computeRowHash());
+                        } catch (RuntimeException e) {
+                            rejections.reject(row, RejectionRecorder.reasonOf(e));
+                            return;
+                        }
+
+                        sink.add(item);
+                        progress.rowProcessed();
+                    });
+
+            saved = (int) sink.finish();
+            log.info("Saved {} CDPOS records", saved);
+        }
+        fingerprints.record(request, UploadKind.CDPOS, sha256, cdposFile, saved);
 
-        log.info("Created lookup map with {} unique document numbers", cdhdrMap.size());
-
-        List<cdhdr_cdpos> newRecordsBatch = new ArrayList<>();
-        int totalRecords = 0;
-        int matchedRecords = 0;
-
-        try (InputStream is = cdposFile.getInputStream();
-             Workbook workbook = WorkbookFactory.create(is)) {
-
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rowIterator = sheet.iterator();
-
-            if (rowIterator.hasNext()) {
-                Row headerRow = rowIterator.next();
-                log.info("CDPOS Header row: {}", getCellValue(headerRow, 0));
-            }
-
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-
-
-
-                String docNumber = getCellValue(row, 3);  // CHANGENR column
-                String tableName = getCellValue(row, 4);   // TABNAME column
-                String tableKey = getCellValue(row, 5);    // TABKEY column
-
-                log.info("Reading CDPOS row {}: docNumber={}, tableName={}, tableKey={}",
-                        row.getRowNum(), docNumber, tableName, tableKey);
-
-                if (docNumber.isEmpty()) {
-                    log.warn("Skipping row {} due to empty doc_number", row.getRowNum());
-                    continue;
-                }
-
-                cdhdr_cdpos headerData = cdhdrMap.get(docNumber);
-
-                if (headerData != null) {
-                    log.info("Found matching CDHDR for docNumber: {}", docNumber);
-
-                    cdhdr_cdpos combinedEntity = cdhdr_cdpos.builder()
-                            .requestDetails(request)
-                            .client(headerData.getClient())
-                            .object(headerData.getObject())
-                            .objectValue(headerData.getObjectValue())
-                            .docNumber(headerData.getDocNumber())
-                            .username(headerData.getUsername())
-                            .entryDate(headerData.getEntryDate())
-                            .entryTime(headerData.getEntryTime())
-                            .tcode(headerData.getTcode())
-                            .tableName(tableName)
-                            .tableKey(tableKey)
-                            .fieldName(getCellValue(row, 6))
-                            .changeId(getCellValue(row, 7))
-                            .textFlag(getCellValue(row, 8))
-                            .unit(getCellValue(row, 9))
-                            .cuky(getCellValue(row, 10))
-                            .newValue(getCellValue(row, 11))
-                            .oldValue(getCellValue(row, 12))
-                            .build();
-
-                    newRecordsBatch.add(combinedEntity);
-                    matchedRecords++;
-
-                    log.info("Created combined entity #{} for docNumber: {}", matchedRecords, docNumber);
-                } else {
-                    log.warn("No matching CDHDR record found for doc_number: {}", docNumber);
-                }
-
-                totalRecords++;
-
-
-                if (newRecordsBatch.size() >= BATCH_SIZE) {
-                    cdhdrCdposRepo.saveAll(newRecordsBatch);
-                    log.info("Saved batch of {} combined records", BATCH_SIZE);
-                    newRecordsBatch.clear();
-                }
-            }
-
-
-            if (!newRecordsBatch.isEmpty()) {
-                cdhdrCdposRepo.saveAll(newRecordsBatch);
-                log.info("Saved final batch of {} combined records", newRecordsBatch.size());
-            }
+        int matched = (int) (cdposRepo.countWithHeader(request) - matchedBefore);
+        long unmatched = Math.max(saved - matched, 0);
+        if (unmatched > 0) {
+            progress.rowsUnmatched(unmatched);
+            log.warn("{} CDPOS rows of analysis {} have no matching CDHDR record", unmatched, analysisId);
         }
+        log.info("CDPOS upload completed. Rows with a header: {}, without: {}, rejected: {}",
+                matched, unmatched, progress.getRowsRejected());
+        return matched;
+    }
 
-        log.info("Deleting {} old CDHDR-only records", existingRecords.size());
-        cdhdrCdposRepo.deleteAll(existingRecords);
+    private RowSink<cdhdr> cdhdrSink(request_details request, IngestMode mode, UploadProgress progress,
+                                     RejectionRecorder rejections) throws SQLException {
+        if (!copyLoader.shouldUse(mode)) {
+            return new JpaBatchSink<>(cdhdrRepo, entityManager, transactionTemplate, batchSize, progress,
+                    (cd, e) -> rejections.reject(cd.getSourceRow(), RejectionRecorder.reasonOf(e), null),
+                    cdhdr::getRowHash, hashes -> cdhdrRepo.findStoredRowHashes(request, hashes));
+        }
+        return copyLoader.open(cdhdr.class, "cdhdr_seq", CDHDR_COPY_ATTRIBUTES, ROW_HASH_KEY, progress,
+                (cdhdr cd) -> new Object[]{
+                        cd.getRequestDetails().getAnalysisID(), cd.getRowHash(), cd.getClient(),
+                        dictionary.find(cd.getObject()), cd.getObjectValue(), cd.getDocNumber(), cd.getUsername(),
+                        cd.getEntryDate(), cd.getEntryTime(), cd.getEventTime(), cd.getTcode()
+                });
+    }
 
-        log.info("CDPOS upload completed. Total CDPOS rows processed: {}, Successfully matched and created: {}",
-                totalRecords, matchedRecords);
-        return matchedRecords;
+    private RowSink<cdpos> cdposSink(request_details request, IngestMode mode, UploadProgress progress,
+                                     RejectionRecorder rejections) throws SQLException {
+        if (!copyLoader.shouldUse(mode)) {
+            return new JpaBatchSink<>(cdposRepo, entityManager, transactionTemplate, batchSize, progress,
+                    (item, e) -> rejections.reject(item.getSourceRow(), RejectionRecorder.reasonOf(e), null),
+                    cdpos::getRowHash, hashes -> cdposRepo.findStoredRowHashes(request, hashes));
+        }
+        return copyLoader.open(cdpos.class, "cdpos_seq", CDPOS_COPY_ATTRIBUTES, ROW_HASH_KEY, progress,
+                (cdpos item) -> new Object[]{
+                        item.getRequestDetails().getAnalysisID(), item.getRowHash(), item.getDocNumber(),
+                        dictionary.find(item.getTableName()), item.getTableKey(), dictionary.find(item.getFieldName()),
+                        item.getChangeId(), item.getTextFlag(), item.getUnit(), item.getCuky(), item.getNewValue(),
+                        item.getOldValue()
+                });
     }
 
+    /**
+     * Counts in terms of the joined change-document view: one record per
+     * item that has a header, plus one per header without items.
+     */
     public Map<String, Long> getUploadStats(String analysisId) {
         request_details request = findRequestById(analysisId);
-        List<cdhdr_cdpos> records = cdhdrCdposRepo.findByRequestDetails(request);
 
-        long totalRecords = records.size();
-        long recordsWithCdpos = records.stream()
-                .filter(r -> r.getTableName() != null && !r.getTableName().isEmpty())
-                .count();
-        long recordsWithOnlyCdhdr = totalRecords - recordsWithCdpos;
+        long recordsWithCdpos = cdposRepo.countWithHeader(request);
+        long recordsWithOnlyCdhdr = cdhdrRepo.countWithoutItems(request);
+        long totalRecords = recordsWithCdpos + recordsWithOnlyCdhdr;
 
         Map<String, Long> stats = new HashMap<>();
         stats.put("totalRecords", totalRecords);
@@ -257,4 +292,4 @@ public class cdhdr_cdposService {
 
         return stats;
     }
-}
\ No newline at end of file
+}
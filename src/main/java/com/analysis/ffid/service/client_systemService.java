@@ -1,4 +1,101 @@
 package com.analysis.ffid.service;
 
+import com.analysis.ffid.model.client_system;
+import com.analysis.ffid.repository.TableMetadata;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves (client, system) pairs to their client_system row. Each pair
+ * is looked up once per process; after that requests are linked to it
+ * from memory.
+ *
+ * A new pair is inserted with INSERT ... ON CONFLICT against the unique
+ * (client, system) constraint, so concurrent creates for the same pair
+ * end up with one row whichever of them wins. The upsert commits in its
+ * own transaction, so the cache never points at a rolled-back row.
+ */
+@Slf4j
+@Service
 public class client_systemService {
+
+    private static final int CACHE_LIMIT = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TableMetadata tableMetadata;
+    private final TransactionTemplate requiresNew;
+    private final Map<List<String>, String> ids = new ConcurrentHashMap<>();
+
+    public client_systemService(JdbcTemplate jdbcTemplate, TableMetadata tableMetadata,
+                                PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableMetadata = tableMetadata;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * The client_system of the pair, created if it is new. The returned
+     * instance is the caller's own and only carries the row's values.
+     */
+    public client_system resolve(String client, String system) {
+        List<String> key = Arrays.asList(client, system);
+        String id = ids.get(key);
+        if (id == null) {
+            id = requiresNew.execute(status -> upsert(client, system));
+            if (ids.size() >= CACHE_LIMIT) {
+                ids.clear();
+            }
+            ids.put(key, id);
+        }
+
+        client_system cs = new client_system();
+        cs.setCS_ID(id);
+        cs.setClient(client);
+        cs.setSystem(system);
+        return cs;
+    }
+
+    private String upsert(String client, String system) {
+        String table = tableMetadata.table(client_system.class);
+        String idColumn = tableMetadata.idColumn(client_system.class);
+        String clientColumn = tableMetadata.column(client_system.class, "client");
+        String systemColumn = tableMetadata.column(client_system.class, "system");
+
+        String select = "SELECT " + idColumn + " FROM " + table + " WHERE " + clientColumn
+                + " IS NOT DISTINCT FROM ? AND " + systemColumn + " IS NOT DISTINCT FROM ? ORDER BY " + idColumn
+                + " LIMIT 1";
+
+        // NULLs never conflict, so a pair with a NULL is looked up first
+        if (client == null || system == null) {
+            List<String> found = jdbcTemplate.queryForList(select, String.class, client, system);
+            if (!found.isEmpty()) {
+                log.info("Found existing client_system with ID: {}", found.get(0));
+                return found.get(0);
+            }
+        }
+
+        String newId = "CS-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        int inserted = jdbcTemplate.update("INSERT INTO " + table + " (" + idColumn + ", " + clientColumn + ", "
+                + systemColumn + ") VALUES (?, ?, ?) ON CONFLICT (" + clientColumn + ", " + systemColumn
+                + ") DO NOTHING", newId, client, system);
+        if (inserted > 0) {
+            log.info("Created new client_system with ID: {}", newId);
+            return newId;
+        }
+
+        String id = jdbcTemplate.queryForObject(select, String.class, client, system);
+        log.info("Found existing client_system with ID: {}", id);
+        return id;
+    }
 }
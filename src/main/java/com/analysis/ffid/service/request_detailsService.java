@@ -1,25 +1,40 @@
 
 package com.analysis.ffid.service;
 
+import com.analysis.ffid.ingest.ColumnPlan;
+import com.analysis.ffid.ingest.IngestMode;
+import com.analysis.ffid.ingest.RowSink;
+import com.analysis.ffid.ingest.SapDateTimeParser;
+import com.analysis.ffid.ingest.Sm20Column;
+import com.analysis.ffid.ingest.TransactionColumn;
+import com.analysis.ffid.ingest.UploadKind;
+import com.analysis.ffid.ingest.UploadProgress;
+import com.analysis.ffid.ingest.UploadRowReader;
+import com.analysis.ffid.ingest.UploadSource;
+import com.analysis.ffid.ingest.SheetRow;
+import com.analysis.ffid.ingest.TicketColumn;
 import com.analysis.ffid.model.*;
 import com.analysis.ffid.repository.*;
 import jakarta.persistence.Column;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.analysis.ffid.dto.*;
 import com.analysis.ffid.model.*;
 import com.analysis.ffid.repository.*;
-import java.io.InputStream;
-import java.text.SimpleDateFormat;
-import java.util.Iterator;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.*;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -30,10 +45,44 @@ public class request_detailsService {
     private final request_detailsRepository requestRepo;
     private final transaction_usageRepository transactionRepo;
     private final sm20Repository sm20Repo;
-    private final client_systemRepository clientSystemRepo;
+    private final client_systemService clientSystemService;
+    private final RequestBulkRepository requestBulkRepo;
 
-    private final cdhdr_cdposRepository cdhdrCdposRepo;
+    private final cdhdrRepository cdhdrRepo;
+    private final cdposRepository cdposRepo;
     private final analysis_resultRepository analysisResultRepo;
+    private final UploadRowReader rowReader;
+    private final EntityManager entityManager;
+    private final PgCopyLoader copyLoader;
+    private final SapDictionary dictionary;
+    private final UploadFingerprintService fingerprints;
+    private final UploadRejectionService rejectionService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ffid.ingest.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${ffid.details.page-size:200}")
+    private int defaultPageSize;
+
+    @Value("${ffid.details.max-page-size:2000}")
+    private int maxPageSize;
+
+    @Value("${ffid.request.bulk-max:100000}")
+    private int maxBulkRequests;
+
+    private static final int MAX_ID_ATTEMPTS = 20;
+
+    /** Unique index COPY uploads merge on; rows already there are skipped. */
+    private static final List<String> ROW_HASH_KEY = List.of("requestDetails", "rowHash");
+
+    private static final List<String> TRANSACTION_COPY_ATTRIBUTES =
+            List.of("requestDetails", "rowHash", "time", "tcode", "program");
+
+    private static final List<String> SM20_COPY_ATTRIBUTES = List.of(
+            "requestDetails", "rowHash", "sapSystem", "asInstance", "entrydate", "entrytime", "eventTime", "client",
+            "event", "username", "groupname", "terminal", "peer", "sourceTA", "program", "auditLogMsgText", "note",
+            "variableMessageData", "variable2", "variableData");
 
     @Transactional
     public request_details createRequest(request_details request) {
@@ -41,23 +90,7 @@ public class request_detailsService {
         log.info("ITSM Number: {}", request.getItsmNumber());
         log.info("Client: {}, System: {}", request.getClient(), request.getSystem());
 
-        Optional<client_system> existingCS = clientSystemRepo.findByClientAndSystem(
-                request.getClient(),
-                request.getSystem()
-        );
-
-        client_system csEntity;
-        if (existingCS.isPresent()) {
-            csEntity = existingCS.get();
-            log.info("Found existing client_system with ID: {}", csEntity.getCS_ID());
-        } else {
-            csEntity = new client_system();
-            csEntity.setCS_ID("CS-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
-            csEntity.setClient(request.getClient());
-            csEntity.setSystem(request.getSystem());
-            csEntity = clientSystemRepo.saveAndFlush(csEntity);
-            log.info("Created new client_system with ID: {}", csEntity.getCS_ID());
-        }
+        client_system csEntity = clientSystemService.resolve(request.getClient(), request.getSystem());
 
         request.setClientSystem(csEntity);
         request_details saved = requestRepo.save(request);
@@ -66,6 +99,124 @@ public class request_detailsService {
         return saved;
     }
 
+    /**
+     * Create many requests at once (a JSON array or an imported ticket
+     * list). Each distinct client/system pair is resolved once, analysis
+     * IDs are assigned up front (a given one is kept) and the rows go in
+     * with one statement per batch, all in one transaction. A generated ID
+     * that turns out to be taken is replaced and the row inserted again.
+     *
+     * @return the analysis IDs, in input order
+     * @throws IllegalArgumentException if a given analysis ID is repeated
+     *                                  or already exists
+     */
+    public List<String> createRequests(List<request_details> requests) {
+        if (requests.size() > maxBulkRequests) {
+            throw new IllegalArgumentException("At most " + maxBulkRequests + " requests per bulk call, got "
+                    + requests.size());
+        }
+        long start = System.nanoTime();
+
+        Map<List<String>, client_system> pairs = new HashMap<>();
+        Set<String> used = new HashSet<>(requests.size() * 2);
+        Set<request_details> generated = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (request_details request : requests) {
+            request.setClientSystem(pairs.computeIfAbsent(Arrays.asList(request.getClient(), request.getSystem()),
+                    pair -> clientSystemService.resolve(pair.get(0), pair.get(1))));
+            String id = request.getAnalysisID();
+            if (id == null || id.isEmpty()) {
+                generated.add(request);
+            } else if (!used.add(id)) {
+                throw new IllegalArgumentException("Analysis ID " + id + " appears more than once");
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < requests.size(); from += batchSize) {
+                List<request_details> pending = requests.subList(from, Math.min(from + batchSize, requests.size()));
+                for (int attempt = 0; !pending.isEmpty(); attempt++) {
+                    if (attempt == MAX_ID_ATTEMPTS) {
+                        throw new IllegalStateException("No free analysis IDs found for " + pending.size()
+                                + " requests");
+                    }
+                    for (request_details request : pending) {
+                        if (generated.contains(request)) {
+                            request.setAnalysisID(freeAnalysisId(used));
+                        }
+                    }
+                    Set<String> inserted = requestBulkRepo.insertNew(pending);
+                    List<request_details> retry = new ArrayList<>();
+                    for (request_details request : pending) {
+                        if (inserted.contains(request.getAnalysisID())) {
+                            continue;
+                        }
+                        if (!generated.contains(request)) {
+                            throw new IllegalArgumentException("Analysis ID " + request.getAnalysisID()
+                                    + " already exists");
+                        }
+                        retry.add(request);
+                    }
+                    pending = retry;
+                }
+            }
+        });
+
+        log.info("Created {} requests ({} client/system pairs) in {} ms",
+                requests.size(), pairs.size(), (System.nanoTime() - start) / 1_000_000);
+        return requests.stream().map(request_details::getAnalysisID).collect(Collectors.toList());
+    }
+
+    private static String freeAnalysisId(Set<String> used) {
+        String id;
+        do {
+            id = request_details.newAnalysisId();
+        } while (!used.add(id));
+        return id;
+    }
+
+    /**
+     * Create requests from an ITSM ticket export (Excel or CSV, one ticket
+     * per row, columns found by header name). Blank rows are skipped.
+     *
+     * @return the analysis IDs, in file order
+     */
+    public List<String> importRequests(UploadSource file) throws Exception {
+        log.info("Importing tickets from {} ({} bytes)", file.getFilename(), file.getSize());
+        List<request_details> requests = new ArrayList<>();
+        AtomicReference<ColumnPlan<TicketColumn>> columns =
+                new AtomicReference<>(ColumnPlan.positional(TicketColumn.class));
+
+        rowReader.read(file, header -> columns.set(ColumnPlan.forHeader(TicketColumn.class, header)), row -> {
+            ColumnPlan<TicketColumn> plan = columns.get();
+            request_details request = request_details.builder()
+                    .itsmNumber(ticketValue(plan, row, TicketColumn.ITSM_NUMBER))
+                    .client(ticketValue(plan, row, TicketColumn.CLIENT))
+                    .system(ticketValue(plan, row, TicketColumn.SYSTEM))
+                    .requestedFor(ticketValue(plan, row, TicketColumn.REQUESTED_FOR))
+                    .requested_on_behalfof(ticketValue(plan, row, TicketColumn.REQUESTED_ON_BEHALF_OF))
+                    .requestedDate(ticketValue(plan, row, TicketColumn.REQUESTED_DATE))
+                    .usedDate(ticketValue(plan, row, TicketColumn.USED_DATE))
+                    .tcodes(ticketValue(plan, row, TicketColumn.TCODES))
+                    .reason(ticketValue(plan, row, TicketColumn.REASON))
+                    .activities_to_be_performed(ticketValue(plan, row, TicketColumn.ACTIVITIES))
+                    .build();
+            if (request.getItsmNumber() == null && request.getClient() == null && request.getSystem() == null) {
+                return;
+            }
+            if (requests.size() == maxBulkRequests) {
+                throw new IllegalArgumentException("Ticket file has more than " + maxBulkRequests + " tickets");
+            }
+            requests.add(request);
+        });
+
+        return createRequests(requests);
+    }
+
+    private static String ticketValue(ColumnPlan<TicketColumn> plan, SheetRow row, TicketColumn column) {
+        String value = plan.value(row, column);
+        return value.isEmpty() ? null : value;
+    }
+
     public Optional<request_details> getRequestById(String analysisId) {
         log.info("Fetching request by ID: {}", analysisId);
         return requestRepo.findById(analysisId);
@@ -88,57 +239,22 @@ public class request_detailsService {
                 .collect(Collectors.toList());
     }
 
-
+    /**
+     * Request header, log totals and the first page of each log; the rest
+     * is fetched page by page through the get*Page methods.
+     */
     @Transactional(readOnly = true)
     public RequestDetailsDTO getRequestDetails(String analysisId) {
-        log.info("Fetching complete details for: {}", analysisId);
+        log.info("Fetching details for: {}", analysisId);
 
         request_details request = requestRepo.findById(analysisId)
                 .orElseThrow(() -> new RuntimeException("Request not found: " + analysisId));
 
-
-        List<TransactionUsageDTO> transactionUsage = transactionRepo
-                .findByRequestDetails(request)
-                .stream()
-                .map(tu -> TransactionUsageDTO.builder()
-                        .timestamp(tu.getTime())
-                        .transaction(tu.getTcode())
-                        .description(tu.getProgram())
-                        .user(request.getRequestedFor())
-                        .client(request.getClient())
-                        .system(request.getSystem())
-                        .build())
-                .collect(Collectors.toList());
-
-
-        List<SM20DTO> auditLogs = sm20Repo
-                .findByRequestDetails(request)
-                .stream()
-                .map(sm -> SM20DTO.builder()
-                        .timestamp(sm.getEntrydate() + " " + sm.getEntrytime())
-                        .action(sm.getClient())
-                        .terminal(sm.getTerminal())
-                        .object(sm.getSourceTA())
-                        .program(sm.getProgram())
-                        .details(sm.getAuditLogMsgText())
-                        .build())
-                .collect(Collectors.toList());
-
-
-
-
-        List<CdhdrCdposDTO> changeDocLogs = cdhdrCdposRepo
-                .findByRequestDetails(request)
-                .stream()
-                .map(cd -> CdhdrCdposDTO.builder()
-                        .timestamp(cd.getEntryDate() + " " + cd.getEntryTime())
-                        .table(cd.getTableName())
-                        .field(cd.getFieldName())
-                        .oldValue(cd.getOldValue())
-                        .newValue(cd.getNewValue())
-                        .user(cd.getUsername())
-                        .build())
-                .collect(Collectors.toList());
+        KeysetPageDTO<TransactionUsageDTO> transactionUsage =
+                transactionUsagePage(request, KeysetCursor.decode(null), defaultPageSize);
+        KeysetPageDTO<SM20DTO> auditLogs = auditLogPage(request, KeysetCursor.decode(null), defaultPageSize);
+        KeysetPageDTO<CdhdrCdposDTO> changeDocLogs =
+                changeDocPage(request, KeysetCursor.decode(null), defaultPageSize);
 
         AnalysisInsightsDTO aiInsights = getAnalysisInsights(request);
 
@@ -154,13 +270,158 @@ public class request_detailsService {
                 .tcodes(request.getTcodes())
                 .reason(request.getReason())
                 .activities(request.getActivities_to_be_performed())
-                .transactionUsage(transactionUsage)
-                .auditLogs(auditLogs)
-                .changeDocLogs(changeDocLogs)
+                .transactionUsage(transactionUsage.getItems())
+                .transactionUsageTotal(transactionRepo.countByRequestDetails(request))
+                .transactionUsageNextCursor(transactionUsage.getNextCursor())
+                .auditLogs(auditLogs.getItems())
+                .auditLogTotal(sm20Repo.countByRequestDetails(request))
+                .auditLogsNextCursor(auditLogs.getNextCursor())
+                .changeDocLogs(changeDocLogs.getItems())
+                .changeDocTotal(cdposRepo.countWithHeader(request) + cdhdrRepo.countWithoutItems(request))
+                .changeDocLogsNextCursor(changeDocLogs.getNextCursor())
                 .aiInsights(aiInsights)
                 .build();
     }
 
+    /**
+     * One page of SM20 entries, oldest first, after the cursor of the
+     * previous page (null for the first page).
+     *
+     * @throws NoSuchElementException   if the analysis ID does not exist
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public KeysetPageDTO<SM20DTO> getAuditLogPage(String analysisId, String after, Integer limit) {
+        return auditLogPage(findRequest(analysisId), KeysetCursor.decode(after), pageSize(limit));
+    }
+
+    /**
+     * One page of transaction usage in upload order; see {@link #getAuditLogPage}.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPageDTO<TransactionUsageDTO> getTransactionUsagePage(String analysisId, String after, Integer limit) {
+        return transactionUsagePage(findRequest(analysisId), KeysetCursor.decode(after), pageSize(limit));
+    }
+
+    /**
+     * One page of change document rows (header plus item), oldest first;
+     * see {@link #getAuditLogPage}.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPageDTO<CdhdrCdposDTO> getChangeDocPage(String analysisId, String after, Integer limit) {
+        return changeDocPage(findRequest(analysisId), KeysetCursor.decode(after), pageSize(limit));
+    }
+
+    private request_details findRequest(String analysisId) {
+        return requestRepo.findById(analysisId)
+                .orElseThrow(() -> new NoSuchElementException("Request not found: " + analysisId));
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+
+    // Each page query asks for one row more than the limit to learn whether
+    // another page follows. Rows without event_time come after all timed
+    // rows, so a page can end in the timed part and continue untimed.
+    // The queries return projections of the displayed columns only, so no
+    // entities (and no dirty-checking snapshots) are created for a page.
+
+    private KeysetPageDTO<SM20DTO> auditLogPage(request_details request, KeysetCursor after, int limit) {
+        List<AuditLogRow> rows = new ArrayList<>(limit + 1);
+        if (!after.isUntimed()) {
+            rows.addAll(sm20Repo.findTimedPage(request, after.getTime(), after.getId(), PageRequest.of(0, limit + 1)));
+        }
+        if (rows.size() <= limit) {
+            long fromId = after.isUntimed() ? after.getId() : 0;
+            rows.addAll(sm20Repo.findUntimedPage(request, fromId, PageRequest.of(0, limit + 1 - rows.size())));
+        }
+        return toPage(rows, limit, sm -> KeysetCursor.after(sm.getEventTime(), sm.getEntryId(), null),
+                this::toAuditLogDTO);
+    }
+
+    private KeysetPageDTO<TransactionUsageDTO> transactionUsagePage(request_details request, KeysetCursor after,
+                                                                    int limit) {
+        List<TransactionUsageRow> rows = transactionRepo.findPage(request, after.getId(), PageRequest.of(0, limit + 1));
+        return toPage(rows, limit, tu -> KeysetCursor.after(null, tu.getId(), null),
+                tu -> toTransactionUsageDTO(tu, request));
+    }
+
+    private KeysetPageDTO<CdhdrCdposDTO> changeDocPage(request_details request, KeysetCursor after, int limit) {
+        List<ChangeDocumentRow> rows = new ArrayList<>(limit + 1);
+        if (!after.isUntimed()) {
+            rows.addAll(cdhdrRepo.findTimedPage(request, after.getTime(), after.getId(), after.getItemId(),
+                    PageRequest.of(0, limit + 1)));
+        }
+        if (rows.size() <= limit) {
+            long fromHeader = after.isUntimed() ? after.getId() : 0;
+            long fromItem = after.isUntimed() ? after.getItemId() : 0;
+            rows.addAll(cdhdrRepo.findUntimedPage(request, fromHeader, fromItem,
+                    PageRequest.of(0, limit + 1 - rows.size())));
+        }
+        return toPage(rows, limit, cd -> KeysetCursor.after(cd.getEventTime(), cd.getHeaderId(), cd.getItemId()),
+                this::toChangeDocDTO);
+    }
+
+    private static <T, D> KeysetPageDTO<D> toPage(List<T> rows, int limit, Function<T, KeysetCursor> cursorOf,
+                                                  Function<T, D> toDTO) {
+        boolean hasMore = rows.size() > limit;
+        List<T> page = hasMore ? rows.subList(0, limit) : rows;
+        return KeysetPageDTO.<D>builder()
+                .items(page.stream().map(toDTO).collect(Collectors.toList()))
+                .limit(limit)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? cursorOf.apply(page.get(page.size() - 1)).encode() : null)
+                .build();
+    }
+
+    private SM20DTO toAuditLogDTO(AuditLogRow sm) {
+        return SM20DTO.builder()
+                .timestamp(displayTime(sm.getEventTime(), sm.getEntryDate(), sm.getEntryTime()))
+                .action(sm.getClient())
+                .terminal(sm.getTerminal())
+                .object(sm.getSourceTa())
+                .program(sm.getProgram())
+                .details(sm.getMessage())
+                .build();
+    }
+
+    private TransactionUsageDTO toTransactionUsageDTO(TransactionUsageRow tu, request_details request) {
+        return TransactionUsageDTO.builder()
+                .timestamp(tu.getTime())
+                .transaction(tu.getTcode())
+                .description(tu.getProgram())
+                .user(request.getRequestedFor())
+                .client(request.getClient())
+                .system(request.getSystem())
+                .build();
+    }
+
+    private CdhdrCdposDTO toChangeDocDTO(ChangeDocumentRow cd) {
+        return CdhdrCdposDTO.builder()
+                .timestamp(displayTime(cd.getEventTime(), cd.getEntryDate(), cd.getEntryTime()))
+                .table(cd.getTableName())
+                .field(cd.getFieldName())
+                .oldValue(cd.getOldValue())
+                .newValue(cd.getNewValue())
+                .user(cd.getUsername())
+                .build();
+    }
+
+    /**
+     * Display text of an event; rows loaded before event_time existed (or
+     * with unparseable dates) fall back to the raw date and time text.
+     */
+    private static String displayTime(LocalDateTime eventTime, String date, String time) {
+        if (eventTime != null) {
+            return SapDateTimeParser.formatDisplay(eventTime);
+        }
+        return date + " " + time;
+    }
+
     /**
      * Get AI Analysis Insights from analysis_result table
      */
@@ -265,151 +526,181 @@ public class request_detailsService {
         }
     }
 
-    @Transactional
-    public void uploadTransactionLog(MultipartFile file, request_details request) throws Exception {
+    /**
+     * Not one transaction: rows are committed batch by batch, and a row that
+     * cannot be parsed or saved is written to upload_rejection instead of
+     * failing the whole file.
+     */
+    public int uploadTransactionLog(UploadSource file, request_details request, IngestMode mode,
+                                    UploadProgress progress) throws Exception {
         log.info("===== Uploading Transaction Log =====");
         log.info("Request ID: {}", request.getAnalysisID());
-        log.info("File name: {}", file.getOriginalFilename());
+        log.info("File name: {}", file.getFilename());
         log.info("File size: {} bytes", file.getSize());
 
-        int recordCount = 0;
-
-        try (InputStream is = file.getInputStream();
-             Workbook workbook = WorkbookFactory.create(is)) {
-
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rowIterator = sheet.iterator();
-
-
-            if (rowIterator.hasNext()) {
-                Row headerRow = rowIterator.next();
-                log.info("Skipping header row");
-            }
-
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-
-                transaction_usage log = transaction_usage.builder()
-                        .requestDetails(request)
-                        .time(getCellValue(row, 0))
-                        .tcode(getCellValue(row, 1))
-                        .program(getCellValue(row, 2))
-                        .build();
-
-                transactionRepo.save(log);
-                recordCount++;
-            }
+        String sha256 = fingerprints.fingerprintNew(request, UploadKind.TRANSACTION, file);
+        if (sha256 == null) {
+            return 0;
+        }
 
-            log.info("Transaction log upload completed: {} records saved", recordCount);
+        try (RejectionRecorder rejections = rejectionService.open(request, UploadKind.TRANSACTION, file, progress);
+             RowSink<transaction_usage> sink = transactionSink(request, mode, progress, rejections)) {
+
+            AtomicReference<ColumnPlan<TransactionColumn>> columns =
+                    new AtomicReference<>(ColumnPlan.positional(TransactionColumn.class));
+            rowReader.read(file, header -> columns.set(ColumnPlan.forHeader(TransactionColumn.class, header)), row -> {
+                ColumnPlan<TransactionColumn> plan = columns.get();
+                transaction_usage log;
+                try {
+                    log = transaction_usage.builder()
+                            .requestDetails(request)
+                            .time(plan.value(row, TransactionColumn.TIME))
+                            .tcode(plan.value(row, TransactionColumn.TCODE))
+                            .program(plan.value(row, TransactionColumn.PROGRAM))
+                            .sourceRow(row.getRowNum() + 1)
+                            .build();
+                    log.setRowHash(log.computeRowHash());
+                } catch (RuntimeException e) {
+                    rejections.reject(row, RejectionRecorder.reasonOf(e));
+                    return;
+                }
+
+                sink.add(log);
+                progress.rowProcessed();
+            });
+            int saved = (int) sink.finish();
+            fingerprints.record(request, UploadKind.TRANSACTION, sha256, file, saved);
+
+            log.info("Transaction log upload completed: {} records saved, {} rejected",
+                    saved, progress.getRowsRejected());
+            return saved;
         } catch (Exception e) {
             log.error("Error uploading transaction log", e);
             throw new RuntimeException("Failed to upload transaction log: " + e.getMessage(), e);
         }
     }
 
-    @Transactional
-    public void uploadSM20Log(MultipartFile file, request_details request) throws Exception {
+    /**
+     * Committed in batches with rejected rows reported, like
+     * {@link #uploadTransactionLog}.
+     */
+    public int uploadSM20Log(UploadSource file, request_details request, IngestMode mode,
+                             UploadProgress progress) throws Exception {
         log.info("===== Uploading SM20 Log =====");
         log.info("Request ID: {}", request.getAnalysisID());
-        log.info("File name: {}", file.getOriginalFilename());
+        log.info("File name: {}", file.getFilename());
         log.info("File size: {} bytes", file.getSize());
 
-        int recordCount = 0;
-
-        try (InputStream is = file.getInputStream();
-             Workbook workbook = WorkbookFactory.create(is)) {
-
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rowIterator = sheet.iterator();
-
-            if (rowIterator.hasNext()) {
-                Row headerRow = rowIterator.next();
-                log.info("Skipping header row");
-            }
-
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-
-                sm20 logEntry = sm20.builder()
-                        .requestDetails(request)
-                        .sapSystem(getCellValue(row, 0))
-                        .asInstance(getCellValue(row, 1))
-                        .entrydate(getDateValue(row, 2))
-                        .entrytime(getTimeValue(row, 3))
-                        .client(getCellValue(row, 4))
-                        .event(getCellValue(row, 5))
-                        .username(getCellValue(row, 6))
-                        .groupname(getCellValue(row, 7))
-                        .terminal(getCellValue(row, 8))
-                        .peer(getCellValue(row, 9))
-                        .sourceTA(getCellValue(row, 10))
-                        .program(getCellValue(row, 11))
-                        .auditLogMsgText(getCellValue(row, 12))
-                        .note(getCellValue(row, 13))
-                        .variableMessageData(getCellValue(row, 14))
-                        .variable2(getCellValue(row, 15))
-                        .variableData(getCellValue(row, 16))
-                        .build();
-
-                sm20Repo.save(logEntry);
-                recordCount++;
-            }
+        String sha256 = fingerprints.fingerprintNew(request, UploadKind.SM20, file);
+        if (sha256 == null) {
+            return 0;
+        }
 
-            log.info("SM20 log upload completed: {} records saved", recordCount);
+        try (RejectionRecorder rejections = rejectionService.open(request, UploadKind.SM20, file, progress);
+             RowSink<sm20> sink = sm20Sink(request, mode, progress, rejections)) {
+
+            AtomicReference<ColumnPlan<Sm20Column>> columns =
+                    new AtomicReference<>(ColumnPlan.positional(Sm20Column.class));
+            rowReader.read(file, header -> columns.set(ColumnPlan.forHeader(Sm20Column.class, header)), row -> {
+                ColumnPlan<Sm20Column> plan = columns.get();
+                sm20 logEntry;
+                try {
+                    logEntry = sm20.builder()
+                            .requestDetails(request)
+                            .sapSystem(dictionary.intern(plan.value(row, Sm20Column.SAP_SYSTEM)))
+                            .asInstance(dictionary.intern(plan.value(row, Sm20Column.AS_INSTANCE)))
+                            .entrydate(getDateValue(row, plan.index(Sm20Column.DATE)))
+                            .entrytime(getTimeValue(row, plan.index(Sm20Column.TIME)))
+                            .eventTime(SapDateTimeParser.combine(
+                                    SapDateTimeParser.parseDate(row, plan.index(Sm20Column.DATE)),
+                                    SapDateTimeParser.parseTime(row, plan.index(Sm20Column.TIME))))
+                            .client(plan.value(row, Sm20Column.CLIENT))
+                            .event(plan.value(row, Sm20Column.EVENT))
+                            .username(dictionary.intern(plan.value(row, Sm20Column.USERNAME)))
+                            .groupname(plan.value(row, Sm20Column.GROUPNAME))
+                            .terminal(dictionary.intern(plan.value(row, Sm20Column.TERMINAL)))
+                            .peer(plan.value(row, Sm20Column.PEER))
+                            .sourceTA(dictionary.intern(plan.value(row, Sm20Column.SOURCE_TA)))
+                            .program(dictionary.intern(plan.value(row, Sm20Column.PROGRAM)))
+                            .auditLogMsgText(plan.value(row, Sm20Column.AUDIT_LOG_MSG_TEXT))
+                            .note(plan.value(row, Sm20Column.NOTE))
+                            .variableMessageData(plan.value(row, Sm20Column.VARIABLE_MESSAGE_DATA))
+                            .variable2(plan.value(row, Sm20Column.VARIABLE_2))
+                            .variableData(plan.value(row, Sm20Column.VARIABLE_DATA))
+                            .sourceRow(row.getRowNum() + 1)
+                            .build();
+                    logEntry.setRowHash(logEntry.computeRowHash());
+                } catch (RuntimeException e) {
+                    rejections.reject(row, RejectionRecorder.reasonOf(e));
+                    return;
+                }
+
+                sink.add(logEntry);
+                progress.rowProcessed();
+            });
+            int saved = (int) sink.finish();
+            fingerprints.record(request, UploadKind.SM20, sha256, file, saved);
+
+            log.info("SM20 log upload completed: {} records saved, {} rejected", saved, progress.getRowsRejected());
+            return saved;
         } catch (Exception e) {
             log.error("Error uploading SM20 log", e);
             throw new RuntimeException("Failed to upload SM20 log: " + e.getMessage(), e);
         }
     }
 
+    private RowSink<transaction_usage> transactionSink(request_details request, IngestMode mode,
+                                                       UploadProgress progress, RejectionRecorder rejections)
+            throws SQLException {
+        if (!copyLoader.shouldUse(mode)) {
+            return new JpaBatchSink<>(transactionRepo, entityManager, transactionTemplate, batchSize, progress,
+                    (tu, e) -> rejections.reject(tu.getSourceRow(), RejectionRecorder.reasonOf(e), null),
+                    transaction_usage::getRowHash, hashes -> transactionRepo.findStoredRowHashes(request, hashes));
+        }
+        return copyLoader.open(transaction_usage.class, "transaction_usage_seq", TRANSACTION_COPY_ATTRIBUTES,
+                ROW_HASH_KEY, progress,
+                (transaction_usage tu) -> new Object[]{
+                        tu.getRequestDetails().getAnalysisID(), tu.getRowHash(), tu.getTime(), tu.getTcode(),
+                        tu.getProgram()
+                });
+    }
 
-private String getCellValue(Row row, int colIndex) {
-    Cell cell = row.getCell(colIndex);
-    if (cell == null) return "";
-
-    DataFormatter formatter = new DataFormatter();
-    return formatter.formatCellValue(cell).trim();
-}
-
-    private String getTimeValue(Row row, int colIndex) {
-        Cell cell = row.getCell(colIndex);
-        if (cell == null) return "";
-
-
-        if (cell.getCellType() == CellType.NUMERIC) {
-            if (DateUtil.isCellDateFormatted(cell)) {
-                Date date = cell.getDateCellValue();
-                SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
-                return timeFormat.format(date);
-            } else {
+    private RowSink<sm20> sm20Sink(request_details request, IngestMode mode, UploadProgress progress,
+                                   RejectionRecorder rejections) throws SQLException {
+        if (!copyLoader.shouldUse(mode)) {
+            return new JpaBatchSink<>(sm20Repo, entityManager, transactionTemplate, batchSize, progress,
+                    (sm, e) -> rejections.reject(sm.getSourceRow(), RejectionRecorder.reasonOf(e), null),
+                    sm20::getRowHash, hashes -> sm20Repo.findStoredRowHashes(request, hashes));
+        }
+        return copyLoader.open(sm20.class, "sm20_seq", SM20_COPY_ATTRIBUTES, ROW_HASH_KEY, progress,
+                (sm20 sm) -> new Object[]{
+                        sm.getRequestDetails().getAnalysisID(), sm.getRowHash(), dictionary.find(sm.getSapSystem()),
+                        dictionary.find(sm.getAsInstance()), sm.getEntrydate(), sm.getEntrytime(), sm.getEventTime(),
+                        sm.getClient(), sm.getEvent(), dictionary.find(sm.getUsername()), sm.getGroupname(),
+                        dictionary.find(sm.getTerminal()), sm.getPeer(), dictionary.find(sm.getSourceTA()),
+                        dictionary.find(sm.getProgram()),
+                        sm.getAuditLogMsgText(), sm.getNote(), sm.getVariableMessageData(), sm.getVariable2(),
+                        sm.getVariableData()
+                });
+    }
 
-                double timeValue = cell.getNumericCellValue();
+    private String getTimeValue(SheetRow row, int colIndex) {
+        if (row.isBlank(colIndex)) return "";
 
-                int totalSeconds = (int) (timeValue * 24 * 60 * 60);
-                int hours = totalSeconds / 3600;
-                int minutes = (totalSeconds % 3600) / 60;
-                int seconds = totalSeconds % 60;
-                return String.format("%02d:%02d:%02d", hours, minutes, seconds);
-            }
+        if (row.isNumeric(colIndex)) {
+            return SapDateTimeParser.formatTime(SapDateTimeParser.parseTime(row, colIndex));
         }
 
-
-        cell.setCellType(CellType.STRING);
-        return cell.getStringCellValue().trim();
+        return row.getRawValue(colIndex);
     }
 
-    private String getDateValue(Row row, int colIndex) {
-        Cell cell = row.getCell(colIndex);
-        if (cell == null) return "";
+    private String getDateValue(SheetRow row, int colIndex) {
+        if (row.isBlank(colIndex)) return "";
 
-        if (cell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
-            Date date = cell.getDateCellValue();
-            SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy");
-            return dateFormat.format(date);
+        if (row.isNumeric(colIndex) && row.isDateFormatted(colIndex)) {
+            return SapDateTimeParser.formatDate(SapDateTimeParser.parseDate(row, colIndex));
         }
 
-
-        cell.setCellType(CellType.STRING);
-        return cell.getStringCellValue().trim();
+        return row.getRawValue(colIndex);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package com.analysis.ffid.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnPlanTest {
+
+    @Test
+    void matchesAliasesIgnoringCaseSpacesAndPunctuation() {
+        ColumnPlan<CdposColumn> plan = ColumnPlan.forHeader(CdposColumn.class,
+                row("Old Value", "tab_name", "DOC. NUMBER", "f name"));
+
+        assertTrue(plan.isFromHeader());
+        assertEquals(0, plan.index(CdposColumn.OLD_VALUE));
+        assertEquals(1, plan.index(CdposColumn.TABLE_NAME));
+        assertEquals(2, plan.index(CdposColumn.DOC_NUMBER));
+        assertEquals(3, plan.index(CdposColumn.FIELD_NAME));
+    }
+
+    @Test
+    void readsReorderedColumnsByName() {
+        ColumnPlan<CdposColumn> plan = ColumnPlan.forHeader(CdposColumn.class,
+                row("VALUE_NEW", "CHANGENR", "TABNAME"));
+        SheetRow data = row("42", "0000012345", "LFA1");
+
+        assertEquals("0000012345", plan.value(data, CdposColumn.DOC_NUMBER));
+        assertEquals("LFA1", plan.value(data, CdposColumn.TABLE_NAME));
+        assertEquals("42", plan.value(data, CdposColumn.NEW_VALUE));
+    }
+
+    @Test
+    void missingOptionalColumnsReadAsBlank() {
+        ColumnPlan<CdposColumn> plan = ColumnPlan.forHeader(CdposColumn.class,
+                row("Change Number", "Field"));
+        SheetRow data = row("0000012345", "NAME1");
+
+        assertEquals(-1, plan.index(CdposColumn.OLD_VALUE));
+        assertEquals("", plan.value(data, CdposColumn.OLD_VALUE));
+        assertEquals("NAME1", plan.value(data, CdposColumn.FIELD_NAME));
+    }
+
+    @Test
+    void eachFileColumnIsClaimedOnce() {
+        // UNIT_OLD and UNIT_NEW are both aliases of UNIT; the first one present wins
+        ColumnPlan<CdposColumn> plan = ColumnPlan.forHeader(CdposColumn.class,
+                row("CHANGENR", "UNIT_OLD", "UNIT_NEW"));
+
+        assertEquals(1, plan.index(CdposColumn.UNIT));
+    }
+
+    @Test
+    void rejectsARecognisedHeaderWithoutARequiredColumn() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ColumnPlan.forHeader(CdposColumn.class, row("TABNAME", "FNAME", "VALUE_NEW")));
+
+        assertTrue(e.getMessage().contains("DOC_NUMBER"), e.getMessage());
+    }
+
+    @Test
+    void unrecognisedHeaderFallsBackToThePositionalLayout() {
+        ColumnPlan<CdposColumn> plan = ColumnPlan.forHeader(CdposColumn.class,
+                row("Export of 01.03.2024", "", "page 1"));
+
+        assertFalse(plan.isFromHeader());
+        for (CdposColumn column : CdposColumn.values()) {
+            assertEquals(column.defaultIndex(), plan.index(column));
+        }
+    }
+
+    @Test
+    void repeatedHeadersReuseTheCompiledPlan() {
+        SheetRow header = row("CHANGENR", "TABKEY", "CHNGIND");
+
+        assertSame(ColumnPlan.forHeader(CdposColumn.class, header),
+                ColumnPlan.forHeader(CdposColumn.class, row("changenr", "Tab Key", "chngind")));
+    }
+
+    @Test
+    void normalizeKeepsLettersAndDigitsOnly() {
+        assertEquals("auditlogmsgtext", ColumnPlan.normalize("Audit Log Msg. Text"));
+        assertEquals("auditlogmsgtext", ColumnPlan.normalize("AUDIT_LOG_MSG_TEXT"));
+        assertEquals("", ColumnPlan.normalize(null));
+    }
+
+    private static SheetRow row(String... values) {
+        SheetRow.CellData[] cells = new SheetRow.CellData[values.length];
+        for (int i = 0; i < values.length; i++) {
+            cells[i] = values[i].isEmpty() ? null : new SheetRow.CellData(values[i], values[i], Double.NaN, false);
+        }
+        return new SheetRow(0, cells);
+    }
+}
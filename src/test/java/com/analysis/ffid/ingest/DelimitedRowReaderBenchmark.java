@@ -0,0 +1,56 @@
+package com.analysis.ffid.ingest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parse time of the same synthetic SM20 export as CSV (memory-mapped) and
+ * as XLSX (SAX). Each format is read once to warm up and then timed over
+ * several runs. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class DelimitedRowReaderBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 100_000);
+    private static final int RUNS = 3;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void csvParsesAtLeastFiveTimesFasterThanXlsx() throws Exception {
+        Path csv = Sm20Samples.writeCsv(dir.resolve("sm20.csv"), ROWS);
+        Path xlsx = Sm20Samples.writeXlsx(dir.resolve("sm20.xlsx"), ROWS);
+        DelimitedRowReader delimited = new DelimitedRowReader();
+        ExcelRowReader excel = new ExcelRowReader();
+
+        assertEquals(ROWS + 1, delimited.read(csv, "sm20.csv", row -> row.getCellValue(7)));
+        assertEquals(ROWS + 1, excel.read(xlsx, row -> row.getCellValue(7)));
+
+        long csvNanos = Long.MAX_VALUE;
+        long xlsxNanos = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            delimited.read(csv, "sm20.csv", row -> row.getCellValue(7));
+            csvNanos = Math.min(csvNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            excel.read(xlsx, row -> row.getCellValue(7));
+            xlsxNanos = Math.min(xlsxNanos, System.nanoTime() - start);
+        }
+
+        double speedup = (double) xlsxNanos / csvNanos;
+        System.out.printf("SM20 %,d rows: CSV (%,d KiB) %,d ms, XLSX (%,d KiB) %,d ms, CSV %.1fx faster%n",
+                ROWS, Files.size(csv) / 1024, csvNanos / 1_000_000,
+                Files.size(xlsx) / 1024, xlsxNanos / 1_000_000, speedup);
+
+        assertTrue(speedup >= 5, "CSV should parse at least 5x faster than XLSX, was " + speedup);
+    }
+}
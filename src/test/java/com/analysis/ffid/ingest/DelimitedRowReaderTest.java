@@ -0,0 +1,146 @@
+package com.analysis.ffid.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DelimitedRowReaderTest {
+
+    private final DelimitedRowReader reader = new DelimitedRowReader();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void quotedFieldsMayHoldDelimitersQuotesAndLineBreaks() throws Exception {
+        List<SheetRow> rows = read("a,b,c\r\n\"x,y\",\"say \"\"hi\"\"\",\"two\nlines\"\r\n", "log.csv");
+
+        assertEquals(2, rows.size());
+        assertEquals(List.of("x,y", "say \"hi\"", "two\nlines"), values(rows.get(1)));
+    }
+
+    @Test
+    void emptyFieldsAreBlankAndQuotedEmptyFieldsToo() throws Exception {
+        List<SheetRow> rows = read("a,b,c,d\n1,,\"\",4\n", "log.csv");
+
+        SheetRow row = rows.get(1);
+        assertEquals(4, row.getCellCount());
+        assertTrue(row.isBlank(1));
+        assertTrue(row.isBlank(2));
+        assertEquals("4", row.getCellValue(3));
+    }
+
+    @Test
+    void trailingDelimiterAddsAnEmptyLastField() throws Exception {
+        List<SheetRow> rows = read("a,b\n1,\n", "log.csv");
+
+        assertEquals(2, rows.get(1).getCellCount());
+        assertTrue(rows.get(1).isBlank(1));
+    }
+
+    @Test
+    void lastRecordWithoutLineBreakIsRead() throws Exception {
+        List<SheetRow> rows = read("a,b\n1,2", "log.csv");
+
+        assertEquals(2, rows.size());
+        assertEquals(List.of("1", "2"), values(rows.get(1)));
+    }
+
+    @Test
+    void blankLinesAreSkippedButKeepTheirRowNumber() throws Exception {
+        List<SheetRow> rows = read("a\n\n\r\nb\n", "log.csv");
+
+        assertEquals(2, rows.size());
+        assertEquals(0, rows.get(0).getRowNum());
+        assertEquals(3, rows.get(1).getRowNum());
+    }
+
+    @Test
+    void quotesInsideAnUnquotedFieldAreKept() throws Exception {
+        List<SheetRow> rows = read("a,b\n5\" disk,x\n", "log.csv");
+
+        assertEquals("5\" disk", rows.get(1).getCellValue(0));
+    }
+
+    @Test
+    void detectsTheDelimiterOutsideQuotes() throws Exception {
+        List<SheetRow> rows = read("\"a,b\";c;d\n1;2;3\n", "log.txt");
+
+        assertEquals(List.of("a,b", "c", "d"), values(rows.get(0)));
+        assertEquals(List.of("1", "2", "3"), values(rows.get(1)));
+    }
+
+    @Test
+    void tsvFilesAlwaysSplitOnTabs() throws Exception {
+        List<SheetRow> rows = read("a,b\tc\n1,2\t3\n", "log.tsv");
+
+        assertEquals(List.of("a,b", "c"), values(rows.get(0)));
+    }
+
+    @Test
+    void skipsTheUtf8BomAndDecodesMultiByteText() throws Exception {
+        List<SheetRow> rows = read("﻿Name,City\nJürgen,Kraków\n", "log.csv");
+
+        assertEquals("Name", rows.get(0).getCellValue(0));
+        assertEquals(List.of("Jürgen", "Kraków"), values(rows.get(1)));
+    }
+
+    @Test
+    void repeatedValuesAreReusedOnlyInTheSameColumn() throws Exception {
+        List<SheetRow> rows = read("a,b\nX,Y\nX,X\nY,X\n", "log.csv");
+
+        assertEquals(List.of("X", "X"), values(rows.get(2)));
+        assertEquals(List.of("Y", "X"), values(rows.get(3)));
+        assertFalse(rows.get(3).isNumeric(0));
+    }
+
+    @Test
+    void streamAndMappedFileGiveTheSameRows() throws Exception {
+        String text = "a,b\r\n\"1,5\",\"x\"\"y\"\r\n\r\nlast,row";
+        Path file = dir.resolve("log.csv");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+
+        List<SheetRow> mapped = new ArrayList<>();
+        int count = reader.read(file, "log.csv", mapped::add);
+        List<SheetRow> streamed = read(text, "log.csv");
+
+        assertEquals(3, count);
+        assertEquals(streamed.size(), mapped.size());
+        for (int i = 0; i < mapped.size(); i++) {
+            assertEquals(values(streamed.get(i)), values(mapped.get(i)));
+            assertEquals(streamed.get(i).getRowNum(), mapped.get(i).getRowNum());
+        }
+    }
+
+    @Test
+    void emptyFileHasNoRows() throws Exception {
+        Path file = Files.createFile(dir.resolve("empty.csv"));
+
+        assertEquals(0, reader.read(file, "empty.csv", row -> {
+        }));
+    }
+
+    private List<SheetRow> read(String text, String fileName) throws Exception {
+        List<SheetRow> rows = new ArrayList<>();
+        reader.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), fileName, rows::add);
+        return rows;
+    }
+
+    private static List<String> values(SheetRow row) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < row.getCellCount(); i++) {
+            values.add(row.getCellValue(i));
+        }
+        return values;
+    }
+}
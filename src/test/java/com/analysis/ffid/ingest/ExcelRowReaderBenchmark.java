@@ -0,0 +1,70 @@
+package com.analysis.ffid.ingest;
+
+import com.analysis.ffid.HeapMeter;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Peak heap and rows/sec of the SAX reader against the DOM path uploads
+ * used before ({@code WorkbookFactory.create(is)}), on a synthetic SM20
+ * export. Run with {@code mvn test -Pbenchmark}; -Dbenchmark.rows changes
+ * the size.
+ */
+@Tag("benchmark")
+class ExcelRowReaderBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 100_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void saxReaderNeedsLessHeapThanTheDom() throws Exception {
+        Path file = Sm20Samples.writeXlsx(dir.resolve("sm20.xlsx"), ROWS);
+
+        HeapMeter.reset();
+        long start = System.nanoTime();
+        int[] domRows = {0};
+        DataFormatter formatter = new DataFormatter();
+        try (InputStream in = Files.newInputStream(file); Workbook workbook = WorkbookFactory.create(in)) {
+            for (Row row : workbook.getSheetAt(0)) {
+                SheetRow.fromRow(row, formatter);
+                domRows[0]++;
+            }
+        }
+        long domNanos = System.nanoTime() - start;
+        long domPeak = HeapMeter.peakBytes();
+
+        HeapMeter.reset();
+        start = System.nanoTime();
+        int saxRows = new ExcelRowReader().read(file, row -> {
+        });
+        long saxNanos = System.nanoTime() - start;
+        long saxPeak = HeapMeter.peakBytes();
+
+        System.out.printf("XLSX %,d rows (%,d KiB): DOM %,d rows/s, peak %,d MiB; SAX %,d rows/s, peak %,d MiB%n",
+                ROWS, Files.size(file) / 1024,
+                perSecond(domRows[0], domNanos), domPeak >> 20,
+                perSecond(saxRows, saxNanos), saxPeak >> 20);
+
+        assertEquals(ROWS + 1, saxRows);
+        assertEquals(domRows[0], saxRows);
+        assertTrue(saxPeak < domPeak, "SAX peak heap should stay below the DOM's");
+    }
+
+    private static long perSecond(int rows, long nanos) {
+        return Math.round(rows / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,131 @@
+package com.analysis.ffid.ingest;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExcelRowReaderTest {
+
+    private final ExcelRowReader reader = new ExcelRowReader();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsSharedStringsNumbersDatesAndGaps() throws Exception {
+        Path file = write(new XSSFWorkbook(), "shared.xlsx");
+
+        List<SheetRow> rows = readAll(file);
+
+        assertEquals(2, rows.size());
+        assertEquals("Client", rows.get(0).getCellValue(0));
+        SheetRow data = rows.get(1);
+        assertEquals("100", data.getCellValue(0));
+        assertFalse(data.isNumeric(0));
+        assertTrue(data.isNumeric(1));
+        assertEquals(42.5, data.getNumericValue(1));
+        assertTrue(data.isDateFormatted(2));
+        assertEquals("15.03.2024", data.getCellValue(2));
+        assertTrue(data.isBlank(3));
+        assertEquals("TRUE", data.getCellValue(4));
+        assertTrue(data.isBlank(5));
+    }
+
+    @Test
+    void readsInlineStringsWrittenByStreamingWorkbooks() throws Exception {
+        Path file = write(new SXSSFWorkbook(), "inline.xlsx");
+
+        List<SheetRow> rows = readAll(file);
+
+        assertEquals("Client", rows.get(0).getCellValue(0));
+        assertEquals("100", rows.get(1).getCellValue(0));
+        assertEquals("15.03.2024", rows.get(1).getCellValue(2));
+    }
+
+    @Test
+    void readsLegacyXls() throws Exception {
+        Path file = write(new HSSFWorkbook(), "legacy.xls");
+
+        List<SheetRow> rows = readAll(file);
+
+        assertEquals(2, rows.size());
+        assertEquals("100", rows.get(1).getCellValue(0));
+        assertTrue(rows.get(1).isDateFormatted(2));
+    }
+
+    @Test
+    void keepsSheetRowNumbersAcrossMissingRows() throws Exception {
+        Path file = dir.resolve("gaps.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("header");
+            sheet.createRow(3).createCell(0).setCellValue("data");
+            workbook.write(out);
+        }
+
+        List<SheetRow> rows = readAll(file);
+
+        assertEquals(2, rows.size());
+        assertEquals(0, rows.get(0).getRowNum());
+        assertEquals(3, rows.get(1).getRowNum());
+    }
+
+    @Test
+    void handlerExceptionsReachTheCallerUnwrapped() throws Exception {
+        Path file = write(new XSSFWorkbook(), "fail.xlsx");
+
+        assertThrows(IllegalStateException.class, () -> reader.read(file, row -> {
+            throw new IllegalStateException("stop");
+        }));
+    }
+
+    private List<SheetRow> readAll(Path file) throws Exception {
+        List<SheetRow> rows = new ArrayList<>();
+        int count = reader.read(file, rows::add);
+        assertEquals(rows.size(), count);
+        return rows;
+    }
+
+    private Path write(Workbook workbook, String name) throws Exception {
+        Path file = dir.resolve(name);
+        try (workbook; OutputStream out = Files.newOutputStream(file)) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd.mm.yyyy"));
+
+            Sheet sheet = workbook.createSheet("SM20");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Client");
+            header.createCell(1).setCellValue("Amount");
+            header.createCell(2).setCellValue("Date");
+
+            Row data = sheet.createRow(1);
+            data.createCell(0).setCellValue("100");
+            data.createCell(1).setCellValue(42.5);
+            data.createCell(2).setCellValue(LocalDateTime.of(LocalDate.of(2024, 3, 15), LocalTime.MIDNIGHT));
+            data.getCell(2).setCellStyle(dateStyle);
+            data.createCell(4).setCellValue(true);
+            workbook.write(out);
+        }
+        return file;
+    }
+}
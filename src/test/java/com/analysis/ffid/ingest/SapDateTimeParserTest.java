@@ -0,0 +1,129 @@
+package com.analysis.ffid.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SapDateTimeParserTest {
+
+    @Test
+    void parsesTheSapDateLayouts() {
+        LocalDate expected = LocalDate.of(2024, 3, 5);
+        assertEquals(expected, SapDateTimeParser.parseDate("05.03.2024"));
+        assertEquals(expected, SapDateTimeParser.parseDate("5.3.2024"));
+        assertEquals(expected, SapDateTimeParser.parseDate("2024-03-05"));
+        assertEquals(expected, SapDateTimeParser.parseDate("20240305"));
+        assertEquals(expected, SapDateTimeParser.parseDate("05/03/2024"));
+    }
+
+    @Test
+    void rejectsImpossibleDates() {
+        assertNull(SapDateTimeParser.parseDate("30.02.2024"));
+        assertNull(SapDateTimeParser.parseDate("00.01.2024"));
+        assertNull(SapDateTimeParser.parseDate("01.13.2024"));
+        assertNull(SapDateTimeParser.parseDate("ab.cd.efgh"));
+        assertNull(SapDateTimeParser.parseDate("yesterday"));
+        assertNull(SapDateTimeParser.parseDate(""));
+        assertNull(SapDateTimeParser.parseDate(null));
+    }
+
+    @Test
+    void acceptsLeapDaysOnlyInLeapYears() {
+        assertEquals(LocalDate.of(2024, 2, 29), SapDateTimeParser.parseDate("29.02.2024"));
+        assertNull(SapDateTimeParser.parseDate("29.02.2023"));
+    }
+
+    @Test
+    void unparseableTextStaysUnparseableWhenCached() {
+        assertNull(SapDateTimeParser.parseDate("not a date"));
+        assertNull(SapDateTimeParser.parseDate("not a date"));
+    }
+
+    @Test
+    void parsesTheSapTimeLayouts() {
+        assertEquals(LocalTime.of(7, 5, 9), SapDateTimeParser.parseTime("07:05:09"));
+        assertEquals(LocalTime.of(7, 5, 9), SapDateTimeParser.parseTime("7:05:09"));
+        assertEquals(LocalTime.of(7, 5, 9), SapDateTimeParser.parseTime("070509"));
+        assertEquals(LocalTime.of(7, 5), SapDateTimeParser.parseTime("7:05"));
+    }
+
+    @Test
+    void rejectsImpossibleTimes() {
+        assertNull(SapDateTimeParser.parseTime("24:00:00"));
+        assertNull(SapDateTimeParser.parseTime("12:60:00"));
+        assertNull(SapDateTimeParser.parseTime("noon"));
+        assertNull(SapDateTimeParser.parseTime(""));
+    }
+
+    @Test
+    void textCellsUseTheRawValue() {
+        SheetRow row = row(text(" 05.03.2024 "), text("07:05:09"));
+
+        assertEquals(LocalDate.of(2024, 3, 5), SapDateTimeParser.parseDate(row, 0));
+        assertEquals(LocalTime.of(7, 5, 9), SapDateTimeParser.parseTime(row, 1));
+    }
+
+    @Test
+    void numericDateCellsAreExcelSerials() {
+        // 45356 is 2024-03-05 in the 1900 date system
+        SheetRow row = row(number(45356), number(45356.75), number(0), number(-1));
+
+        assertEquals(LocalDate.of(2024, 3, 5), SapDateTimeParser.parseDate(row, 0));
+        assertEquals(LocalDate.of(2024, 3, 5), SapDateTimeParser.parseDate(row, 1));
+        assertNull(SapDateTimeParser.parseDate(row, 2));
+        assertNull(SapDateTimeParser.parseDate(row, 3));
+    }
+
+    @Test
+    void numericTimeCellsAreDayFractionsRoundedToTheSecond() {
+        SheetRow row = row(number(0.5), number(45356.75), number(1.0 / 86_400 * 0.6), number(-0.25));
+
+        assertEquals(LocalTime.NOON, SapDateTimeParser.parseTime(row, 0));
+        assertEquals(LocalTime.of(18, 0), SapDateTimeParser.parseTime(row, 1));
+        assertEquals(LocalTime.of(0, 0, 1), SapDateTimeParser.parseTime(row, 2));
+        assertNull(SapDateTimeParser.parseTime(row, 3));
+    }
+
+    @Test
+    void blankAndMissingCellsAreNull() {
+        SheetRow row = row(text(""), null);
+
+        assertNull(SapDateTimeParser.parseDate(row, 0));
+        assertNull(SapDateTimeParser.parseDate(row, 1));
+        assertNull(SapDateTimeParser.parseTime(row, 5));
+    }
+
+    @Test
+    void combineNeedsADateAndDefaultsToMidnight() {
+        LocalDate date = LocalDate.of(2024, 3, 5);
+
+        assertEquals(LocalDateTime.of(2024, 3, 5, 7, 5), SapDateTimeParser.combine(date, LocalTime.of(7, 5)));
+        assertEquals(date.atStartOfDay(), SapDateTimeParser.combine(date, null));
+        assertNull(SapDateTimeParser.combine(null, LocalTime.NOON));
+    }
+
+    @Test
+    void formatsTheUiLayout() {
+        assertEquals("05.03.2024 07:05:09",
+                SapDateTimeParser.formatDisplay(LocalDateTime.of(2024, 3, 5, 7, 5, 9)));
+        assertEquals("", SapDateTimeParser.formatDate(null));
+        assertNull(SapDateTimeParser.formatDisplay(null));
+    }
+
+    private static SheetRow row(SheetRow.CellData... cells) {
+        return new SheetRow(1, cells);
+    }
+
+    private static SheetRow.CellData text(String value) {
+        return new SheetRow.CellData(value, value, Double.NaN, false);
+    }
+
+    private static SheetRow.CellData number(double value) {
+        return new SheetRow.CellData(String.valueOf(value), String.valueOf(value), value, true);
+    }
+}
@@ -0,0 +1,70 @@
+package com.analysis.ffid.ingest;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Synthetic SM20 exports for the benchmarks, the same rows as XLSX or CSV.
+ */
+final class Sm20Samples {
+
+    static final String[] HEADER = {"Date", "Time", "Client", "User", "Terminal", "Transaction Code",
+            "Program", "Audit Log Msg. Text", "Message ID", "Instance"};
+
+    private Sm20Samples() {
+    }
+
+    static String[] row(int i) {
+        return new String[]{
+                String.format("%02d.03.2024", 1 + i % 28),
+                String.format("%02d:%02d:%02d", i / 3600 % 24, i / 60 % 60, i % 60),
+                "100",
+                "FF_USER_" + (i % 5),
+                "TERM" + (i % 20),
+                "SE16N",
+                "SAPLSE16N",
+                "Transaction SE16N started with table " + (i % 500),
+                "AU" + (i % 10),
+                "sapprd_PRD_00"};
+    }
+
+    static Path writeXlsx(Path file, int rows) throws Exception {
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+             OutputStream out = Files.newOutputStream(file)) {
+            workbook.setCompressTempFiles(true);
+            Sheet sheet = workbook.createSheet("SM20");
+            write(sheet.createRow(0), HEADER);
+            for (int i = 0; i < rows; i++) {
+                write(sheet.createRow(i + 1), row(i));
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+        return file;
+    }
+
+    static Path writeCsv(Path file, int rows) throws Exception {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(String.join(",", HEADER));
+            out.write("\r\n");
+            for (int i = 0; i < rows; i++) {
+                out.write(String.join(",", row(i)));
+                out.write("\r\n");
+            }
+        }
+        return file;
+    }
+
+    private static void write(Row row, String[] values) {
+        for (int c = 0; c < values.length; c++) {
+            row.createCell(c).setCellValue(values[c]);
+        }
+    }
+}
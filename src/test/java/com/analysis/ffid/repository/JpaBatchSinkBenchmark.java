@@ -0,0 +1,167 @@
+package com.analysis.ffid.repository;
+
+import com.analysis.ffid.ingest.UploadProgress;
+import com.analysis.ffid.model.request_details;
+import com.analysis.ffid.model.sm20;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JDBC round trips of an SM20 upload through {@link JpaBatchSink} against
+ * the old loop, which saved row by row and, with IDENTITY keys, sent
+ * every insert on its own (emulated here by a flush per row; both sides
+ * commit every {@link #BATCH_SIZE} rows). Uses the real sm20 mapping on an
+ * in-memory database. Every statement execution and every commit counts
+ * as one round trip, a whole JDBC batch included. Round trips cost next
+ * to nothing in memory, so only their count is checked; the printed times
+ * say little about PostgreSQL. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false, properties = {
+        "spring.datasource.url=jdbc:h2:mem:batching;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SapDictionary.class, JpaBatchSinkBenchmark.CountingDataSourceConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaBatchSinkBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 100_000);
+    private static final int BATCH_SIZE = 1000;
+    private static final AtomicLong ROUND_TRIPS = new AtomicLong();
+
+    @Autowired
+    private sm20Repository sm20Repo;
+
+    @Autowired
+    private request_detailsRepository requestRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void batchedSinkNeedsAtLeastTenTimesFewerRoundTrips() {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        request_details perRow = requestRepo.save(request_details.builder().analysisID("REQ-PER-ROW").build());
+        request_details batched = requestRepo.save(request_details.builder().analysisID("REQ-BATCHED").build());
+
+        ROUND_TRIPS.set(0);
+        long start = System.nanoTime();
+        for (int from = 0; from < ROWS; from += BATCH_SIZE) {
+            int first = from;
+            transactions.executeWithoutResult(status -> {
+                for (int i = first; i < Math.min(first + BATCH_SIZE, ROWS); i++) {
+                    sm20 row = sm20Repo.save(row(perRow, i));
+                    entityManager.flush();
+                    entityManager.detach(row);
+                }
+            });
+        }
+        long perRowNanos = System.nanoTime() - start;
+        long perRowTrips = ROUND_TRIPS.get();
+
+        ROUND_TRIPS.set(0);
+        start = System.nanoTime();
+        JpaBatchSink<sm20> sink = new JpaBatchSink<>(sm20Repo, entityManager, transactions, BATCH_SIZE,
+                new UploadProgress("benchmark"), null, sm20::getRowHash,
+                hashes -> sm20Repo.findStoredRowHashes(batched, hashes));
+        for (int i = 0; i < ROWS; i++) {
+            sink.add(row(batched, i));
+        }
+        long written = sink.finish();
+        long batchedNanos = System.nanoTime() - start;
+        long batchedTrips = ROUND_TRIPS.get();
+
+        System.out.printf("SM20 %,d rows: per-row save %,d round trips in %,d ms; batched sink %,d round trips in %,d ms%n",
+                ROWS, perRowTrips, perRowNanos / 1_000_000, batchedTrips, batchedNanos / 1_000_000);
+
+        assertEquals(ROWS, written);
+        assertTrue(perRowTrips >= 10 * batchedTrips,
+                "expected at least 10x fewer round trips, got " + perRowTrips + " vs " + batchedTrips);
+    }
+
+    private static sm20 row(request_details request, int i) {
+        sm20 entry = sm20.builder()
+                .requestDetails(request)
+                .eventTime(LocalDateTime.of(2024, 3, 1, 0, 0).plusSeconds(i))
+                .client("100")
+                .event("AU" + (i % 10))
+                .auditLogMsgText("Transaction SE16N started with table " + i)
+                .build();
+        entry.setRowHash(entry.computeRowHash());
+        return entry;
+    }
+
+    /**
+     * Wraps the data source so every statement execution is counted.
+     */
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+
+        private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate",
+                "executeLargeUpdate", "executeBatch", "executeLargeBatch", "commit", "rollback");
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? proxy(DataSource.class, dataSource) : bean;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+                if (EXECUTE.contains(method.getName())) {
+                    ROUND_TRIPS.incrementAndGet();
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                for (Class<?> wrapped : new Class<?>[]{Connection.class, Statement.class}) {
+                    if (method.getReturnType().isInterface() && wrapped.isAssignableFrom(method.getReturnType())
+                            && result != null) {
+                        return proxy((Class<Object>) method.getReturnType(), result);
+                    }
+                }
+                return result;
+            });
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.analysis.ffid.repository;
+
+import com.analysis.ffid.model.cdhdr;
+import com.analysis.ffid.model.cdpos;
+import com.analysis.ffid.model.request_details;
+import com.analysis.ffid.model.sm20;
+import com.analysis.ffid.model.transaction_usage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards the analysis prompt against the Cartesian-product fetch it once
+ * used (one query LEFT JOIN FETCHing SM20, CDHDR and transaction usage,
+ * i.e. sm20 x cdhdr x transaction rows). The prompt now reads each log
+ * through its own grouped query; this seeds a small and a ten times larger
+ * session and checks that the same three queries run for both, that no
+ * entities are loaded, that the rows returned depend only on the distinct
+ * activities and that the time grows about linearly. Run with
+ * {@code mvn test -Pbenchmark}; -Dbenchmark.session-rows changes the size.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false, properties = {
+        "spring.datasource.url=jdbc:h2:mem:prompt;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=1000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SapDictionary.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PromptQueryBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.session-rows", 10_000);
+    private static final int DISTINCT = 40;
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private request_detailsRepository requestRepo;
+
+    @Autowired
+    private sm20Repository sm20Repo;
+
+    @Autowired
+    private transaction_usageRepository transactionRepo;
+
+    @Autowired
+    private cdhdrRepository cdhdrRepo;
+
+    @Autowired
+    private cdposRepository cdposRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void promptQueriesGrowLinearlyWithTheSession() {
+        request_details small = seed("REQ-SMALL", ROWS / 10);
+        request_details large = seed("REQ-LARGE", ROWS);
+
+        read(small);
+        Run smallRun = read(small);
+        Run largeRun = read(large);
+
+        System.out.printf("Prompt queries: %,d rows per log %,d rows returned in %,d ms; "
+                        + "%,d rows per log %,d rows returned in %,d ms (%,d entities loaded)%n",
+                ROWS / 10, smallRun.rows, smallRun.nanos / 1_000_000,
+                ROWS, largeRun.rows, largeRun.nanos / 1_000_000, largeRun.entities);
+
+        assertEquals(3, smallRun.queries);
+        assertEquals(3, largeRun.queries);
+        assertEquals(0, largeRun.entities);
+        assertEquals(smallRun.rows, largeRun.rows);
+        assertTrue(largeRun.rows <= 3 * DISTINCT, "rows returned should depend on the distinct activities only");
+        assertTrue(largeRun.nanos < 50 * Math.max(smallRun.nanos, 1_000_000),
+                "ten times the rows should take about ten times as long, not a product of the log sizes");
+    }
+
+    private Run read(request_details request) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long start = System.nanoTime();
+        long rows = new TransactionTemplate(transactionManager).execute(status ->
+                (long) sm20Repo.findDistinctActivity(request).size()
+                        + transactionRepo.findDistinctActivity(request).size()
+                        + cdhdrRepo.findDistinctChangeActivity(request).size());
+        return new Run(rows, System.nanoTime() - start, statistics.getPrepareStatementCount(),
+                statistics.getEntityLoadCount());
+    }
+
+    private request_details seed(String analysisId, int rows) {
+        request_details request = requestRepo.save(request_details.builder().analysisID(analysisId).build());
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        LocalDateTime t0 = LocalDateTime.of(2024, 3, 5, 8, 0);
+        for (int from = 0; from < rows; from += BATCH_SIZE) {
+            int first = from;
+            transactions.executeWithoutResult(status -> {
+                List<Object> batch = new ArrayList<>();
+                for (int i = first; i < Math.min(first + BATCH_SIZE, rows); i++) {
+                    int activity = i % DISTINCT;
+                    String docNumber = String.format("%010d", i);
+                    batch.add(sm20.builder().requestDetails(request)
+                            .eventTime(t0.plusSeconds(i)).client("100").sourceTA("SU" + activity)
+                            .program("PROG" + activity).auditLogMsgText("Transaction SU" + activity + " started")
+                            .build());
+                    batch.add(transaction_usage.builder().requestDetails(request)
+                            .tcode("SU" + activity).program("PROG" + activity).build());
+                    batch.add(cdhdr.builder().requestDetails(request).docNumber(docNumber)
+                            .eventTime(t0.plusSeconds(i)).object("OBJ" + activity).objectValue("V" + activity)
+                            .build());
+                    batch.add(cdpos.builder().requestDetails(request).docNumber(docNumber)
+                            .tableName("TAB" + activity).fieldName("FIELD" + activity).build());
+                }
+                for (Object entity : batch) {
+                    entityManager.persist(entity);
+                }
+            });
+        }
+        return request;
+    }
+
+    private record Run(long rows, long nanos, long queries, long entities) {
+    }
+}
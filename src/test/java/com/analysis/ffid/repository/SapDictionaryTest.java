@@ -0,0 +1,75 @@
+package com.analysis.ffid.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SapDictionaryTest {
+
+    private static final String FIND_ID = "SELECT id FROM sap_dictionary WHERE term = ?";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SapDictionary dictionary = new SapDictionary(jdbcTemplate, mock(PlatformTransactionManager.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dictionary, "cacheSize", 2);
+        when(jdbcTemplate.queryForList(eq(FIND_ID), eq(Integer.class), anyString()))
+                .thenAnswer(invocation -> List.of(idOf(invocation.getArgument(2))));
+    }
+
+    @Test
+    void knownTermsAreReadOnce() {
+        assertEquals(1, dictionary.find("SU01"));
+        assertEquals(1, dictionary.find("SU01"));
+        assertEquals("SU01", dictionary.termOf(1));
+
+        verify(jdbcTemplate, times(1)).queryForList(FIND_ID, Integer.class, "SU01");
+    }
+
+    @Test
+    void dropsTheLeastRecentlyUsedTermWhenFull() {
+        dictionary.find("SU01");
+        dictionary.find("SE16N");
+        dictionary.find("SU01");
+        dictionary.find("PFCG");
+
+        dictionary.find("SU01");
+        dictionary.find("PFCG");
+        verify(jdbcTemplate, times(1)).queryForList(FIND_ID, Integer.class, "SU01");
+        verify(jdbcTemplate, times(1)).queryForList(FIND_ID, Integer.class, "PFCG");
+
+        dictionary.find("SE16N");
+        verify(jdbcTemplate, times(2)).queryForList(FIND_ID, Integer.class, "SE16N");
+    }
+
+    @Test
+    void unknownAndNullTermsHaveNoId() {
+        when(jdbcTemplate.queryForList(FIND_ID, Integer.class, "NOPE")).thenReturn(List.of());
+
+        assertNull(dictionary.find("NOPE"));
+        assertNull(dictionary.find(null));
+    }
+
+    private static Integer idOf(String term) {
+        return switch (term) {
+            case "SU01" -> 1;
+            case "SE16N" -> 2;
+            case "PFCG" -> 3;
+            default -> 99;
+        };
+    }
+}
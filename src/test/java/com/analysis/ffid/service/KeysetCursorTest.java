@@ -0,0 +1,69 @@
+package com.analysis.ffid.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsATimedPosition() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 5, 7, 5, 9);
+
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.after(time, 42, 7L).encode());
+
+        assertFalse(cursor.isUntimed());
+        assertEquals(time, cursor.getTime());
+        assertEquals(42, cursor.getId());
+        assertEquals(7, cursor.getItemId());
+    }
+
+    @Test
+    void roundTripsAnUntimedPosition() {
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.after(null, 42, null).encode());
+
+        assertTrue(cursor.isUntimed());
+        assertNull(cursor.getTime());
+        assertEquals(42, cursor.getId());
+        assertEquals(0, cursor.getItemId());
+    }
+
+    @Test
+    void encodesUrlSafeWithoutPadding() {
+        String encoded = KeysetCursor.after(LocalDateTime.of(2024, 3, 5, 7, 5, 9, 123_000_000), 1, null).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void missingCursorIsTheStartOfTheTimedRows() {
+        for (String text : new String[]{null, "", "  "}) {
+            KeysetCursor start = KeysetCursor.decode(text);
+
+            assertFalse(start.isUntimed());
+            assertTrue(start.getTime().isBefore(LocalDateTime.of(1900, 1, 1, 0, 0)));
+            assertEquals(0, start.getId());
+            assertEquals(0, start.getItemId());
+        }
+    }
+
+    @Test
+    void rejectsTextThatIsNotACursor() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("1|2")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("yesterday|1|0")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("|x|0")));
+    }
+
+    private static String encode(String text) {
+        return Base64.getUrlEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,117 @@
+package com.analysis.ffid.service;
+
+import com.analysis.ffid.HeapMeter;
+import com.analysis.ffid.model.request_details;
+import com.analysis.ffid.model.sm20;
+import com.analysis.ffid.repository.analysis_resultRepository;
+import com.analysis.ffid.repository.cdhdrRepository;
+import com.analysis.ffid.repository.request_detailsRepository;
+import com.analysis.ffid.repository.sm20Repository;
+import com.analysis.ffid.repository.transaction_usageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Peak heap and rows/sec of the XLSX session report for a large SM20 log,
+ * with the repository stream mocked so only the SXSSF writing is measured.
+ * A tenth of the rows is written first; with rows spilled to temp files the
+ * peak should not grow with the log. Run with {@code mvn test -Pbenchmark};
+ * -Dbenchmark.report-rows changes the size.
+ */
+@Tag("benchmark")
+class SessionReportBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.report-rows", 1_000_000);
+    private static final String ANALYSIS_ID = "FF-BENCH";
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 5, 8, 0);
+
+    @Test
+    void reportHeapDoesNotGrowWithTheLog() throws IOException {
+        Run small = write(ROWS / 10);
+        Run large = write(ROWS);
+
+        System.out.printf("XLSX report: %,d rows %,d rows/s, peak %,d MiB, %,d KiB; "
+                        + "%,d rows %,d rows/s, peak %,d MiB, %,d KiB%n",
+                small.rows, small.rowsPerSecond(), small.peakBytes >> 20, small.bytes / 1024,
+                large.rows, large.rowsPerSecond(), large.peakBytes >> 20, large.bytes / 1024);
+
+        assertTrue(large.peakBytes < small.peakBytes * 3,
+                "Peak heap should stay flat when the log grows tenfold");
+    }
+
+    private static Run write(int rows) throws IOException {
+        request_details request = request_details.builder().analysisID(ANALYSIS_ID).build();
+        request_detailsRepository requestRepo = mock(request_detailsRepository.class);
+        sm20Repository sm20Repo = mock(sm20Repository.class);
+        when(requestRepo.findById(ANALYSIS_ID)).thenReturn(Optional.of(request));
+        when(sm20Repo.streamByRequestDetails(request))
+                .thenAnswer(invocation -> LongStream.rangeClosed(1, rows).mapToObj(SessionReportBenchmark::row));
+
+        SessionExportService service = new SessionExportService(requestRepo, sm20Repo,
+                mock(transaction_usageRepository.class), mock(cdhdrRepository.class),
+                mock(analysis_resultRepository.class), mock(EntityManager.class), new ObjectMapper(),
+                mock(PlatformTransactionManager.class), 500);
+
+        HeapMeter.reset();
+        long start = System.nanoTime();
+        CountingOutputStream out = new CountingOutputStream();
+        service.prepareReport(ANALYSIS_ID).writeTo(out);
+        return new Run(rows, System.nanoTime() - start, HeapMeter.peakBytes(), out.bytes);
+    }
+
+    private static sm20 row(long id) {
+        return sm20.builder()
+                .entryId(id)
+                .eventTime(T0.plusSeconds(id))
+                .sapSystem("PRD")
+                .asInstance("sapprd_PRD_00")
+                .entrydate("05.03.2024")
+                .entrytime("08:00:00")
+                .client("100")
+                .event("AU3")
+                .username("FF_USER_01")
+                .groupname("SUPER")
+                .terminal("TERM" + (id % 50))
+                .peer("10.0.0." + (id % 200))
+                .sourceTA(id % 3 == 0 ? "SE16N" : "SU01")
+                .program("SAPMSSY1")
+                .auditLogMsgText("Transaction SU01 started, row " + id)
+                .variableMessageData("SU01")
+                .build();
+    }
+
+    private record Run(int rows, long nanos, long peakBytes, long bytes) {
+
+        long rowsPerSecond() {
+            return Math.round(rows / (nanos / 1e9));
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
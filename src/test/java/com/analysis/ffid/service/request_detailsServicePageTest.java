@@ -0,0 +1,188 @@
+package com.analysis.ffid.service;
+
+import com.analysis.ffid.dto.KeysetPageDTO;
+import com.analysis.ffid.dto.SM20DTO;
+import com.analysis.ffid.model.request_details;
+import com.analysis.ffid.repository.AuditLogRow;
+import com.analysis.ffid.repository.request_detailsRepository;
+import com.analysis.ffid.repository.sm20Repository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Page boundaries of the SM20 keyset paging: the limit+1 probe, the cursor
+ * of the last row and the switch from timed to untimed rows.
+ */
+@ExtendWith(MockitoExtension.class)
+class request_detailsServicePageTest {
+
+    private static final String ANALYSIS_ID = "FF-1";
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 5, 8, 0);
+
+    @Mock
+    private request_detailsRepository requestRepo;
+
+    @Mock
+    private sm20Repository sm20Repo;
+
+    @InjectMocks
+    private request_detailsService service;
+
+    private final request_details request = request_details.builder().analysisID(ANALYSIS_ID).build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "defaultPageSize", 3);
+        ReflectionTestUtils.setField(service, "maxPageSize", 10);
+        when(requestRepo.findById(ANALYSIS_ID)).thenReturn(Optional.of(request));
+    }
+
+    @Test
+    void exactlyLimitRowsIsTheLastPage() {
+        when(sm20Repo.findTimedPage(eq(request), any(), anyLong(), eq(PageRequest.of(0, 4))))
+                .thenReturn(timed(1, 3));
+        when(sm20Repo.findUntimedPage(request, 0, PageRequest.of(0, 1))).thenReturn(List.of());
+
+        KeysetPageDTO<SM20DTO> page = service.getAuditLogPage(ANALYSIS_ID, null, null);
+
+        assertEquals(3, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void oneRowOverTheLimitContinuesAfterTheLastShownRow() {
+        when(sm20Repo.findTimedPage(eq(request), any(), anyLong(), eq(PageRequest.of(0, 4))))
+                .thenReturn(timed(1, 4));
+
+        KeysetPageDTO<SM20DTO> page = service.getAuditLogPage(ANALYSIS_ID, null, null);
+
+        assertEquals(3, page.getItems().size());
+        assertTrue(page.isHasMore());
+        KeysetCursor next = KeysetCursor.decode(page.getNextCursor());
+        assertEquals(T0.plusMinutes(3), next.getTime());
+        assertEquals(3, next.getId());
+        verify(sm20Repo, never()).findUntimedPage(any(), anyLong(), any());
+    }
+
+    @Test
+    void shortTimedPageIsFilledUpWithUntimedRows() {
+        when(sm20Repo.findTimedPage(eq(request), any(), anyLong(), eq(PageRequest.of(0, 4))))
+                .thenReturn(timed(1, 2));
+        when(sm20Repo.findUntimedPage(request, 0, PageRequest.of(0, 2)))
+                .thenReturn(List.of(row(10, null), row(11, null)));
+
+        KeysetPageDTO<SM20DTO> page = service.getAuditLogPage(ANALYSIS_ID, null, null);
+
+        assertEquals(3, page.getItems().size());
+        assertTrue(page.isHasMore());
+        KeysetCursor next = KeysetCursor.decode(page.getNextCursor());
+        assertTrue(next.isUntimed());
+        assertEquals(10, next.getId());
+    }
+
+    @Test
+    void untimedCursorSkipsTheTimedQuery() {
+        String after = KeysetCursor.after(null, 10, null).encode();
+        when(sm20Repo.findUntimedPage(request, 10, PageRequest.of(0, 3)))
+                .thenReturn(List.of(row(11, null), row(12, null)));
+
+        KeysetPageDTO<SM20DTO> page = service.getAuditLogPage(ANALYSIS_ID, after, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertFalse(page.isHasMore());
+        verify(sm20Repo, never()).findTimedPage(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void timedCursorIsPassedToTheQuery() {
+        LocalDateTime time = T0.plusMinutes(3);
+        String after = KeysetCursor.after(time, 3, null).encode();
+        when(sm20Repo.findTimedPage(request, time, 3, PageRequest.of(0, 11))).thenReturn(timed(4, 11));
+
+        KeysetPageDTO<SM20DTO> page = service.getAuditLogPage(ANALYSIS_ID, after, 50);
+
+        assertEquals(10, page.getLimit());
+        assertTrue(page.isHasMore());
+        assertEquals(13, KeysetCursor.decode(page.getNextCursor()).getId());
+    }
+
+    private static List<AuditLogRow> timed(long firstId, int count) {
+        List<AuditLogRow> rows = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            rows.add(row(id, T0.plusMinutes(id)));
+        }
+        return rows;
+    }
+
+    private static AuditLogRow row(long id, LocalDateTime eventTime) {
+        return new AuditLogRow() {
+            @Override
+            public Long getEntryId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getEventTime() {
+                return eventTime;
+            }
+
+            @Override
+            public String getEntryDate() {
+                return "05.03.2024";
+            }
+
+            @Override
+            public String getEntryTime() {
+                return "08:00:00";
+            }
+
+            @Override
+            public String getClient() {
+                return "100";
+            }
+
+            @Override
+            public String getTerminal() {
+                return "T" + id;
+            }
+
+            @Override
+            public String getSourceTa() {
+                return "SU01";
+            }
+
+            @Override
+            public String getProgram() {
+                return "SAPMSUU0";
+            }
+
+            @Override
+            public String getMessage() {
+                return "message " + id;
+            }
+        };
+    }
+}